@@ -0,0 +1,132 @@
+package com.orhanobut.wasp.benchmark;
+
+import com.orhanobut.wasp.utils.WaspCache;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single lock LRU with the segmented one. The keys follow a zipf distribution like
+ * the images of a list, a few of them are requested most of the time. A miss puts the key, as
+ * the image loader does after the decode.
+ *
+ * <p>Throughput is measured with the parallel lookups of several threads. Hit ratio is
+ * hits / (hits + misses) of the reported counters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class WaspCacheBenchmark {
+
+  private static final int KEY_COUNT = 1 << 14;
+  private static final int SAMPLE_COUNT = 1 << 16;
+  private static final int SAMPLE_MASK = SAMPLE_COUNT - 1;
+
+  @Param({"1", "4", "16"})
+  public int concurrencyLevel;
+
+  @Param({"1024"})
+  public int maxSize;
+
+  private WaspCache<Integer, Integer> cache;
+  private Integer[] samples;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    cache = new WaspCache<>(maxSize, concurrencyLevel);
+    samples = newZipfSamples(new Random(42));
+  }
+
+  @Benchmark
+  public Integer getOrPut(ThreadState state, HitCounters counters) {
+    Integer key = samples[state.next()];
+    Integer value = cache.get(key);
+    if (value != null) {
+      counters.hits++;
+      return value;
+    }
+    counters.misses++;
+    cache.put(key, key);
+    return key;
+  }
+
+  /**
+   * Each thread walks the samples from its own offset
+   */
+  @State(Scope.Thread)
+  public static class ThreadState {
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      index = new Random().nextInt(SAMPLE_COUNT);
+    }
+
+    int next() {
+      return index++ & SAMPLE_MASK;
+    }
+  }
+
+  @AuxCounters
+  @State(Scope.Thread)
+  public static class HitCounters {
+
+    public long hits;
+    public long misses;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      hits = 0;
+      misses = 0;
+    }
+  }
+
+  /**
+   * Zipf with the exponent 1, key i is requested with the probability of 1 / (i + 1) / H
+   */
+  private static Integer[] newZipfSamples(Random random) {
+    double[] cumulative = new double[KEY_COUNT];
+    double sum = 0;
+    for (int i = 0; i < KEY_COUNT; i++) {
+      sum += 1.0 / (i + 1);
+      cumulative[i] = sum;
+    }
+    Integer[] samples = new Integer[SAMPLE_COUNT];
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      double value = random.nextDouble() * sum;
+      int low = 0;
+      int high = KEY_COUNT - 1;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (cumulative[middle] < value) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      // shuffles the popular keys over the segments
+      samples[i] = low * 0x9E3779B1;
+    }
+    return samples;
+  }
+}
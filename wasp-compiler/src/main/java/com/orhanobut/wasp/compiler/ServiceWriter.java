@@ -0,0 +1,268 @@
+package com.orhanobut.wasp.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.JavaFileObject;
+
+/**
+ * Writes the source of the generated service. Each method has a static ServiceMethod which holds
+ * the compile time information and the method body only binds the arguments.
+ */
+final class ServiceWriter {
+
+  static final String SUFFIX = "$$Wasp";
+
+  private static final String GENERATED_SERVICE = WaspProcessor.WASP_PACKAGE + "GeneratedService";
+  private static final String SERVICE_METHOD = WaspProcessor.WASP_PACKAGE + "ServiceMethod";
+  private static final String INDENT = "  ";
+
+  enum ReturnKind {
+    CALLBACK, REQUEST, OBSERVABLE, SYNC
+  }
+
+  private final String packageName;
+  private final String className;
+  private final String serviceName;
+  private final List<MethodBinding> methods = new ArrayList<>();
+
+  /**
+   * @param packageName of the service
+   * @param className   of the service without the package, ie: Outer$Service
+   * @param serviceName canonical name of the service
+   */
+  ServiceWriter(String packageName, String className, String serviceName) {
+    this.packageName = packageName;
+    this.className = className + SUFFIX;
+    this.serviceName = serviceName;
+  }
+
+  void addMethod(MethodBinding method) {
+    methods.add(method);
+  }
+
+  void write(Filer filer) throws IOException {
+    String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+    JavaFileObject file = filer.createSourceFile(qualifiedName);
+    Writer writer = file.openWriter();
+    try {
+      writer.write(brewJava());
+    } finally {
+      writer.close();
+    }
+  }
+
+  String brewJava() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("// Generated code from Wasp. Do not modify!\n");
+    if (!packageName.isEmpty()) {
+      builder.append("package ").append(packageName).append(";\n\n");
+    }
+    builder.append("public final class ").append(className)
+        .append(" extends ").append(GENERATED_SERVICE).append('\n')
+        .append(INDENT).append(INDENT).append("implements ").append(serviceName).append(" {\n");
+
+    for (int i = 0; i < methods.size(); i++) {
+      builder.append('\n');
+      methods.get(i).emitField(builder, fieldName(i));
+    }
+
+    builder.append('\n')
+        .append(INDENT).append("public ").append(className).append("() {\n")
+        .append(INDENT).append(INDENT).append("super(");
+    for (int i = 0; i < methods.size(); i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(fieldName(i));
+    }
+    builder.append(");\n")
+        .append(INDENT).append("}\n");
+
+    for (int i = 0; i < methods.size(); i++) {
+      builder.append('\n');
+      methods.get(i).emitMethod(builder, fieldName(i));
+    }
+    builder.append("}\n");
+    return builder.toString();
+  }
+
+  private static String fieldName(int index) {
+    return "METHOD_" + index;
+  }
+
+  static final class MethodBinding {
+
+    private final ExecutableElement method;
+    private final String name;
+    private final List<String> statements = new ArrayList<>();
+    private final List<String> arguments = new ArrayList<>();
+
+    private String httpMethod;
+    private ReturnKind returnKind;
+    private String responseType;
+
+    MethodBinding(ExecutableElement method, String name) {
+      this.method = method;
+      this.name = name;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    boolean hasHttpMethod() {
+      return httpMethod != null;
+    }
+
+    void setHttpMethod(String statement) {
+      this.httpMethod = statement;
+    }
+
+    void setReturnKind(ReturnKind returnKind, String responseType) {
+      this.returnKind = returnKind;
+      this.responseType = responseType;
+    }
+
+    void addStatement(String statement) {
+      statements.add(statement);
+    }
+
+    void addArgument(String argument) {
+      arguments.add(argument);
+    }
+
+    private void emitField(StringBuilder builder, String field) {
+      String continuation = INDENT + INDENT + INDENT;
+      builder.append(INDENT).append("private static final ").append(SERVICE_METHOD)
+          .append(' ').append(field).append(" =\n")
+          .append(INDENT).append(INDENT).append("new ").append(SERVICE_METHOD)
+          .append(".Builder(").append(WaspProcessor.literal(name)).append(")\n")
+          .append(continuation).append(httpMethod).append('\n');
+      for (String statement : statements) {
+        builder.append(continuation).append(statement).append('\n');
+      }
+      builder.append(continuation).append(getReturnStatement()).append('\n')
+          .append(continuation).append(".build();\n");
+    }
+
+    private String getReturnStatement() {
+      switch (returnKind) {
+        case CALLBACK:
+          return ".returnsCallback(" + responseType + ")";
+        case REQUEST:
+          return ".returnsWaspRequest(" + responseType + ")";
+        case OBSERVABLE:
+          return ".returnsObservable(" + responseType + ")";
+        default:
+          return ".returnsSync(" + responseType + ")";
+      }
+    }
+
+    private void emitMethod(StringBuilder builder, String field) {
+      String returnType = method.getReturnType().toString();
+      boolean castRequired = returnKind == ReturnKind.OBSERVABLE
+          || returnKind == ReturnKind.SYNC;
+
+      builder.append(INDENT).append("@Override\n");
+      if (castRequired) {
+        builder.append(INDENT).append("@SuppressWarnings(\"unchecked\")\n");
+      }
+      builder.append(INDENT).append("public ").append(returnType).append(' ')
+          .append(method.getSimpleName()).append('(');
+      emitParameters(builder);
+      builder.append(')');
+      emitThrows(builder);
+      builder.append(" {\n");
+
+      StringBuilder call = new StringBuilder("newRequest(").append(field).append(')');
+      for (String argument : arguments) {
+        call.append(".bind(").append(argument).append(')');
+      }
+
+      String body = INDENT + INDENT;
+      List<? extends VariableElement> params = method.getParameters();
+      switch (returnKind) {
+        case CALLBACK:
+          builder.append(body).append(call).append(".enqueue(")
+              .append(params.get(params.size() - 1).getSimpleName()).append(");\n");
+          break;
+        case REQUEST:
+          builder.append(body).append("return (").append(returnType).append(") ").append(call)
+              .append(".enqueue(").append(params.get(params.size() - 1).getSimpleName())
+              .append(");\n");
+          break;
+        case OBSERVABLE:
+          builder.append(body).append("return (").append(returnType).append(") (rx.Observable<?>) ")
+              .append(call).append(".toObservable();\n");
+          break;
+        default:
+          emitSyncBody(builder, call, returnType);
+      }
+      builder.append(INDENT).append("}\n");
+    }
+
+    /**
+     * Checked exceptions are wrapped in the same way as the proxy does, unless the method
+     * declares them
+     */
+    private void emitSyncBody(StringBuilder builder, StringBuilder call, String returnType) {
+      String body = INDENT + INDENT;
+      String statement = "return (" + returnType + ") " + call + ".execute();\n";
+      if (declaresException()) {
+        builder.append(body).append(statement);
+        return;
+      }
+      builder.append(body).append("try {\n")
+          .append(body).append(INDENT).append(statement)
+          .append(body).append("} catch (RuntimeException e) {\n")
+          .append(body).append(INDENT).append("throw e;\n")
+          .append(body).append("} catch (Exception e) {\n")
+          .append(body).append(INDENT)
+          .append("throw new java.lang.reflect.UndeclaredThrowableException(e);\n")
+          .append(body).append("}\n");
+    }
+
+    private boolean declaresException() {
+      for (TypeMirror thrown : method.getThrownTypes()) {
+        String type = thrown.toString();
+        if ("java.lang.Exception".equals(type) || "java.lang.Throwable".equals(type)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void emitParameters(StringBuilder builder) {
+      List<? extends VariableElement> params = method.getParameters();
+      for (int i = 0; i < params.size(); i++) {
+        if (i > 0) {
+          builder.append(", ");
+        }
+        VariableElement param = params.get(i);
+        TypeMirror type = param.asType();
+        if (method.isVarArgs() && i == params.size() - 1 && type.getKind() == TypeKind.ARRAY) {
+          builder.append(((ArrayType) type).getComponentType()).append("...");
+        } else {
+          builder.append(type);
+        }
+        builder.append(' ').append(param.getSimpleName());
+      }
+    }
+
+    private void emitThrows(StringBuilder builder) {
+      List<? extends TypeMirror> thrownTypes = method.getThrownTypes();
+      for (int i = 0; i < thrownTypes.size(); i++) {
+        builder.append(i == 0 ? " throws " : ", ").append(thrownTypes.get(i));
+      }
+    }
+  }
+}
@@ -0,0 +1,262 @@
+package com.orhanobut.wasp.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.processing.Filer;
+import javax.tools.JavaFileObject;
+
+/**
+ * Writes the source of a generated gson TypeAdapter for a model class. Fields are assigned
+ * directly, primitives and strings are read inline and the other types are delegated to the
+ * adapters which are taken from gson once.
+ */
+final class TypeAdapterWriter {
+
+  static final String SUFFIX = "$$TypeAdapter";
+
+  private static final String GENERATED_TYPE_ADAPTER =
+      WaspProcessor.WASP_PACKAGE + "parsers.GeneratedTypeAdapter";
+  private static final String JSON_READER = "com.google.gson.stream.JsonReader";
+  private static final String JSON_WRITER = "com.google.gson.stream.JsonWriter";
+  private static final String TYPE_ADAPTER = "com.google.gson.TypeAdapter";
+  private static final String INDENT = "  ";
+
+  /**
+   * How the field is read and written, the primitives which gson reads with a special handling
+   * are BOXED and they use the gson adapter
+   */
+  enum FieldKind {
+    INT, LONG, DOUBLE, FLOAT, BOOLEAN, STRING, BOXED, OBJECT
+  }
+
+  private final String packageName;
+  private final String className;
+  private final String modelName;
+  private final List<FieldBinding> fields = new ArrayList<>();
+
+  /**
+   * @param packageName of the model
+   * @param className   of the model without the package, ie: Outer$Model
+   * @param modelName   canonical name of the model
+   */
+  TypeAdapterWriter(String packageName, String className, String modelName) {
+    this.packageName = packageName;
+    this.className = className + SUFFIX;
+    this.modelName = modelName;
+  }
+
+  String getModelName() {
+    return modelName;
+  }
+
+  void addField(FieldBinding field) {
+    fields.add(field);
+  }
+
+  void write(Filer filer) throws IOException {
+    String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+    JavaFileObject file = filer.createSourceFile(qualifiedName);
+    Writer writer = file.openWriter();
+    try {
+      writer.write(brewJava());
+    } finally {
+      writer.close();
+    }
+  }
+
+  String brewJava() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("// Generated code from Wasp. Do not modify!\n");
+    if (!packageName.isEmpty()) {
+      builder.append("package ").append(packageName).append(";\n\n");
+    }
+    builder.append("public final class ").append(className)
+        .append(" extends ").append(GENERATED_TYPE_ADAPTER)
+        .append('<').append(modelName).append("> {\n");
+
+    emitAdapterFields(builder);
+    emitConstructor(builder);
+
+    builder.append('\n')
+        .append(INDENT).append("@Override\n")
+        .append(INDENT).append("protected ").append(modelName).append(" newInstance() {\n")
+        .append(INDENT).append(INDENT).append("return new ").append(modelName).append("();\n")
+        .append(INDENT).append("}\n");
+
+    emitReadField(builder);
+    emitWriteFields(builder);
+    builder.append("}\n");
+    return builder.toString();
+  }
+
+  private void emitAdapterFields(StringBuilder builder) {
+    boolean first = true;
+    for (int i = 0; i < fields.size(); i++) {
+      FieldBinding field = fields.get(i);
+      if (!field.hasAdapter()) {
+        continue;
+      }
+      if (first) {
+        builder.append('\n');
+        first = false;
+      }
+      builder.append(INDENT).append("private final ").append(TYPE_ADAPTER).append('<')
+          .append(field.adapterType).append("> ").append(adapterName(i)).append(";\n");
+    }
+  }
+
+  private void emitConstructor(StringBuilder builder) {
+    String body = INDENT + INDENT;
+    builder.append('\n')
+        .append(INDENT).append("public ").append(className)
+        .append("(com.google.gson.Gson gson) {\n")
+        .append(body).append("super(gson);\n");
+    for (int i = 0; i < fields.size(); i++) {
+      FieldBinding field = fields.get(i);
+      if (field.hasAdapter()) {
+        builder.append(body).append(adapterName(i)).append(" = getAdapter(")
+            .append(field.typeLiteral).append(");\n");
+      }
+    }
+    builder.append(INDENT).append("}\n");
+  }
+
+  private void emitReadField(StringBuilder builder) {
+    String body = INDENT + INDENT;
+    builder.append('\n')
+        .append(INDENT).append("@Override\n")
+        .append(INDENT).append("protected void readField(").append(JSON_READER)
+        .append(" in, String name, ").append(modelName).append(" value)\n")
+        .append(INDENT).append(INDENT).append(INDENT).append(INDENT)
+        .append("throws java.io.IOException {\n")
+        .append(body).append("switch (name) {\n");
+    for (int i = 0; i < fields.size(); i++) {
+      FieldBinding field = fields.get(i);
+      String statement = body + INDENT + INDENT;
+      builder.append(body).append(INDENT).append("case ")
+          .append(WaspProcessor.literal(field.jsonName)).append(":\n");
+      String target = "value." + field.name;
+      switch (field.kind) {
+        case INT:
+          builder.append(statement).append(target).append(" = readInt(in, ").append(target)
+              .append(");\n");
+          break;
+        case LONG:
+          builder.append(statement).append(target).append(" = readLong(in, ").append(target)
+              .append(");\n");
+          break;
+        case DOUBLE:
+          builder.append(statement).append(target).append(" = readDouble(in, ").append(target)
+              .append(");\n");
+          break;
+        case FLOAT:
+          builder.append(statement).append(target).append(" = readFloat(in, ").append(target)
+              .append(");\n");
+          break;
+        case BOOLEAN:
+          builder.append(statement).append(target).append(" = readBoolean(in, ").append(target)
+              .append(");\n");
+          break;
+        case STRING:
+          builder.append(statement).append(target).append(" = readString(in);\n");
+          break;
+        case BOXED:
+          // null doesn't change the primitive
+          String local = "boxed" + i;
+          builder.append(statement).append(field.adapterType).append(' ').append(local)
+              .append(" = ").append(adapterName(i)).append(".read(in);\n")
+              .append(statement).append("if (").append(local).append(" != null) {\n")
+              .append(statement).append(INDENT).append(target).append(" = ").append(local)
+              .append(";\n")
+              .append(statement).append("}\n");
+          break;
+        default:
+          builder.append(statement).append(target).append(" = ").append(adapterName(i))
+              .append(".read(in);\n");
+      }
+      builder.append(statement).append("break;\n");
+    }
+    builder.append(body).append(INDENT).append("default:\n")
+        .append(body).append(INDENT).append(INDENT).append("in.skipValue();\n")
+        .append(body).append("}\n")
+        .append(INDENT).append("}\n");
+  }
+
+  private void emitWriteFields(StringBuilder builder) {
+    String body = INDENT + INDENT;
+    builder.append('\n')
+        .append(INDENT).append("@Override\n")
+        .append(INDENT).append("protected void writeFields(").append(JSON_WRITER)
+        .append(" out, ").append(modelName).append(" value)\n")
+        .append(INDENT).append(INDENT).append(INDENT).append(INDENT)
+        .append("throws java.io.IOException {\n");
+    for (int i = 0; i < fields.size(); i++) {
+      FieldBinding field = fields.get(i);
+      String name = "out.name(" + WaspProcessor.literal(field.jsonName) + ")";
+      String source = "value." + field.name;
+      switch (field.kind) {
+        case DOUBLE:
+          builder.append(body).append(name).append(";\n")
+              .append(body).append("writeDouble(out, ").append(source).append(");\n");
+          break;
+        case FLOAT:
+          builder.append(body).append(name).append(";\n")
+              .append(body).append("writeFloat(out, ").append(source).append(");\n");
+          break;
+        case BOXED:
+          builder.append(body).append(name).append(";\n")
+              .append(body).append(adapterName(i)).append(".write(out, ").append(source)
+              .append(");\n");
+          break;
+        case OBJECT:
+          // same as gson, a field which refers to its owner is skipped
+          builder.append(body).append("if ((Object) ").append(source).append(" != value) {\n")
+              .append(body).append(INDENT).append(name).append(";\n")
+              .append(body).append(INDENT).append("write(out, ").append(adapterName(i))
+              .append(", ").append(field.declaredClass).append(", ").append(source)
+              .append(");\n")
+              .append(body).append("}\n");
+          break;
+        default:
+          builder.append(body).append(name).append(".value(").append(source).append(");\n");
+      }
+    }
+    builder.append(INDENT).append("}\n");
+  }
+
+  private static String adapterName(int index) {
+    return "adapter" + index;
+  }
+
+  static final class FieldBinding {
+
+    final String name;
+    final String jsonName;
+    final FieldKind kind;
+    final String adapterType;
+    final String typeLiteral;
+    final String declaredClass;
+
+    /**
+     * @param adapterType   type argument of the gson adapter, null if the field has no adapter
+     * @param typeLiteral   source of the java.lang.reflect.Type which the adapter is taken for
+     * @param declaredClass class literal of the field type, "null" if it is parameterized
+     */
+    FieldBinding(String name, String jsonName, FieldKind kind, String adapterType,
+                 String typeLiteral, String declaredClass) {
+      this.name = name;
+      this.jsonName = jsonName;
+      this.kind = kind;
+      this.adapterType = adapterType;
+      this.typeLiteral = typeLiteral;
+      this.declaredClass = declaredClass;
+    }
+
+    boolean hasAdapter() {
+      return kind == FieldKind.BOXED || kind == FieldKind.OBJECT;
+    }
+  }
+}
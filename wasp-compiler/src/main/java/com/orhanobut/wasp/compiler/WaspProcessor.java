@@ -0,0 +1,801 @@
+package com.orhanobut.wasp.compiler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates {@code ServiceName$$Wasp} implementations for the service interfaces, so that
+ * Wasp.create() does not need to reflect over the methods and to create a proxy.
+ *
+ * The processor only depends on the annotation names, therefore it does not need the wasp
+ * library on its classpath. If a service uses something which is not supported, a warning is
+ * printed and the service falls back to the proxy at runtime.
+ *
+ * With the {@code wasp.generateTypeAdapters} option, {@code Model$$TypeAdapter} gson adapters are
+ * generated as well for the model classes which are reachable from the response types. Models
+ * which can not be generated are left to the reflective adapter of gson.
+ */
+public final class WaspProcessor extends AbstractProcessor {
+
+  static final String WASP_PACKAGE = "com.orhanobut.wasp.";
+  static final String HTTP_PACKAGE = WASP_PACKAGE + "http.";
+
+  private static final String REST_METHOD = HTTP_PACKAGE + "RestMethod";
+  private static final String CALLBACK = WASP_PACKAGE + "Callback";
+  private static final String WASP_REQUEST = WASP_PACKAGE + "WaspRequest";
+  private static final String OBSERVABLE = "rx.Observable";
+  private static final String MIME_TYPES = WASP_PACKAGE + "utils.MimeTypes";
+  private static final String REQUEST_PRIORITY = WASP_PACKAGE + "utils.RequestPriority";
+  private static final String PROGRESS_LISTENER = WASP_PACKAGE + "utils.ProgressListener";
+
+  private static final String GSON_ANNOTATIONS = "com.google.gson.annotations.";
+  private static final String SERIALIZED_NAME = GSON_ANNOTATIONS + "SerializedName";
+
+  static final String OPTION_TYPE_ADAPTERS = "wasp.generateTypeAdapters";
+
+  private static final String[] HTTP_METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD"};
+
+  private Elements elements;
+  private Types types;
+  private Messager messager;
+  private Filer filer;
+  private boolean generateTypeAdapters;
+
+  /**
+   * Models which are already visited, adapters are generated only once
+   */
+  private final Set<String> models = new HashSet<>();
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    elements = processingEnv.getElementUtils();
+    types = processingEnv.getTypeUtils();
+    messager = processingEnv.getMessager();
+    filer = processingEnv.getFiler();
+    generateTypeAdapters =
+        Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_TYPE_ADAPTERS));
+  }
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    Set<String> result = new LinkedHashSet<>();
+    for (String method : HTTP_METHODS) {
+      result.add(HTTP_PACKAGE + method);
+    }
+    return result;
+  }
+
+  @Override
+  public Set<String> getSupportedOptions() {
+    return Collections.singleton(OPTION_TYPE_ADAPTERS);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    Set<TypeElement> services = new LinkedHashSet<>();
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        Element enclosing = element.getEnclosingElement();
+        if (enclosing.getKind() == ElementKind.INTERFACE) {
+          services.add((TypeElement) enclosing);
+        }
+      }
+    }
+
+    for (TypeElement service : services) {
+      try {
+        parseService(service).write(filer);
+      } catch (UnsupportedServiceException e) {
+        messager.printMessage(Diagnostic.Kind.WARNING,
+            e.getMessage() + ", proxy will be used for " + service.getQualifiedName(), service);
+      } catch (IOException e) {
+        messager.printMessage(Diagnostic.Kind.ERROR,
+            "Unable to write the service for " + service.getQualifiedName() + ": " + e, service);
+      }
+    }
+
+    if (generateTypeAdapters) {
+      writeTypeAdapters(services, roundEnv.getRootElements());
+    }
+    return false;
+  }
+
+  private void writeTypeAdapters(Set<TypeElement> services, Set<? extends Element> sources) {
+    List<TypeAdapterWriter> writers = new ArrayList<>();
+    for (TypeElement service : services) {
+      for (Element element : service.getEnclosedElements()) {
+        if (element.getKind() != ElementKind.METHOD
+            || !element.getModifiers().contains(Modifier.ABSTRACT)) {
+          continue;
+        }
+        TypeMirror responseType = findResponseType((ExecutableElement) element);
+        if (responseType != null) {
+          collectModels(responseType, sources, writers);
+        }
+      }
+    }
+
+    for (TypeAdapterWriter writer : writers) {
+      try {
+        writer.write(filer);
+      } catch (IOException e) {
+        messager.printMessage(Diagnostic.Kind.ERROR,
+            "Unable to write the type adapter for " + writer.getModelName() + ": " + e);
+      }
+    }
+  }
+
+  private ServiceWriter parseService(TypeElement service) {
+    if (!service.getInterfaces().isEmpty()) {
+      throw new UnsupportedServiceException("Extending interfaces is not supported");
+    }
+    if (!service.getTypeParameters().isEmpty()) {
+      throw new UnsupportedServiceException("Generic services are not supported");
+    }
+    for (Element element = service; element.getKind() != ElementKind.PACKAGE;
+         element = element.getEnclosingElement()) {
+      if (element.getModifiers().contains(Modifier.PRIVATE)) {
+        throw new UnsupportedServiceException("Private services are not supported");
+      }
+    }
+
+    String packageName = elements.getPackageOf(service).getQualifiedName().toString();
+    String binaryName = elements.getBinaryName(service).toString();
+    String className = packageName.isEmpty()
+        ? binaryName : binaryName.substring(packageName.length() + 1);
+
+    ServiceWriter writer = new ServiceWriter(
+        packageName, className, service.getQualifiedName().toString()
+    );
+    for (Element element : service.getEnclosedElements()) {
+      if (element.getKind() != ElementKind.METHOD
+          || !element.getModifiers().contains(Modifier.ABSTRACT)) {
+        continue;
+      }
+      writer.addMethod(parseMethod(service, (ExecutableElement) element));
+    }
+    return writer;
+  }
+
+  private ServiceWriter.MethodBinding parseMethod(TypeElement service, ExecutableElement method) {
+    String name = service.getSimpleName() + "." + method.getSimpleName();
+    if (!method.getTypeParameters().isEmpty()) {
+      throw new UnsupportedServiceException(name + ": generic methods are not supported");
+    }
+
+    ServiceWriter.MethodBinding binding = new ServiceWriter.MethodBinding(method, name);
+    parseMethodAnnotations(method, binding);
+    if (!binding.hasHttpMethod()) {
+      throw new UnsupportedServiceException(name + ": http method annotation is missing");
+    }
+
+    List<? extends VariableElement> params = method.getParameters();
+    int paramCount = params.size();
+    ServiceWriter.ReturnKind returnKind = parseReturnType(method, binding);
+    if (returnKind == ServiceWriter.ReturnKind.CALLBACK
+        || returnKind == ServiceWriter.ReturnKind.REQUEST) {
+      // callback is passed to enqueue, it is not bound
+      paramCount--;
+    }
+
+    for (int i = 0; i < paramCount; i++) {
+      VariableElement param = params.get(i);
+      AnnotationMirror paramAnnotation = null;
+      for (AnnotationMirror mirror : param.getAnnotationMirrors()) {
+        if (getName(mirror).startsWith(HTTP_PACKAGE)) {
+          paramAnnotation = mirror;
+        }
+      }
+      if (paramAnnotation == null) {
+        throw new UnsupportedServiceException(
+            name + ": param " + param.getSimpleName() + " has no annotation"
+        );
+      }
+      String annotation = getName(paramAnnotation).substring(HTTP_PACKAGE.length());
+      String statement;
+      boolean primitiveBinding = false;
+      switch (annotation) {
+        case "Path":
+          statement = ".addPathParam(" + literal(getValue(paramAnnotation, "value")) + ")";
+          primitiveBinding = true;
+          break;
+        case "Query":
+          statement = ".addQueryParam(" + literal(getValue(paramAnnotation, "value")) + ")";
+          primitiveBinding = true;
+          break;
+        case "QueryMap":
+          statement = ".addQueryMapParam()";
+          break;
+        case "Header":
+          statement = ".addHeaderParam(" + literal(getValue(paramAnnotation, "value")) + ")";
+          primitiveBinding = true;
+          break;
+        case "Field":
+          statement = ".addFieldParam(" + literal(getValue(paramAnnotation, "value")) + ")";
+          primitiveBinding = true;
+          break;
+        case "FieldMap":
+          statement = ".addFieldMapParam()";
+          break;
+        case "Body":
+          statement = ".addBodyParam()";
+          break;
+        case "BodyMap":
+          statement = ".addBodyMapParam()";
+          break;
+        case "Priority":
+          if (!REQUEST_PRIORITY.equals(param.asType().toString())) {
+            throw new UnsupportedServiceException(
+                name + ": @Priority param should be RequestPriority"
+            );
+          }
+          statement = ".addPriorityParam()";
+          break;
+        case "Part":
+          statement = ".addPartParam(" + literal(getValue(paramAnnotation, "value")) + ")";
+          break;
+        case "UploadProgress":
+          if (!PROGRESS_LISTENER.equals(param.asType().toString())) {
+            throw new UnsupportedServiceException(
+                name + ": @UploadProgress param should be ProgressListener"
+            );
+          }
+          statement = ".addProgressParam()";
+          break;
+        default:
+          throw new UnsupportedServiceException(name + ": @" + annotation + " is not supported");
+      }
+      binding.addStatement(statement);
+
+      String argument = param.getSimpleName().toString();
+      if (!primitiveBinding && param.asType().getKind().isPrimitive()) {
+        // body values are serialized by the parser, they must keep their type
+        argument = "(Object) " + argument;
+      }
+      binding.addArgument(argument);
+    }
+    return binding;
+  }
+
+  private void parseMethodAnnotations(ExecutableElement method,
+                                      ServiceWriter.MethodBinding binding) {
+    for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+      String annotationName = getName(mirror);
+      if (!annotationName.startsWith(HTTP_PACKAGE)) {
+        continue;
+      }
+      switch (annotationName.substring(HTTP_PACKAGE.length())) {
+        case "Headers":
+          List<String> headers = new ArrayList<>();
+          for (Object header : (List<?>) getValue(mirror, "value")) {
+            headers.add(literal(((AnnotationValue) header).getValue()));
+          }
+          binding.addStatement(".addHeaders(" + join(headers) + ")");
+          break;
+        case "RetryPolicy":
+          binding.addStatement(".setRetryPolicy(" + getValue(mirror, "timeout") + ", "
+              + getValue(mirror, "maxNumRetries") + ", "
+              + getValue(mirror, "backoffMultiplier") + "f)");
+          break;
+        case "EndPoint":
+          binding.addStatement(".setEndPoint(" + literal(getValue(mirror, "value")) + ")");
+          break;
+        case "Auth":
+          binding.addStatement(".setAuth()");
+          break;
+        case "Coalesce":
+          binding.addStatement(".setCoalesce()");
+          break;
+        case "Compress":
+          binding.addStatement(".setCompress()");
+          break;
+        case "Streaming":
+          binding.addStatement(".setStreaming()");
+          break;
+        case "Cache":
+          binding.addStatement(".setCache(" + getValue(mirror, "maxAge") + ", "
+              + getValue(mirror, "staleIfError") + ")");
+          break;
+        case "StaleWhileRevalidate":
+          binding.addStatement(".setStaleWhileRevalidate()");
+          break;
+        case "Priority":
+          VariableElement priority = (VariableElement) getValue(mirror, "value");
+          binding.addStatement(
+              ".setPriority(" + REQUEST_PRIORITY + "." + priority.getSimpleName() + ")"
+          );
+          break;
+        case "Mock":
+          binding.addStatement(".setMock(" + getValue(mirror, "statusCode") + ", "
+              + literal(getValue(mirror, "path")) + ")");
+          break;
+        case "FormUrlEncoded":
+          binding.addStatement(".setContentType(" + MIME_TYPES + ".CONTENT_TYPE_FORM_URL_ENCODED)");
+          break;
+        case "Multipart":
+          binding.addStatement(".setContentType(" + MIME_TYPES + ".CONTENT_TYPE_MULTIPART)");
+          break;
+        default:
+          String httpMethod = getRestMethod(mirror);
+          if (httpMethod == null) {
+            throw new UnsupportedServiceException(
+                binding.getName() + ": @" + annotationName + " is not supported"
+            );
+          }
+          binding.setHttpMethod(".setHttpMethod(" + literal(httpMethod) + ", "
+              + literal(getValue(mirror, "value")) + ")");
+      }
+    }
+  }
+
+  /**
+   * @return the value of the @RestMethod which annotates the given annotation, ie: GET
+   */
+  private String getRestMethod(AnnotationMirror annotation) {
+    Element annotationType = annotation.getAnnotationType().asElement();
+    for (AnnotationMirror mirror : annotationType.getAnnotationMirrors()) {
+      if (REST_METHOD.equals(getName(mirror))) {
+        return (String) getValue(mirror, "value");
+      }
+    }
+    return null;
+  }
+
+  private ServiceWriter.ReturnKind parseReturnType(ExecutableElement method,
+                                                   ServiceWriter.MethodBinding binding) {
+    TypeMirror returnType = method.getReturnType();
+    String name = binding.getName();
+
+    ServiceWriter.ReturnKind returnKind;
+    TypeMirror responseType;
+    if (returnType.getKind() == TypeKind.VOID) {
+      returnKind = ServiceWriter.ReturnKind.CALLBACK;
+      responseType = getCallbackResponseType(method, name);
+    } else if (isSubtype(returnType, WASP_REQUEST)) {
+      returnKind = ServiceWriter.ReturnKind.REQUEST;
+      responseType = getCallbackResponseType(method, name);
+    } else if (isSubtype(returnType, OBSERVABLE)) {
+      returnKind = ServiceWriter.ReturnKind.OBSERVABLE;
+      responseType = getTypeArgument(returnType, OBSERVABLE);
+    } else {
+      returnKind = ServiceWriter.ReturnKind.SYNC;
+      responseType = returnType;
+    }
+
+    binding.setReturnKind(returnKind, typeLiteral(responseType, name));
+    return returnKind;
+  }
+
+  /**
+   * @return the type which the response is parsed to, null if it is not declared properly
+   */
+  private TypeMirror findResponseType(ExecutableElement method) {
+    TypeMirror returnType = method.getReturnType();
+    try {
+      if (returnType.getKind() == TypeKind.VOID || isSubtype(returnType, WASP_REQUEST)) {
+        return getCallbackResponseType(method, method.getSimpleName().toString());
+      }
+      if (isSubtype(returnType, OBSERVABLE)) {
+        return getTypeArgument(returnType, OBSERVABLE);
+      }
+      return returnType;
+    } catch (UnsupportedServiceException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Visits the given type, its type arguments and the field types of the models. An adapter is
+   * created for each model which is compiled with the services.
+   */
+  private void collectModels(TypeMirror type, Set<? extends Element> sources,
+                             List<TypeAdapterWriter> writers) {
+    switch (type.getKind()) {
+      case ARRAY:
+        collectModels(((ArrayType) type).getComponentType(), sources, writers);
+        return;
+      case WILDCARD:
+        TypeMirror bound = ((WildcardType) type).getExtendsBound();
+        if (bound != null) {
+          collectModels(bound, sources, writers);
+        }
+        return;
+      case DECLARED:
+        break;
+      default:
+        return;
+    }
+    for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+      collectModels(argument, sources, writers);
+    }
+
+    TypeElement model = (TypeElement) ((DeclaredType) type).asElement();
+    if (model.getKind() != ElementKind.CLASS || !sources.contains(getOutermostType(model))
+        || !models.add(model.getQualifiedName().toString())) {
+      return;
+    }
+    try {
+      writers.add(parseModel(model));
+    } catch (UnsupportedModelException e) {
+      messager.printMessage(Diagnostic.Kind.NOTE, e.getMessage()
+          + ", gson will use reflection for " + model.getQualifiedName(), model);
+    }
+    for (VariableElement field : getSerializedFields(model)) {
+      collectModels(types.asMemberOf((DeclaredType) model.asType(), field), sources, writers);
+    }
+  }
+
+  private TypeAdapterWriter parseModel(TypeElement model) {
+    if (model.getModifiers().contains(Modifier.ABSTRACT)) {
+      throw new UnsupportedModelException("Abstract classes are not supported");
+    }
+    if (!model.getTypeParameters().isEmpty()) {
+      throw new UnsupportedModelException("Generic models are not supported");
+    }
+    if (model.getNestingKind() != NestingKind.TOP_LEVEL
+        && (model.getNestingKind() != NestingKind.MEMBER
+        || !model.getModifiers().contains(Modifier.STATIC))) {
+      throw new UnsupportedModelException("Inner classes are not supported");
+    }
+    for (Element element = model; element.getKind() != ElementKind.PACKAGE;
+         element = element.getEnclosingElement()) {
+      if (element.getModifiers().contains(Modifier.PRIVATE)) {
+        throw new UnsupportedModelException("Private models are not supported");
+      }
+    }
+    if (!hasNoArgConstructor(model)) {
+      throw new UnsupportedModelException("No-arg constructor is missing");
+    }
+    if (hasGsonAnnotation(model)) {
+      throw new UnsupportedModelException("Gson annotations of the class are not supported");
+    }
+
+    String packageName = elements.getPackageOf(model).getQualifiedName().toString();
+    String binaryName = elements.getBinaryName(model).toString();
+    String className = packageName.isEmpty()
+        ? binaryName : binaryName.substring(packageName.length() + 1);
+    TypeAdapterWriter writer = new TypeAdapterWriter(
+        packageName, className, model.getQualifiedName().toString()
+    );
+
+    Set<String> jsonNames = new HashSet<>();
+    for (VariableElement field : getSerializedFields(model)) {
+      String name = field.getSimpleName().toString();
+      Set<Modifier> modifiers = field.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)) {
+        throw new UnsupportedModelException("Private and final fields are not supported: " + name);
+      }
+      if (!modifiers.contains(Modifier.PUBLIC)
+          && !elements.getPackageOf(field).equals(elements.getPackageOf(model))) {
+        throw new UnsupportedModelException("Field is not accessible: " + name);
+      }
+      String jsonName = name;
+      for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+        String annotation = getName(mirror);
+        if (SERIALIZED_NAME.equals(annotation)) {
+          jsonName = (String) getValue(mirror, "value");
+        } else if (annotation.startsWith(GSON_ANNOTATIONS)) {
+          throw new UnsupportedModelException("Gson annotations of the fields are not supported");
+        }
+      }
+      if (!jsonNames.add(jsonName)) {
+        throw new UnsupportedModelException("Multiple fields are named " + jsonName);
+      }
+      TypeMirror fieldType = types.asMemberOf((DeclaredType) model.asType(), field);
+      if (containsTypeVariable(fieldType)) {
+        throw new UnsupportedModelException("Type variables are not supported: " + name);
+      }
+      writer.addField(parseField(name, jsonName, fieldType));
+    }
+    return writer;
+  }
+
+  private TypeAdapterWriter.FieldBinding parseField(String name, String jsonName,
+                                                    TypeMirror type) {
+    TypeAdapterWriter.FieldKind kind;
+    switch (type.getKind()) {
+      case INT:
+        kind = TypeAdapterWriter.FieldKind.INT;
+        break;
+      case LONG:
+        kind = TypeAdapterWriter.FieldKind.LONG;
+        break;
+      case DOUBLE:
+        kind = TypeAdapterWriter.FieldKind.DOUBLE;
+        break;
+      case FLOAT:
+        kind = TypeAdapterWriter.FieldKind.FLOAT;
+        break;
+      case BOOLEAN:
+        kind = TypeAdapterWriter.FieldKind.BOOLEAN;
+        break;
+      case BYTE:
+        // Fall through
+      case SHORT:
+        // Fall through
+      case CHAR:
+        String boxed = types.boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        return new TypeAdapterWriter.FieldBinding(name, jsonName,
+            TypeAdapterWriter.FieldKind.BOXED, boxed, type + ".class", "null");
+      default:
+        if (String.class.getName().equals(type.toString())) {
+          kind = TypeAdapterWriter.FieldKind.STRING;
+          break;
+        }
+        String declaredClass = isRaw(type) ? types.erasure(type) + ".class" : "null";
+        return new TypeAdapterWriter.FieldBinding(name, jsonName,
+            TypeAdapterWriter.FieldKind.OBJECT, type.toString(), typeLiteral(type, name),
+            declaredClass);
+    }
+    return new TypeAdapterWriter.FieldBinding(name, jsonName, kind, null, null, null);
+  }
+
+  /**
+   * Same fields as gson uses: the non static and non transient fields of the class and its super
+   * classes, in that order
+   */
+  private List<VariableElement> getSerializedFields(TypeElement model) {
+    List<VariableElement> fields = new ArrayList<>();
+    TypeElement type = model;
+    while (type != null && !Object.class.getName().contentEquals(type.getQualifiedName())) {
+      for (Element element : type.getEnclosedElements()) {
+        Set<Modifier> modifiers = element.getModifiers();
+        if (element.getKind() == ElementKind.FIELD && !modifiers.contains(Modifier.STATIC)
+            && !modifiers.contains(Modifier.TRANSIENT)) {
+          fields.add((VariableElement) element);
+        }
+      }
+      TypeMirror superclass = type.getSuperclass();
+      type = superclass.getKind() == TypeKind.DECLARED
+          ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+    return fields;
+  }
+
+  private static boolean hasNoArgConstructor(TypeElement model) {
+    for (Element element : model.getEnclosedElements()) {
+      if (element.getKind() == ElementKind.CONSTRUCTOR
+          && ((ExecutableElement) element).getParameters().isEmpty()
+          && !element.getModifiers().contains(Modifier.PRIVATE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean hasGsonAnnotation(TypeElement model) {
+    for (AnnotationMirror mirror : model.getAnnotationMirrors()) {
+      if (getName(mirror).startsWith(GSON_ANNOTATIONS)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Element getOutermostType(Element element) {
+    Element result = element;
+    while (result.getEnclosingElement() != null
+        && result.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+      result = result.getEnclosingElement();
+    }
+    return result;
+  }
+
+  private TypeMirror getCallbackResponseType(ExecutableElement method, String name) {
+    List<? extends VariableElement> params = method.getParameters();
+    if (params.isEmpty()) {
+      throw new UnsupportedServiceException(name + ": callback should be added as param");
+    }
+    TypeMirror lastParam = params.get(params.size() - 1).asType();
+    if (!isSubtype(lastParam, CALLBACK)) {
+      throw new UnsupportedServiceException(name + ": last param should be callback");
+    }
+    return getTypeArgument(lastParam, CALLBACK);
+  }
+
+  private boolean isSubtype(TypeMirror type, String className) {
+    TypeElement element = elements.getTypeElement(className);
+    return element != null && type.getKind() == TypeKind.DECLARED
+        && types.isAssignable(types.erasure(type), types.erasure(element.asType()));
+  }
+
+  /**
+   * Finds the parameterized super type and returns its first type argument
+   */
+  private TypeMirror getTypeArgument(TypeMirror type, String className) {
+    DeclaredType supertype = findSupertype(type, elements.getTypeElement(className));
+    if (supertype == null || supertype.getTypeArguments().isEmpty()) {
+      return elements.getTypeElement(Object.class.getName()).asType();
+    }
+    TypeMirror argument = supertype.getTypeArguments().get(0);
+    if (argument.getKind() == TypeKind.WILDCARD) {
+      TypeMirror bound = ((WildcardType) argument).getExtendsBound();
+      return bound != null ? bound : elements.getTypeElement(Object.class.getName()).asType();
+    }
+    return argument;
+  }
+
+  private DeclaredType findSupertype(TypeMirror type, TypeElement target) {
+    if (types.isSameType(types.erasure(type), types.erasure(target.asType()))) {
+      return (DeclaredType) type;
+    }
+    for (TypeMirror supertype : types.directSupertypes(type)) {
+      DeclaredType result = findSupertype(supertype, target);
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Creates the source of java.lang.reflect.Type for the given type, generic types are created
+   * via gson TypeToken which is already a dependency of wasp.
+   */
+  private String typeLiteral(TypeMirror type, String name) {
+    if (type.getKind().isPrimitive()) {
+      return type + ".class";
+    }
+    if (containsTypeVariable(type)) {
+      throw new UnsupportedServiceException(name + ": type variables are not supported");
+    }
+    if (type.getKind() == TypeKind.DECLARED
+        && ((DeclaredType) type).getTypeArguments().isEmpty()) {
+      return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName() + ".class";
+    }
+    if (type.getKind() == TypeKind.ARRAY && isRaw(((ArrayType) type).getComponentType())) {
+      return types.erasure(type) + ".class";
+    }
+    return "new com.google.gson.reflect.TypeToken<" + type + ">() { }.getType()";
+  }
+
+  private boolean isRaw(TypeMirror type) {
+    switch (type.getKind()) {
+      case ARRAY:
+        return isRaw(((ArrayType) type).getComponentType());
+      case DECLARED:
+        return ((DeclaredType) type).getTypeArguments().isEmpty();
+      default:
+        return type.getKind().isPrimitive();
+    }
+  }
+
+  private boolean containsTypeVariable(TypeMirror type) {
+    switch (type.getKind()) {
+      case TYPEVAR:
+        return true;
+      case ARRAY:
+        return containsTypeVariable(((ArrayType) type).getComponentType());
+      case WILDCARD:
+        WildcardType wildcard = (WildcardType) type;
+        return (wildcard.getExtendsBound() != null
+            && containsTypeVariable(wildcard.getExtendsBound()))
+            || (wildcard.getSuperBound() != null
+            && containsTypeVariable(wildcard.getSuperBound()));
+      case DECLARED:
+        for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+          if (containsTypeVariable(argument)) {
+            return true;
+          }
+        }
+        return false;
+      default:
+        return false;
+    }
+  }
+
+  private Object getValue(AnnotationMirror mirror, String name) {
+    Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+        elements.getElementValuesWithDefaults(mirror);
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+        : values.entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals(name)) {
+        return entry.getValue().getValue();
+      }
+    }
+    return null;
+  }
+
+  private static String getName(AnnotationMirror mirror) {
+    return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+  }
+
+  private static String join(List<String> values) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(values.get(i));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * @return java source literal of the given string
+   */
+  static String literal(Object value) {
+    if (value == null) {
+      return "null";
+    }
+    String text = value.toString();
+    StringBuilder builder = new StringBuilder(text.length() + 2);
+    builder.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '"':
+          builder.append("\\\"");
+          break;
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        case '\r':
+          builder.append("\\r");
+          break;
+        case '\t':
+          builder.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            builder.append(String.format("\\u%04x", (int) c));
+          } else {
+            builder.append(c);
+          }
+      }
+    }
+    return builder.append('"').toString();
+  }
+
+  private static class UnsupportedServiceException extends RuntimeException {
+    UnsupportedServiceException(String message) {
+      super(message);
+    }
+  }
+
+  private static class UnsupportedModelException extends RuntimeException {
+    UnsupportedModelException(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,349 @@
+package com.orhanobut.wasp.compiler;
+
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaFileObject;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+
+public class WaspProcessorTest {
+
+  /**
+   * The generated adapters are compiled against the sources of the wasp library
+   */
+  private static final File WASP_SOURCES = new File("../wasp/src/main/java/com/orhanobut/wasp");
+
+  @Test
+  public void testTypeAdapterIsGenerated() throws Exception {
+    JavaFileObject model = JavaFileObjects.forSourceLines("test.User",
+        "package test;",
+        "",
+        "import com.google.gson.annotations.SerializedName;",
+        "",
+        "public class User {",
+        "  @SerializedName(\"full_name\") String name;",
+        "  int age;",
+        "}"
+    );
+    // a generic service falls back to the proxy, only the models of its methods are generated
+    JavaFileObject service = JavaFileObjects.forSourceLines("test.UserService",
+        "package test;",
+        "",
+        "import com.orhanobut.wasp.http.GET;",
+        "",
+        "public interface UserService<T> {",
+        "  @GET(\"/user\") User getUser();",
+        "}"
+    );
+    JavaFileObject expected = JavaFileObjects.forSourceLines("test.User$$TypeAdapter",
+        "package test;",
+        "",
+        "public final class User$$TypeAdapter",
+        "    extends com.orhanobut.wasp.parsers.GeneratedTypeAdapter<test.User> {",
+        "",
+        "  public User$$TypeAdapter(com.google.gson.Gson gson) {",
+        "    super(gson);",
+        "  }",
+        "",
+        "  @Override",
+        "  protected test.User newInstance() {",
+        "    return new test.User();",
+        "  }",
+        "",
+        "  @Override",
+        "  protected void readField(com.google.gson.stream.JsonReader in, String name,",
+        "      test.User value) throws java.io.IOException {",
+        "    switch (name) {",
+        "      case \"full_name\":",
+        "        value.name = readString(in);",
+        "        break;",
+        "      case \"age\":",
+        "        value.age = readInt(in, value.age);",
+        "        break;",
+        "      default:",
+        "        in.skipValue();",
+        "    }",
+        "  }",
+        "",
+        "  @Override",
+        "  protected void writeFields(com.google.gson.stream.JsonWriter out, test.User value)",
+        "      throws java.io.IOException {",
+        "    out.name(\"full_name\").value(value.name);",
+        "    out.name(\"age\").value(value.age);",
+        "  }",
+        "}"
+    );
+
+    assertAbout(javaSources())
+        .that(Arrays.asList(model, service,
+            waspSource("http/GET.java"),
+            waspSource("http/RestMethod.java"),
+            waspSource("parsers/GeneratedTypeAdapter.java")))
+        .withCompilerOptions("-A" + WaspProcessor.OPTION_TYPE_ADAPTERS + "=true")
+        .processedWith(new WaspProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test
+  public void testTypeAdaptersAreNotGeneratedByDefault() throws Exception {
+    JavaFileObject model = JavaFileObjects.forSourceLines("test.User",
+        "package test;",
+        "",
+        "public class User {",
+        "  String name;",
+        "}"
+    );
+    JavaFileObject service = JavaFileObjects.forSourceLines("test.UserService",
+        "package test;",
+        "",
+        "import com.orhanobut.wasp.http.GET;",
+        "",
+        "public interface UserService<T> {",
+        "  @GET(\"/user\") User getUser();",
+        "}"
+    );
+
+    // User$$TypeAdapter would not compile without GeneratedTypeAdapter
+    assertAbout(javaSources())
+        .that(Arrays.asList(model, service,
+            waspSource("http/GET.java"),
+            waspSource("http/RestMethod.java")))
+        .processedWith(new WaspProcessor())
+        .compilesWithoutError();
+  }
+
+  @Test
+  public void testServiceIsGenerated() throws Exception {
+    JavaFileObject model = JavaFileObjects.forSourceLines("test.User",
+        "package test;",
+        "",
+        "public class User {",
+        "  String name;",
+        "}"
+    );
+    JavaFileObject service = JavaFileObjects.forSourceLines("test.UserService",
+        "package test;",
+        "",
+        "import com.orhanobut.wasp.http.Body;",
+        "import com.orhanobut.wasp.http.GET;",
+        "import com.orhanobut.wasp.http.POST;",
+        "import com.orhanobut.wasp.http.Path;",
+        "import com.orhanobut.wasp.http.RetryPolicy;",
+        "",
+        "public interface UserService {",
+        "  @GET(\"/users/{id}\") User getUser(@Path(\"id\") int id);",
+        "",
+        "  @GET(\"/users/{id}\") User getUser(@Path(\"id\") String id);",
+        "",
+        "  @RetryPolicy(timeout = 5000, maxNumRetries = 2, backoffMultiplier = 1.5f)",
+        "  @POST(\"/users\") User createUser(@Body User user);",
+        "",
+        "  @POST(\"/scores\") User addScore(@Body long score);",
+        "}"
+    );
+    // overloads get their own methods, primitive bodies are boxed to be parsed as they are
+    JavaFileObject expected = JavaFileObjects.forSourceLines("test.UserService$$Wasp",
+        "package test;",
+        "",
+        "public final class UserService$$Wasp extends com.orhanobut.wasp.GeneratedService",
+        "    implements test.UserService {",
+        "",
+        "  private static final com.orhanobut.wasp.ServiceMethod METHOD_0 =",
+        "    new com.orhanobut.wasp.ServiceMethod.Builder(\"UserService.getUser\")",
+        "      .setHttpMethod(\"GET\", \"/users/{id}\")",
+        "      .addPathParam(\"id\")",
+        "      .returnsSync(test.User.class)",
+        "      .build();",
+        "",
+        "  private static final com.orhanobut.wasp.ServiceMethod METHOD_1 =",
+        "    new com.orhanobut.wasp.ServiceMethod.Builder(\"UserService.getUser\")",
+        "      .setHttpMethod(\"GET\", \"/users/{id}\")",
+        "      .addPathParam(\"id\")",
+        "      .returnsSync(test.User.class)",
+        "      .build();",
+        "",
+        "  private static final com.orhanobut.wasp.ServiceMethod METHOD_2 =",
+        "    new com.orhanobut.wasp.ServiceMethod.Builder(\"UserService.createUser\")",
+        "      .setHttpMethod(\"POST\", \"/users\")",
+        "      .setRetryPolicy(5000, 2, 1.5f)",
+        "      .addBodyParam()",
+        "      .returnsSync(test.User.class)",
+        "      .build();",
+        "",
+        "  private static final com.orhanobut.wasp.ServiceMethod METHOD_3 =",
+        "    new com.orhanobut.wasp.ServiceMethod.Builder(\"UserService.addScore\")",
+        "      .setHttpMethod(\"POST\", \"/scores\")",
+        "      .addBodyParam()",
+        "      .returnsSync(test.User.class)",
+        "      .build();",
+        "",
+        "  public UserService$$Wasp() {",
+        "    super(METHOD_0, METHOD_1, METHOD_2, METHOD_3);",
+        "  }",
+        "",
+        "  @Override",
+        "  @SuppressWarnings(\"unchecked\")",
+        "  public test.User getUser(int id) {",
+        "    try {",
+        "      return (test.User) newRequest(METHOD_0).bind(id).execute();",
+        "    } catch (RuntimeException e) {",
+        "      throw e;",
+        "    } catch (Exception e) {",
+        "      throw new java.lang.reflect.UndeclaredThrowableException(e);",
+        "    }",
+        "  }",
+        "",
+        "  @Override",
+        "  @SuppressWarnings(\"unchecked\")",
+        "  public test.User getUser(java.lang.String id) {",
+        "    try {",
+        "      return (test.User) newRequest(METHOD_1).bind(id).execute();",
+        "    } catch (RuntimeException e) {",
+        "      throw e;",
+        "    } catch (Exception e) {",
+        "      throw new java.lang.reflect.UndeclaredThrowableException(e);",
+        "    }",
+        "  }",
+        "",
+        "  @Override",
+        "  @SuppressWarnings(\"unchecked\")",
+        "  public test.User createUser(test.User user) {",
+        "    try {",
+        "      return (test.User) newRequest(METHOD_2).bind(user).execute();",
+        "    } catch (RuntimeException e) {",
+        "      throw e;",
+        "    } catch (Exception e) {",
+        "      throw new java.lang.reflect.UndeclaredThrowableException(e);",
+        "    }",
+        "  }",
+        "",
+        "  @Override",
+        "  @SuppressWarnings(\"unchecked\")",
+        "  public test.User addScore(long score) {",
+        "    try {",
+        "      return (test.User) newRequest(METHOD_3).bind((Object) score).execute();",
+        "    } catch (RuntimeException e) {",
+        "      throw e;",
+        "    } catch (Exception e) {",
+        "      throw new java.lang.reflect.UndeclaredThrowableException(e);",
+        "    }",
+        "  }",
+        "}"
+    );
+
+    List<JavaFileObject> sources = new ArrayList<>(Arrays.asList(model, service,
+        waspSource("http/GET.java"),
+        waspSource("http/POST.java"),
+        waspSource("http/Path.java"),
+        waspSource("http/Body.java"),
+        waspSource("http/RetryPolicy.java"),
+        waspSource("http/RestMethod.java")));
+    sources.addAll(runtimeStubs());
+    assertAbout(javaSources())
+        .that(sources)
+        .processedWith(new WaspProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  private static JavaFileObject waspSource(String path) throws MalformedURLException {
+    return JavaFileObjects.forResource(new File(WASP_SOURCES, path).toURI().toURL());
+  }
+
+  /**
+   * The runtime classes of wasp depend on android, the generated services are compiled against
+   * stubs of the members which they use
+   */
+  private static List<JavaFileObject> runtimeStubs() {
+    return Arrays.asList(
+        JavaFileObjects.forSourceLines("com.orhanobut.wasp.GeneratedService",
+            "package com.orhanobut.wasp;",
+            "",
+            "public abstract class GeneratedService {",
+            "  protected GeneratedService(ServiceMethod... methods) {",
+            "  }",
+            "",
+            "  protected final RequestBinder newRequest(ServiceMethod method) {",
+            "    return new RequestBinder();",
+            "  }",
+            "}"
+        ),
+        JavaFileObjects.forSourceLines("com.orhanobut.wasp.RequestBinder",
+            "package com.orhanobut.wasp;",
+            "",
+            "public final class RequestBinder {",
+            "  public RequestBinder bind(Object value) {",
+            "    return this;",
+            "  }",
+            "",
+            "  public RequestBinder bind(int value) {",
+            "    return this;",
+            "  }",
+            "",
+            "  public RequestBinder bind(long value) {",
+            "    return this;",
+            "  }",
+            "",
+            "  public Object execute() throws Exception {",
+            "    return null;",
+            "  }",
+            "}"
+        ),
+        JavaFileObjects.forSourceLines("com.orhanobut.wasp.ServiceMethod",
+            "package com.orhanobut.wasp;",
+            "",
+            "public final class ServiceMethod {",
+            "  public static class Builder {",
+            "    public Builder(String name) {",
+            "    }",
+            "",
+            "    public Builder setHttpMethod(String httpMethod, String relativeUrl) {",
+            "      return this;",
+            "    }",
+            "",
+            "    public Builder setRetryPolicy(int timeout, int maxNumRetries, float backoff) {",
+            "      return this;",
+            "    }",
+            "",
+            "    public Builder addPathParam(String name) {",
+            "      return this;",
+            "    }",
+            "",
+            "    public Builder addBodyParam() {",
+            "      return this;",
+            "    }",
+            "",
+            "    public Builder returnsSync(java.lang.reflect.Type responseObjectType) {",
+            "      return this;",
+            "    }",
+            "",
+            "    public ServiceMethod build() {",
+            "      return new ServiceMethod();",
+            "    }",
+            "  }",
+            "}"
+        ),
+        JavaFileObjects.forSourceLines("com.orhanobut.wasp.utils.WaspRetryPolicy",
+            "package com.orhanobut.wasp.utils;",
+            "",
+            "public class WaspRetryPolicy {",
+            "  public static final int DEFAULT_TIMEOUT_MS = 2500;",
+            "  public static final int DEFAULT_MAX_RETRIES = 1;",
+            "  public static final float DEFAULT_BACKOFF_MULT = 1f;",
+            "}"
+        )
+    );
+  }
+}
@@ -12,4 +12,11 @@
 #OkHttp
 -dontwarn com.squareup.okhttp.**
 -dontwarn java.nio.file.*
--dontwarn org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement
\ No newline at end of file
+-dontwarn org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement
+#Generated services
+-keep class **$$Wasp { *; }
+-keepclasseswithmembernames interface * {
+    @com.orhanobut.wasp.http.* <methods>;
+}
+#Generated type adapters
+-keep class **$$TypeAdapter { *; }
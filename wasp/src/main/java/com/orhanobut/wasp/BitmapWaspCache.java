@@ -4,9 +4,38 @@ import android.graphics.Bitmap;
 
 import com.orhanobut.wasp.utils.WaspCache;
 
+/**
+ * Memory cache of the images, it is measured in bytes. By default it may use 1/8 of the heap.
+ */
 public class BitmapWaspCache extends WaspCache<String, Bitmap> implements
     InternalImageHandler.ImageCache {
 
+  public BitmapWaspCache() {
+    this(getDefaultMaxSize());
+  }
+
+  /**
+   * @param maxSize in bytes
+   */
+  public BitmapWaspCache(int maxSize) {
+    super(maxSize);
+  }
+
+  /**
+   * @param maxSize          in bytes
+   * @param concurrencyLevel the number of the segments which are locked separately, a bitmap
+   *                         which is larger than maxSize / concurrencyLevel is not cached
+   */
+  public BitmapWaspCache(int maxSize, int concurrencyLevel) {
+    super(maxSize, concurrencyLevel);
+  }
+
+  @Override
+  protected int sizeOf(String key, Bitmap bitmap) {
+    // getByteCount requires api 12
+    return bitmap.getRowBytes() * bitmap.getHeight();
+  }
+
   @Override
   public Bitmap getBitmap(String url) {
     return get(url);
@@ -21,4 +50,8 @@ public class BitmapWaspCache extends WaspCache<String, Bitmap> implements
   public void clearCache() {
     clearAll();
   }
+
+  static int getDefaultMaxSize() {
+    return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
+  }
 }
@@ -0,0 +1,253 @@
+package com.orhanobut.wasp;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * A cached response with its parsed object. Times are wall clock millis, so that the entries
+ * which are restored from the disk keep their expiration.
+ */
+final class CacheEntry {
+
+  private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+  private final Response response;
+  private final long expiresAt;
+  private final long staleIfErrorUntil;
+
+  private Response staleResponse;
+
+  CacheEntry(Response response, long expiresAt, long staleIfErrorUntil) {
+    this.response = response;
+    this.expiresAt = expiresAt;
+    this.staleIfErrorUntil = staleIfErrorUntil;
+  }
+
+  /**
+   * Computes the freshness of the response from the policy of the method and the cache headers,
+   * max age of the method has the priority over the headers. Expired responses are kept if they
+   * have an ETag or a Last-Modified header, so that they can be revalidated, or if the method is
+   * stale-while-revalidate.
+   *
+   * @return null if the response should not be cached
+   */
+  static CacheEntry create(CachePolicy policy, Response response, long now) {
+    long maxAge = -1;
+    long staleIfError = policy.getStaleIfError() * 1000L;
+    boolean noCache = false;
+
+    String cacheControl = getHeader(response.getHeaders(), "Cache-Control");
+    if (cacheControl != null) {
+      for (String token : cacheControl.split(",")) {
+        String directive = token.trim().toLowerCase(Locale.US);
+        if (directive.equals("no-store")) {
+          return null;
+        }
+        if (directive.equals("no-cache")) {
+          noCache = true;
+        } else if (directive.startsWith("max-age=")) {
+          maxAge = parseSeconds(directive.substring("max-age=".length()));
+        } else if (directive.startsWith("stale-if-error=")) {
+          staleIfError = Math.max(
+              staleIfError, parseSeconds(directive.substring("stale-if-error=".length()))
+          );
+        }
+      }
+    }
+
+    long freshness;
+    if (policy.getMaxAge() >= 0) {
+      freshness = policy.getMaxAge() * 1000L;
+    } else if (noCache) {
+      freshness = 0;
+    } else if (maxAge >= 0) {
+      freshness = maxAge;
+    } else {
+      freshness = getExpiresFreshness(response.getHeaders(), now);
+    }
+
+    long expiresAt = now + freshness;
+    long staleIfErrorUntil = expiresAt + staleIfError;
+    if (staleIfErrorUntil <= now && !policy.isStaleWhileRevalidate()
+        && !hasValidators(response.getHeaders())) {
+      // nothing can be served from the cache and the response can not be revalidated
+      return null;
+    }
+    return new CacheEntry(response, expiresAt, staleIfErrorUntil);
+  }
+
+  Response getResponse() {
+    return response;
+  }
+
+  long getExpiresAt() {
+    return expiresAt;
+  }
+
+  long getStaleIfErrorUntil() {
+    return staleIfErrorUntil;
+  }
+
+  boolean isFresh(long now) {
+    return now < expiresAt;
+  }
+
+  /**
+   * Stale responses are delivered only for the network and the server errors
+   */
+  boolean canServeOnError(long now, WaspError error) {
+    if (now >= staleIfErrorUntil) {
+      return false;
+    }
+    Response errorResponse = error.getResponse();
+    int statusCode = errorResponse != null ? errorResponse.getStatusCode() : 0;
+    return statusCode == 0 || statusCode >= 500;
+  }
+
+  /**
+   * @return the If-None-Match and If-Modified-Since headers, empty if there is no validator
+   */
+  Map<String, String> getConditionalHeaders() {
+    Map<String, String> headers = response.getHeaders();
+    String etag = getHeader(headers, "ETag");
+    String lastModified = getHeader(headers, "Last-Modified");
+    if (etag == null && lastModified == null) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> conditionalHeaders = new LinkedHashMap<>(2);
+    if (etag != null) {
+      conditionalHeaders.put("If-None-Match", etag);
+    }
+    if (lastModified != null) {
+      conditionalHeaders.put("If-Modified-Since", lastModified);
+    }
+    return conditionalHeaders;
+  }
+
+  /**
+   * Creates the response of a 304 Not Modified. The headers of the server replace the cached
+   * ones, the body and the parsed object of the cached response are reused.
+   */
+  Response revalidate(Response notModified) {
+    Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    headers.putAll(response.getHeaders());
+    for (Map.Entry<String, String> entry : notModified.getHeaders().entrySet()) {
+      // the length belongs to the empty body of the 304
+      if (entry.getKey() != null && !"Content-Length".equalsIgnoreCase(entry.getKey())) {
+        headers.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return newResponseBuilder(Collections.unmodifiableMap(headers))
+        .setNetworkTime(notModified.getNetworkTime())
+        .setRevalidated(true)
+        .build();
+  }
+
+  /**
+   * The cached response which is delivered before it is refreshed, it is created once
+   */
+  synchronized Response getStaleResponse() {
+    if (staleResponse == null) {
+      staleResponse = newResponseBuilder(response.getHeaders())
+          .setNetworkTime(response.getNetworkTime())
+          .setStale(true)
+          .build();
+    }
+    return staleResponse;
+  }
+
+  /**
+   * Compares the ETags if both responses have one, otherwise the raw bodies. Responses without
+   * their raw body are never the same.
+   */
+  boolean hasSameContent(Response other) {
+    String etag = getHeader(response.getHeaders(), "ETag");
+    String otherEtag = getHeader(other.getHeaders(), "ETag");
+    if (etag != null && otherEtag != null) {
+      return etag.equals(otherEtag);
+    }
+    byte[] data = response.getBodyData();
+    return data != null && Arrays.equals(data, other.getBodyData());
+  }
+
+  /**
+   * Copies the cached response, the body and the parsed object are shared
+   */
+  private Response.Builder newResponseBuilder(Map<String, String> headers) {
+    Response.Builder builder = new Response.Builder()
+        .setUrl(response.getUrl())
+        .setParser(response.getParser())
+        .setLogLevel(response.getLogLevel())
+        .setStatusCode(response.getStatusCode())
+        .setHeaders(headers)
+        .setResponseObject(response.getResponseObject())
+        .setLength(response.getLength());
+    if (response.getBodyData() != null) {
+      builder.setBody(response.getBodyData(), response.getCharset());
+    } else {
+      builder.setBody(response.getBody());
+    }
+    return builder;
+  }
+
+  private static boolean hasValidators(Map<String, String> headers) {
+    return getHeader(headers, "ETag") != null || getHeader(headers, "Last-Modified") != null;
+  }
+
+  /**
+   * Header maps of the stacks are not always case insensitive
+   */
+  static String getHeader(Map<String, String> headers, String name) {
+    for (Map.Entry<String, String> entry : headers.entrySet()) {
+      if (name.equalsIgnoreCase(entry.getKey())) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return millis, 0 if the value is not a valid number
+   */
+  private static long parseSeconds(String value) {
+    try {
+      return Math.max(0, Long.parseLong(value.trim())) * 1000L;
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Expires is relative to the Date of the server, so that the clock of the device doesn't matter
+   */
+  private static long getExpiresFreshness(Map<String, String> headers, long now) {
+    long expires = parseDate(getHeader(headers, "Expires"));
+    if (expires < 0) {
+      return 0;
+    }
+    long date = parseDate(getHeader(headers, "Date"));
+    return Math.max(0, expires - (date >= 0 ? date : now));
+  }
+
+  private static long parseDate(String value) {
+    if (value == null) {
+      return -1;
+    }
+    SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    try {
+      Date date = format.parse(value);
+      return date.getTime();
+    } catch (ParseException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.orhanobut.wasp;
+
+/**
+ * Cache settings of a method, the values are in seconds. Negative max age means the response
+ * headers decide the freshness. Expired responses of stale-while-revalidate methods are kept, they
+ * are delivered while they are refreshed.
+ */
+final class CachePolicy {
+
+  private final int maxAge;
+  private final int staleIfError;
+  private final boolean isStaleWhileRevalidate;
+
+  CachePolicy(int maxAge, int staleIfError) {
+    this(maxAge, staleIfError, false);
+  }
+
+  CachePolicy(int maxAge, int staleIfError, boolean isStaleWhileRevalidate) {
+    this.maxAge = maxAge;
+    this.staleIfError = staleIfError;
+    this.isStaleWhileRevalidate = isStaleWhileRevalidate;
+  }
+
+  int getMaxAge() {
+    return maxAge;
+  }
+
+  int getStaleIfError() {
+    return staleIfError;
+  }
+
+  boolean isStaleWhileRevalidate() {
+    return isStaleWhileRevalidate;
+  }
+}
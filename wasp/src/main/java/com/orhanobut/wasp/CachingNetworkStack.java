@@ -0,0 +1,205 @@
+package com.orhanobut.wasp;
+
+import java.util.Map;
+
+/**
+ * Serves the requests of the {@code @Cache} methods from the {@link ResponseCache}. Fresh
+ * responses are delivered without a network call and without parsing, the others are sent with
+ * the wrapped stack and their responses are stored if the cache headers allow it. A failed
+ * request is answered with the stale response while its stale-if-error period lasts.
+ *
+ * <p>Expired responses with an ETag or a Last-Modified header are revalidated with a conditional
+ * request. If the server answers 304 Not Modified, the cached object is delivered again without
+ * reading or parsing the body and {@link Response#isRevalidated()} returns true.
+ *
+ * <p>Stale-while-revalidate methods deliver the expired entry first, then exactly one more
+ * result: the refreshed response, the cached one with the same object if the response didn't
+ * change, or the error. Callers compare the objects in order to skip the unchanged ones.
+ *
+ * <p>Requests are identical if they have the same method, url, headers and response type.
+ */
+final class CachingNetworkStack implements NetworkStack {
+
+  private static final int HTTP_OK = 200;
+  private static final int HTTP_NOT_MODIFIED = 304;
+
+  private final NetworkStack networkStack;
+  private final ResponseCache cache;
+  private final Platform platform = Platform.get();
+
+  CachingNetworkStack(NetworkStack networkStack, ResponseCache cache) {
+    this.networkStack = networkStack;
+    this.cache = cache;
+  }
+
+  /**
+   * Memory hits are delivered right away, the disk is read on the cache thread
+   */
+  @Override
+  public void invokeRequest(final RequestCreator requestCreator,
+                            final InternalCallback<Response> waspCallback) {
+    final String key = getKey(requestCreator);
+    CacheEntry entry = cache.getFromMemory(key);
+    if (entry != null && entry.isFresh(System.currentTimeMillis())) {
+      deliver(requestCreator, entry.getResponse(), waspCallback);
+      return;
+    }
+    // the disk holds the same entry as the memory
+    if (entry != null || !cache.hasDiskCache()) {
+      refresh(requestCreator, key, entry, waspCallback);
+      return;
+    }
+    cache.execute(new Runnable() {
+      @Override
+      public void run() {
+        CacheEntry diskEntry = cache.get(key, requestCreator);
+        if (diskEntry != null && diskEntry.isFresh(System.currentTimeMillis())) {
+          deliver(requestCreator, diskEntry.getResponse(), waspCallback);
+          return;
+        }
+        refresh(requestCreator, key, diskEntry, waspCallback);
+      }
+    });
+  }
+
+  @Override
+  public Object invokeRequest(RequestCreator requestCreator) throws Exception {
+    String key = getKey(requestCreator);
+    CacheEntry entry = cache.get(key, requestCreator);
+    if (entry != null && entry.isFresh(System.currentTimeMillis())) {
+      Logger.d("Response is served from the cache: " + requestCreator.getUrl());
+      return entry.getResponse().getResponseObject();
+    }
+    if (entry != null && requestCreator.getMethodInfo().isStaleWhileRevalidate()) {
+      Logger.d("Stale response is served from the cache: " + requestCreator.getUrl());
+      sendRequest(requestCreator, key, entry, new InternalCallback<Response>() {
+        @Override
+        public void onSuccess(Response response) {
+          // the refreshed response is stored, the caller has the stale object
+        }
+
+        @Override
+        public void onError(WaspError error) {
+          error.log();
+        }
+      });
+      return entry.getResponse().getResponseObject();
+    }
+    ResponseFuture future = new ResponseFuture();
+    sendRequest(requestCreator, key, entry, future);
+    return future.get(requestCreator).getResponseObject();
+  }
+
+  /**
+   * Stale-while-revalidate methods deliver the expired entry before the request is sent
+   */
+  private void refresh(RequestCreator requestCreator, String key, CacheEntry entry,
+                       InternalCallback<Response> waspCallback) {
+    if (entry != null && requestCreator.getMethodInfo().isStaleWhileRevalidate()) {
+      deliver(requestCreator, entry.getStaleResponse(), waspCallback);
+    }
+    sendRequest(requestCreator, key, entry, waspCallback);
+  }
+
+  /**
+   * @param cached the expired entry if there is any, it is revalidated and it is used when the
+   *               request fails
+   */
+  private void sendRequest(final RequestCreator requestCreator, final String key,
+                           final CacheEntry cached, final InternalCallback<Response> waspCallback) {
+    RequestCreator request = requestCreator;
+    if (cached != null) {
+      Map<String, String> conditionalHeaders = cached.getConditionalHeaders();
+      if (!conditionalHeaders.isEmpty()) {
+        request = requestCreator.newRequestWithHeaders(conditionalHeaders);
+      }
+    }
+    networkStack.invokeRequest(request, new InternalCallback<Response>() {
+      @Override
+      public void onSuccess(Response response) {
+        // volley delivers 304 as a success, the other stacks as an error
+        if (cached != null && (response.getStatusCode() == HTTP_NOT_MODIFIED
+            || isUnchanged(requestCreator, cached, response))) {
+          waspCallback.onSuccess(revalidate(requestCreator, key, cached, response));
+          return;
+        }
+        store(requestCreator, key, response);
+        waspCallback.onSuccess(response);
+      }
+
+      @Override
+      public void onError(WaspError error) {
+        Response errorResponse = error.getResponse();
+        if (cached != null && errorResponse != null
+            && errorResponse.getStatusCode() == HTTP_NOT_MODIFIED) {
+          waspCallback.onSuccess(revalidate(requestCreator, key, cached, errorResponse));
+          return;
+        }
+        if (cached != null && cached.canServeOnError(System.currentTimeMillis(), error)) {
+          Logger.d("Stale response is served after the error: " + requestCreator.getUrl());
+          waspCallback.onSuccess(cached.getResponse());
+          return;
+        }
+        waspCallback.onError(error);
+      }
+    });
+  }
+
+  private void store(RequestCreator requestCreator, String key, Response response) {
+    if (response.getStatusCode() != HTTP_OK) {
+      return;
+    }
+    CachePolicy policy = requestCreator.getMethodInfo().getCachePolicy();
+    CacheEntry entry = CacheEntry.create(policy, response, System.currentTimeMillis());
+    if (entry == null) {
+      // e.g. no-store, the previous response must not be served anymore
+      cache.remove(key);
+      return;
+    }
+    cache.put(key, entry);
+  }
+
+  private Response revalidate(RequestCreator requestCreator, String key, CacheEntry cached,
+                              Response notModified) {
+    Logger.d("Response is revalidated: " + requestCreator.getUrl());
+    Response response = cached.revalidate(notModified);
+    CachePolicy policy = requestCreator.getMethodInfo().getCachePolicy();
+    CacheEntry entry = CacheEntry.create(policy, response, System.currentTimeMillis());
+    if (entry == null) {
+      cache.remove(key);
+    } else {
+      cache.refresh(key, entry);
+    }
+    return response;
+  }
+
+  /**
+   * The object of an unchanged response is replaced with the cached one, so that the callers see
+   * the same object
+   */
+  private static boolean isUnchanged(RequestCreator requestCreator, CacheEntry cached,
+                                     Response response) {
+    return requestCreator.getMethodInfo().isStaleWhileRevalidate()
+        && response.getStatusCode() == HTTP_OK
+        && cached.hasSameContent(response);
+  }
+
+  private void deliver(final RequestCreator requestCreator, final Response response,
+                       final InternalCallback<Response> waspCallback) {
+    platform.getCallbackExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        Logger.d("Response is served from the cache: " + requestCreator.getUrl());
+        waspCallback.onSuccess(response);
+      }
+    });
+  }
+
+  /**
+   * Methods with the same url may have different response types, their objects are not shared
+   */
+  private static String getKey(RequestCreator requestCreator) {
+    return requestCreator.getKey() + '\n'
+        + requestCreator.getMethodInfo().getResponseObjectType();
+  }
+}
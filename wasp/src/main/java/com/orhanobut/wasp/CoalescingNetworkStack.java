@@ -0,0 +1,99 @@
+package com.orhanobut.wasp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends only one of the identical requests which are in flight at the same time, the others wait
+ * for it and receive the same response. Requests are identical if they have the same method, url
+ * and headers, therefore only the requests without body should be passed to this stack.
+ *
+ * <p>Each waiter has its own callback, cancelling a WaspRequest only stops the delivery to its
+ * callback and the shared call continues for the others.
+ */
+final class CoalescingNetworkStack implements NetworkStack {
+
+  private final NetworkStack networkStack;
+  private final Map<String, InFlightCall> inFlightCalls = new HashMap<>();
+
+  CoalescingNetworkStack(NetworkStack networkStack) {
+    this.networkStack = networkStack;
+  }
+
+  @Override
+  public void invokeRequest(RequestCreator requestCreator,
+                            InternalCallback<Response> waspCallback) {
+    String key = requestCreator.getKey();
+    InFlightCall call;
+    synchronized (inFlightCalls) {
+      call = inFlightCalls.get(key);
+      if (call != null) {
+        call.addWaiter(waspCallback);
+        Logger.d("Request is coalesced: " + key);
+        return;
+      }
+      call = new InFlightCall(key);
+      call.addWaiter(waspCallback);
+      inFlightCalls.put(key, call);
+    }
+    try {
+      networkStack.invokeRequest(requestCreator, call);
+    } catch (RuntimeException e) {
+      call.complete();
+      throw e;
+    }
+  }
+
+  /**
+   * The shared call is always sent asynchronously, sync callers wait for its result
+   */
+  @Override
+  public Object invokeRequest(RequestCreator requestCreator) throws Exception {
+    ResponseFuture future = new ResponseFuture();
+    invokeRequest(requestCreator, future);
+    return future.get(requestCreator).getResponseObject();
+  }
+
+  private final class InFlightCall implements InternalCallback<Response> {
+
+    private final String key;
+    private final List<InternalCallback<Response>> waiters = new ArrayList<>(2);
+
+    InFlightCall(String key) {
+      this.key = key;
+    }
+
+    /**
+     * Called only while the call is in the in flight map
+     */
+    void addWaiter(InternalCallback<Response> waiter) {
+      waiters.add(waiter);
+    }
+
+    /**
+     * The call is removed first, waiters can not be added after that
+     */
+    List<InternalCallback<Response>> complete() {
+      synchronized (inFlightCalls) {
+        inFlightCalls.remove(key);
+        return waiters;
+      }
+    }
+
+    @Override
+    public void onSuccess(Response response) {
+      for (InternalCallback<Response> waiter : complete()) {
+        waiter.onSuccess(response);
+      }
+    }
+
+    @Override
+    public void onError(WaspError error) {
+      for (InternalCallback<Response> waiter : complete()) {
+        waiter.onError(error);
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.mime.TypedByteArray;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Writes the fields of a form-url-encoded body directly as percent-encoded bytes, in the order
+ * they are added. Keys may be repeated. Encoding is the same as URLEncoder with UTF-8, spaces are
+ * written as '+'.
+ */
+final class FormEncoder {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+  void add(String name, String value) {
+    if (out.size() > 0) {
+      out.write('&');
+    }
+    encode(name);
+    out.write('=');
+    encode(value);
+  }
+
+  boolean isEmpty() {
+    return out.size() == 0;
+  }
+
+  /**
+   * @return the encoded body, it is sent as it is for each attempt
+   */
+  TypedByteArray toBody(String mimeType) {
+    return new TypedByteArray(mimeType, out.toByteArray());
+  }
+
+  private void encode(String value) {
+    int length = value.length();
+    int i = 0;
+    while (i < length) {
+      char c = value.charAt(i);
+      if (c >= 0x80) {
+        // non ascii chars are encoded together, surrogate pairs must not be split
+        int end = i + 1;
+        while (end < length && value.charAt(end) >= 0x80) {
+          end++;
+        }
+        for (byte b : value.substring(i, end).getBytes(UTF_8)) {
+          writeEscaped(b & 0xFF);
+        }
+        i = end;
+        continue;
+      }
+      if (isUnreserved(c)) {
+        out.write(c);
+      } else if (c == ' ') {
+        out.write('+');
+      } else {
+        writeEscaped(c);
+      }
+      i++;
+    }
+  }
+
+  private void writeEscaped(int b) {
+    out.write('%');
+    out.write(HEX_DIGITS[(b >> 4) & 0xF]);
+    out.write(HEX_DIGITS[b & 0xF]);
+  }
+
+  private static boolean isUnreserved(char c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '-' || c == '.' || c == '_' || c == '*';
+  }
+}
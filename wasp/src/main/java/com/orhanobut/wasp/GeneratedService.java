@@ -0,0 +1,32 @@
+package com.orhanobut.wasp;
+
+/**
+ * Base class of the service implementations which are generated by wasp-compiler. The generated
+ * class is named as {@code ServiceName$$Wasp} and it is loaded by {@link Wasp#create(Class)}
+ * instead of creating a proxy.
+ */
+public abstract class GeneratedService {
+
+  private final ServiceMethod[] methods;
+
+  private NetworkHandler networkHandler;
+
+  protected GeneratedService(ServiceMethod... methods) {
+    this.methods = methods;
+  }
+
+  void attach(NetworkHandler networkHandler) {
+    this.networkHandler = networkHandler;
+    for (ServiceMethod method : methods) {
+      method.getMethodInfo().checkMock(networkHandler.getContext());
+    }
+  }
+
+  /**
+   * Creates a new request for the given method, the arguments should be bound in the order of
+   * the method params.
+   */
+  protected final RequestBinder newRequest(ServiceMethod method) {
+    return new RequestBinder(networkHandler, method.getMethodInfo());
+  }
+}
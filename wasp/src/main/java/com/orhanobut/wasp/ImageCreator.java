@@ -6,6 +6,7 @@ import android.os.Build;
 import android.widget.ImageView;
 
 import com.orhanobut.wasp.utils.LogLevel;
+import com.orhanobut.wasp.utils.RequestPriority;
 
 final class ImageCreator {
 
@@ -14,6 +15,7 @@ final class ImageCreator {
   private final ImageHandler imageHandler;
   private final Size size;
   private final LogLevel logLevel;
+  private final RequestPriority priority;
 
   private final int defaultImage;
   private final int errorImage;
@@ -32,7 +34,8 @@ final class ImageCreator {
     this.cropCenter = builder.cropCenter;
     this.fit = builder.fit;
     this.size = builder.size;
-    this.logLevel = Wasp.getLogLevel();
+    this.logLevel = builder.logLevel;
+    this.priority = builder.priority;
   }
 
   String getUrl() {
@@ -51,6 +54,13 @@ final class ImageCreator {
     return errorImage;
   }
 
+  /**
+   * @return null if the priority is not set
+   */
+  RequestPriority getPriority() {
+    return priority;
+  }
+
   /**
    * If default is set, it will be load into the imageview, otherwise the imageview will be cleared
    * In case the imageview is preloaded previously, this preload image will be deleted.
@@ -126,6 +136,8 @@ final class ImageCreator {
     private boolean fit;
     private Size size;
     private ImageHandler imageHandler;
+    private RequestPriority priority;
+    private LogLevel logLevel = LogLevel.NONE;
 
     /**
      * It is used to fetch the image from network
@@ -174,6 +186,20 @@ final class ImageCreator {
       return this;
     }
 
+    /**
+     * Images are requested with low priority by default
+     *
+     * @param priority of the image request
+     * @return Builder itself
+     */
+    public Builder setPriority(RequestPriority priority) {
+      if (priority == null) {
+        throw new NullPointerException("Priority cannot be null");
+      }
+      this.priority = priority;
+      return this;
+    }
+
     //TODO
     //    public Builder resize(int width, int height) {
     //      this.size = new Size(width, height);
@@ -191,6 +217,15 @@ final class ImageCreator {
       return this;
     }
 
+    /**
+     * @param logLevel is the log level of the wasp which loads the image
+     * @return Builder
+     */
+    Builder setLogLevel(LogLevel logLevel) {
+      this.logLevel = logLevel;
+      return this;
+    }
+
     /**
      * This should be called to fetch the image
      */
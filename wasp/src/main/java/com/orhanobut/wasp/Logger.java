@@ -1,8 +1,5 @@
 package com.orhanobut.wasp;
 
-import android.util.Log;
-
-import com.orhanobut.wasp.utils.LogLevel;
 
 @SuppressWarnings("unused")
 public final class Logger {
@@ -18,32 +15,31 @@ public final class Logger {
   private static final String TAG = "Wasp";
 
   public static void d(String message) {
-    log(Log.DEBUG, message);
+    log(Platform.DEBUG, message);
   }
 
   public static void e(String message) {
-    log(Log.ERROR, message);
+    log(Platform.ERROR, message);
   }
 
   public static void w(String message) {
-    log(Log.WARN, message);
+    log(Platform.WARN, message);
   }
 
   public static void i(String message) {
-    log(Log.INFO, message);
+    log(Platform.INFO, message);
   }
 
   public static void v(String message) {
-    log(Log.VERBOSE, message);
+    log(Platform.VERBOSE, message);
   }
 
   public static void wtf(String message) {
-    log(Log.ASSERT, message);
+    log(Platform.ASSERT, message);
   }
 
   private static void log(int logType, String message) {
-    LogLevel logLevel = Wasp.getLogLevel();
-    if (logLevel == LogLevel.NONE) {
+    if (!Wasp.isLogEnabled()) {
       return;
     }
     //get bytes of message with system's default charset (which is UTF-8 for Android)
@@ -62,28 +58,7 @@ public final class Logger {
   }
 
   private static void logChunk(int logType, String chunk) {
-    switch (logType) {
-      case Log.ERROR:
-        Log.e(TAG, chunk);
-        break;
-      case Log.INFO:
-        Log.i(TAG, chunk);
-        break;
-      case Log.VERBOSE:
-        Log.v(TAG, chunk);
-        break;
-      case Log.WARN:
-        Log.w(TAG, chunk);
-        break;
-      case Log.ASSERT:
-        Log.wtf(TAG, chunk);
-        break;
-      case Log.DEBUG:
-        // Fall through, log debug by default
-      default:
-        Log.d(TAG, chunk);
-        break;
-    }
+    Platform.get().log(logType, TAG, chunk);
   }
 
 }
\ No newline at end of file
@@ -1,23 +1,37 @@
 package com.orhanobut.wasp;
 
 import android.content.Context;
-import android.text.TextUtils;
 
 import com.orhanobut.wasp.http.Auth;
 import com.orhanobut.wasp.http.Body;
 import com.orhanobut.wasp.http.BodyMap;
+import com.orhanobut.wasp.http.Cache;
+import com.orhanobut.wasp.http.Coalesce;
+import com.orhanobut.wasp.http.Compress;
 import com.orhanobut.wasp.http.EndPoint;
+import com.orhanobut.wasp.http.Field;
+import com.orhanobut.wasp.http.FieldMap;
 import com.orhanobut.wasp.http.FormUrlEncoded;
 import com.orhanobut.wasp.http.Header;
 import com.orhanobut.wasp.http.Headers;
 import com.orhanobut.wasp.http.Mock;
 import com.orhanobut.wasp.http.Multipart;
+import com.orhanobut.wasp.http.Part;
 import com.orhanobut.wasp.http.Path;
+import com.orhanobut.wasp.http.Priority;
 import com.orhanobut.wasp.http.Query;
+import com.orhanobut.wasp.http.QueryMap;
 import com.orhanobut.wasp.http.RestMethod;
 import com.orhanobut.wasp.http.RetryPolicy;
+import com.orhanobut.wasp.http.StaleWhileRevalidate;
+import com.orhanobut.wasp.http.Streaming;
+import com.orhanobut.wasp.http.UploadProgress;
+import com.orhanobut.wasp.parsers.Parser;
 import com.orhanobut.wasp.utils.IOUtils;
 import com.orhanobut.wasp.utils.MimeTypes;
+import com.orhanobut.wasp.utils.ProgressListener;
+import com.orhanobut.wasp.utils.RequestPriority;
+import com.orhanobut.wasp.utils.StringUtils;
 import com.orhanobut.wasp.utils.WaspRetryPolicy;
 
 import java.lang.annotation.Annotation;
@@ -25,7 +39,6 @@ import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.WildcardType;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -37,34 +50,103 @@ final class MethodInfo {
 
   private static final int HEAD_VALUE_LENGTH = 2;
 
-  private final Context context;
   private final Method method;
+  private final String name;
 
   private String baseUrl;
   private String relativeUrl;
+  private UrlTemplate urlTemplate;
   private String httpMethod;
   private String contentType;
   private WaspRetryPolicy retryPolicy;
   private Type responseObjectType;
-  private Annotation[] methodAnnotations;
+  private Type elementType;
+  private ParamType[] paramTypes;
+  private String[] paramNames;
   private Map<String, String> headers;
   private MockHolder mock;
+  private CachePolicy cachePolicy;
   private boolean isAuthTokenEnabled;
+  private boolean isCoalesced;
+  private boolean isCompressed;
+  private boolean isStreaming;
+  private boolean isStaleWhileRevalidate;
+  private RequestPriority priority = RequestPriority.NORMAL;
   private ReturnType returnType;
+  private volatile RequestTemplate requestTemplate;
 
   enum ReturnType {
     REQUEST, OBSERVABLE, SYNC, VOID
   }
 
+  /**
+   * Describes how an argument is bound to the request. Arguments without a type, such as the
+   * trailing callback, are not bound.
+   */
+  enum ParamType {
+    PATH, QUERY, QUERY_MAP, HEADER, FIELD, FIELD_MAP, BODY, BODY_MAP, PART, PRIORITY, PROGRESS
+  }
+
   private MethodInfo(Context context, Method method) {
-    this.context = context;
     this.method = method;
+    this.name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
     init();
+    checkMock(context);
+  }
+
+  /**
+   * Creates the method info from the values which are resolved at compile time by the
+   * generated service, no reflection is involved.
+   */
+  private MethodInfo(ServiceMethod.Builder builder) {
+    this.method = null;
+    this.name = builder.getName();
+    this.relativeUrl = builder.getRelativeUrl();
+    this.urlTemplate = UrlTemplate.parse(relativeUrl);
+    this.httpMethod = builder.getHttpMethod();
+    this.baseUrl = builder.getBaseUrl();
+    this.contentType = builder.getContentType();
+    this.retryPolicy = builder.getRetryPolicy();
+    this.isAuthTokenEnabled = builder.isAuthTokenEnabled();
+    this.isCoalesced = builder.isCoalesced();
+    this.isCompressed = builder.isCompressed();
+    this.isStreaming = builder.isStreaming();
+    this.priority = builder.getPriority();
+    this.mock = builder.getMock();
+    this.cachePolicy = builder.getCachePolicy();
+    this.isStaleWhileRevalidate = builder.isStaleWhileRevalidate();
+    this.returnType = builder.getReturnType();
+    this.responseObjectType = builder.getResponseObjectType();
+
+    checkCoalesce();
+    checkCompress();
+    checkStreaming();
+    checkCache();
+
+    List<String> headers = builder.getHeaders();
+    addHeaders(headers.toArray(new String[headers.size()]));
+
+    List<ParamType> types = builder.getParamTypes();
+    List<String> names = builder.getParamNames();
+    int count = types.size();
+    if (returnType == ReturnType.VOID || returnType == ReturnType.REQUEST) {
+      // the callback is always the last param and it is never bound
+      count++;
+    }
+    initParams(count);
+    for (int i = 0; i < types.size(); i++) {
+      addParam(i, types.get(i), names.get(i));
+    }
   }
 
   synchronized void init() {
     parseMethodAnnotations();
+    checkCoalesce();
+    checkCompress();
+    urlTemplate = UrlTemplate.parse(relativeUrl);
     parseReturnType();
+    checkStreaming();
+    checkCache();
     parseParamAnnotations();
   }
 
@@ -72,6 +154,85 @@ final class MethodInfo {
     return new MethodInfo(context, method);
   }
 
+  static MethodInfo newInstance(ServiceMethod.Builder builder) {
+    return new MethodInfo(builder);
+  }
+
+  /**
+   * Returns the request template of the method, it is created on the first call. Services may be
+   * shared by different wasp instances, therefore it is created again if the parser is changed.
+   */
+  RequestTemplate getRequestTemplate(Parser parser) {
+    RequestTemplate template = requestTemplate;
+    if (template == null || !template.isCreatedFor(parser)) {
+      template = new RequestTemplate(this, parser);
+      requestTemplate = template;
+    }
+    return template;
+  }
+
+  private void checkCoalesce() {
+    if (isCoalesced && !isIdempotent()) {
+      throw methodError("Only GET and HEAD requests can be coalesced");
+    }
+  }
+
+  private void checkCompress() {
+    if (isCompressed && isIdempotent()) {
+      throw methodError("GET and HEAD requests can not be compressed");
+    }
+  }
+
+  /**
+   * Streaming methods emit the elements of a list, the stacks which can not stream the body parse
+   * the whole list
+   */
+  private void checkStreaming() {
+    if (!isStreaming) {
+      return;
+    }
+    if (returnType != ReturnType.OBSERVABLE) {
+      throw methodError("@Streaming requires Observable return type");
+    }
+    elementType = responseObjectType;
+    responseObjectType = RetroTypes.newParameterizedType(List.class, elementType);
+  }
+
+  /**
+   * Cached responses are shared by the identical requests, only the requests without body can be
+   * cached. Streaming responses are not kept.
+   */
+  private void checkCache() {
+    if (isStaleWhileRevalidate) {
+      if (cachePolicy == null) {
+        throw methodError("@StaleWhileRevalidate requires @Cache");
+      }
+      cachePolicy = new CachePolicy(cachePolicy.getMaxAge(), cachePolicy.getStaleIfError(), true);
+    }
+    if (cachePolicy == null) {
+      return;
+    }
+    if (!"GET".equals(httpMethod)) {
+      throw methodError("Only GET requests can be cached");
+    }
+    if (isStreaming) {
+      throw methodError("@Cache can not be used with @Streaming");
+    }
+  }
+
+  /**
+   * Mock files are validated only when the context is available
+   */
+  void checkMock(Context context) {
+    if (mock == null || context == null) {
+      return;
+    }
+    String path = mock.getPath();
+    if (!StringUtils.isEmpty(path) && !IOUtils.assetsFileExists(context, path)) {
+      throw new RuntimeException("Could not find given file for \"" + name + "\"");
+    }
+  }
+
   private void parseMethodAnnotations() {
     Annotation[] annotations = method.getAnnotations();
     for (Annotation annotation : annotations) {
@@ -105,16 +266,40 @@ final class MethodInfo {
         continue;
       }
 
+      if (annotationType == Coalesce.class) {
+        isCoalesced = true;
+        continue;
+      }
+
+      if (annotationType == Compress.class) {
+        isCompressed = true;
+        continue;
+      }
+
+      if (annotationType == Streaming.class) {
+        isStreaming = true;
+        continue;
+      }
+
+      if (annotationType == Cache.class) {
+        Cache cache = (Cache) annotation;
+        cachePolicy = new CachePolicy(cache.maxAge(), cache.staleIfError());
+        continue;
+      }
+
+      if (annotationType == StaleWhileRevalidate.class) {
+        isStaleWhileRevalidate = true;
+        continue;
+      }
+
+      if (annotationType == Priority.class) {
+        priority = ((Priority) annotation).value();
+        continue;
+      }
+
       if (annotationType == Mock.class) {
         Mock mock = (Mock) annotation;
-
-        String path = mock.path();
-        if (!TextUtils.isEmpty(path) && !IOUtils.assetsFileExists(context, path)) {
-          throw new RuntimeException("Could not find given file for \""
-              + method.getDeclaringClass().getSimpleName() + "." + method.getName() + "\""
-          );
-        }
-        this.mock = new MockHolder(mock.statusCode(), path);
+        this.mock = new MockHolder(mock.statusCode(), mock.path());
         continue;
       }
 
@@ -203,57 +388,128 @@ final class MethodInfo {
 
   private void parseParamAnnotations() {
     Annotation[][] annotationArrays = method.getParameterAnnotations();
-    methodAnnotations = new Annotation[annotationArrays.length];
-
-    List<String> pathParams = new ArrayList<>();
-    List<String> queryParams = new ArrayList<>();
-    List<String> headerParams = new ArrayList<>();
-    boolean isBodyAdded = false;
-
     int count = annotationArrays.length;
+    initParams(count);
+
     for (int i = 0; i < count; i++) {
       Annotation annotationResult = null;
       for (Annotation annotation : annotationArrays[i]) {
-        Class<? extends Annotation> annotationType = annotation.annotationType();
-        if (annotationType == Path.class) {
-          //TODO validate
-          String value = ((Path) annotation).value();
-          if (pathParams.contains(value)) {
-            throw new IllegalArgumentException("Path name should not be duplicated");
-          }
-          pathParams.add(value);
+        annotationResult = annotation;
+      }
+      if (annotationResult == null) {
+        continue;
+      }
+      Class<? extends Annotation> annotationType = annotationResult.annotationType();
+      if (annotationType == Path.class) {
+        addParam(i, ParamType.PATH, ((Path) annotationResult).value());
+        continue;
+      }
+      if (annotationType == Query.class) {
+        addParam(i, ParamType.QUERY, ((Query) annotationResult).value());
+        continue;
+      }
+      if (annotationType == QueryMap.class) {
+        addParam(i, ParamType.QUERY_MAP, null);
+        continue;
+      }
+      if (annotationType == Header.class) {
+        addParam(i, ParamType.HEADER, ((Header) annotationResult).value());
+        continue;
+      }
+      if (annotationType == Field.class) {
+        addParam(i, ParamType.FIELD, ((Field) annotationResult).value());
+        continue;
+      }
+      if (annotationType == FieldMap.class) {
+        addParam(i, ParamType.FIELD_MAP, null);
+        continue;
+      }
+      if (annotationType == Body.class) {
+        addParam(i, ParamType.BODY, null);
+        continue;
+      }
+      if (annotationType == BodyMap.class) {
+        addParam(i, ParamType.BODY_MAP, null);
+        continue;
+      }
+      if (annotationType == Part.class) {
+        addParam(i, ParamType.PART, ((Part) annotationResult).value());
+        continue;
+      }
+      if (annotationType == Priority.class) {
+        if (method.getParameterTypes()[i] != RequestPriority.class) {
+          throw methodError("@Priority param should be RequestPriority");
         }
-        if (annotationType == Body.class) {
-          if (isBodyAdded) {
-            throw new IllegalArgumentException("Only one body/bodyMap can be added");
-          }
-          isBodyAdded = true;
+        addParam(i, ParamType.PRIORITY, null);
+        continue;
+      }
+      if (annotationType == UploadProgress.class) {
+        if (method.getParameterTypes()[i] != ProgressListener.class) {
+          throw methodError("@UploadProgress param should be ProgressListener");
         }
-        if (annotationType == BodyMap.class) {
-          if (isBodyAdded) {
+        addParam(i, ParamType.PROGRESS, null);
+      }
+    }
+  }
+
+  private void initParams(int count) {
+    paramTypes = new ParamType[count];
+    paramNames = new String[count];
+  }
+
+  private void addParam(int index, ParamType type, String value) {
+    switch (type) {
+      case PATH:
+        //TODO validate
+        checkDuplicate(ParamType.PATH, value, "Path name should not be duplicated");
+        break;
+      case QUERY:
+        //TODO validate
+        checkDuplicate(ParamType.QUERY, value, "Query name should not be duplicated");
+        break;
+      case HEADER:
+        checkDuplicate(ParamType.HEADER, value, "Header name should not be duplicated");
+        break;
+      case BODY:
+        // Fall through
+      case BODY_MAP:
+        for (ParamType paramType : paramTypes) {
+          if (paramType == ParamType.BODY || paramType == ParamType.BODY_MAP) {
             throw new IllegalArgumentException("Only one body/bodyMap can be added");
           }
-          isBodyAdded = true;
         }
-        if (annotationType == Query.class) {
-          //TODO validate
-          String value = ((Query) annotation).value();
-          if (queryParams.contains(value)) {
-            throw new IllegalArgumentException("Query name should not be duplicated");
+        break;
+      case PART:
+        if (!MimeTypes.CONTENT_TYPE_MULTIPART.equals(contentType)) {
+          throw methodError("@Part parameters can only be used with @Multipart");
+        }
+        break;
+      case PRIORITY:
+        for (ParamType paramType : paramTypes) {
+          if (paramType == ParamType.PRIORITY) {
+            throw new IllegalArgumentException("Only one priority can be added");
           }
-          queryParams.add(value);
         }
-        if (annotationType == Header.class) {
-          String value = ((Header) annotation).value();
-          if (headerParams.contains(value)) {
-            throw new IllegalArgumentException("Header name should not be duplicated");
+        break;
+      case PROGRESS:
+        for (ParamType paramType : paramTypes) {
+          if (paramType == ParamType.PROGRESS) {
+            throw new IllegalArgumentException("Only one progress listener can be added");
           }
-          headerParams.add(value);
         }
+        break;
+      default:
+        break;
+    }
+    paramTypes[index] = type;
+    paramNames[index] = value;
+  }
 
-        annotationResult = annotation;
+  private void checkDuplicate(ParamType type, String value, String message) {
+    for (int i = 0; i < paramTypes.length; i++) {
+      if (paramTypes[i] == type && paramNames[i].equals(value)) {
+        throw new IllegalArgumentException(message);
       }
-      methodAnnotations[i] = annotationResult;
     }
   }
 
@@ -296,18 +552,28 @@ final class MethodInfo {
     if (args.length > 0) {
       message = String.format(message, args);
     }
-    return new IllegalArgumentException(
-        method.getDeclaringClass().getSimpleName() + "." + method.getName() + ": " + message);
+    return new IllegalArgumentException(name + ": " + message);
   }
 
   public Method getMethod() {
     return method;
   }
 
+  /**
+   * @return the name of the method with its service, ie: "Api.getUser"
+   */
+  String getName() {
+    return name;
+  }
+
   String getRelativeUrl() {
     return relativeUrl;
   }
 
+  UrlTemplate getUrlTemplate() {
+    return urlTemplate;
+  }
+
   String getBaseUrl() {
     return baseUrl;
   }
@@ -328,8 +594,12 @@ final class MethodInfo {
     return responseObjectType;
   }
 
-  Annotation[] getMethodAnnotations() {
-    return methodAnnotations;
+  ParamType[] getParamTypes() {
+    return paramTypes;
+  }
+
+  String[] getParamNames() {
+    return paramNames;
   }
 
   Map<String, String> getHeaders() {
@@ -344,6 +614,51 @@ final class MethodInfo {
     return isAuthTokenEnabled;
   }
 
+  /**
+   * @return null if the responses of the method are not cached
+   */
+  CachePolicy getCachePolicy() {
+    return cachePolicy;
+  }
+
+  boolean isCached() {
+    return cachePolicy != null;
+  }
+
+  boolean isStaleWhileRevalidate() {
+    return isStaleWhileRevalidate;
+  }
+
+  RequestPriority getPriority() {
+    return priority;
+  }
+
+  boolean isCoalesced() {
+    return isCoalesced;
+  }
+
+  boolean isCompressed() {
+    return isCompressed;
+  }
+
+  boolean isStreaming() {
+    return isStreaming;
+  }
+
+  /**
+   * @return the type of the emitted elements for the streaming methods, otherwise null
+   */
+  Type getElementType() {
+    return elementType;
+  }
+
+  /**
+   * Idempotent requests without body can be coalesced
+   */
+  boolean isIdempotent() {
+    return "GET".equals(httpMethod) || "HEAD".equals(httpMethod);
+  }
+
   public String getContentType() {
     return contentType;
   }
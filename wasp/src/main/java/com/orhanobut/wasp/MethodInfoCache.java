@@ -0,0 +1,51 @@
+package com.orhanobut.wasp;
+
+import android.content.Context;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the parsed method infos of the services which are created by the same wasp instance.
+ * Each method is parsed the first time it is invoked, overloaded methods have their own entries.
+ */
+final class MethodInfoCache {
+
+  private final ConcurrentMap<Method, MethodInfo> cache = new ConcurrentHashMap<>();
+  private final Context context;
+
+  MethodInfoCache(Context context) {
+    this.context = context;
+  }
+
+  /**
+   * Returns the cached method info or parses it. Two threads may parse the same method at the
+   * same time, only the first result is kept.
+   */
+  MethodInfo get(Method method) {
+    MethodInfo methodInfo = cache.get(method);
+    if (methodInfo != null) {
+      return methodInfo;
+    }
+    methodInfo = MethodInfo.newInstance(context, method);
+    MethodInfo previous = cache.putIfAbsent(method, methodInfo);
+    return previous != null ? previous : methodInfo;
+  }
+
+  /**
+   * @return true if the method is parsed already
+   */
+  boolean isParsed(Method method) {
+    return cache.containsKey(method);
+  }
+
+  /**
+   * Parses all methods of the service which are not parsed yet
+   */
+  void parse(Class<?> service) {
+    for (Method method : service.getDeclaredMethods()) {
+      get(method);
+    }
+  }
+}
@@ -1,10 +1,10 @@
 package com.orhanobut.wasp;
 
 import android.content.Context;
-import android.os.Handler;
-import android.text.TextUtils;
 
+import com.orhanobut.wasp.parsers.Parser;
 import com.orhanobut.wasp.utils.MockFactory;
+import com.orhanobut.wasp.utils.StringUtils;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
@@ -39,18 +39,19 @@ class MockNetworkStack implements NetworkStack {
 
     MethodInfo methodInfo = waspRequest.getMethodInfo();
     Type responseType = methodInfo.getResponseObjectType();
+    Parser parser = waspRequest.getParser();
 
     String responseString;
     Object responseObject;
 
-    if (TextUtils.isEmpty(mock.getPath())) {
+    if (StringUtils.isEmpty(mock.getPath())) {
       //Create mock object and return
       responseObject = MockFactory.createMockObject(responseType);
-      responseString = Wasp.getParser().toBody(responseObject);
+      responseString = parser.toBody(responseObject);
     } else {
-      responseString = MockFactory.readMockResponse(context, mock.getPath());
+      responseString = readMockResponse(mock.getPath());
       try {
-        responseObject = Wasp.getParser().fromBody(responseString, responseType);
+        responseObject = parser.fromBody(responseString, responseType);
       } catch (IOException e) {
         throw new RuntimeException("Mock file \"" + mock.getPath()
             + "\" is in an invalid format", e);
@@ -58,7 +59,7 @@ class MockNetworkStack implements NetworkStack {
     }
 
     final Response waspResponse = new Response.Builder()
-        .setUrl(waspRequest.getUrl())
+        .setRequest(waspRequest)
         .setStatusCode(statusCode)
         .setHeaders(Collections.<String, String>emptyMap())
         .setBody(responseString)
@@ -68,7 +69,7 @@ class MockNetworkStack implements NetworkStack {
         .build();
 
     //delay the response 1 second
-    new Handler().postDelayed(new Runnable() {
+    Platform.get().executeDelayed(new Runnable() {
       @Override
       public void run() {
         if (statusCode < 200 || statusCode > 299) {
@@ -89,18 +90,19 @@ class MockNetworkStack implements NetworkStack {
 
     MethodInfo methodInfo = requestCreator.getMethodInfo();
     Type responseType = methodInfo.getResponseObjectType();
+    Parser parser = requestCreator.getParser();
 
     String responseString;
     Object responseObject;
 
-    if (TextUtils.isEmpty(mock.getPath())) {
+    if (StringUtils.isEmpty(mock.getPath())) {
       //Create mock object and return
       responseObject = MockFactory.createMockObject(responseType);
-      responseString = Wasp.getParser().toBody(responseObject);
+      responseString = parser.toBody(responseObject);
     } else {
-      responseString = MockFactory.readMockResponse(context, mock.getPath());
+      responseString = readMockResponse(mock.getPath());
       try {
-        responseObject = Wasp.getParser().fromBody(responseString, responseType);
+        responseObject = parser.fromBody(responseString, responseType);
       } catch (IOException e) {
         throw new RuntimeException("Mock file \"" + mock.getPath()
             + "\" is in an invalid format", e);
@@ -108,7 +110,7 @@ class MockNetworkStack implements NetworkStack {
     }
 
     final Response waspResponse = new Response.Builder()
-        .setUrl(requestCreator.getUrl())
+        .setRequest(requestCreator)
         .setStatusCode(statusCode)
         .setHeaders(Collections.<String, String>emptyMap())
         .setBody(responseString)
@@ -125,4 +127,14 @@ class MockNetworkStack implements NetworkStack {
 
     return waspResponse.getResponseObject();
   }
+
+  /**
+   * Mock files are read from the assets, therefore they require the context
+   */
+  private String readMockResponse(String path) {
+    if (context == null) {
+      throw new IllegalStateException("Mock file \"" + path + "\" requires a Context");
+    }
+    return MockFactory.readMockResponse(context, path);
+  }
 }
@@ -2,98 +2,185 @@ package com.orhanobut.wasp;
 
 import android.content.Context;
 
+import com.orhanobut.wasp.parsers.Parser;
+import com.orhanobut.wasp.utils.LogLevel;
 import com.orhanobut.wasp.utils.NetworkMode;
 import com.orhanobut.wasp.utils.RequestInterceptor;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import rx.Observable;
 import rx.Subscriber;
 
 final class NetworkHandler implements InvocationHandler {
 
-  private final Map<String, MethodInfo> methodInfoCache = new LinkedHashMap<>();
+  private static final String GENERATED_SUFFIX = "$$Wasp";
+
+  private final MethodInfoCache methodInfoCache;
   private final Class<?> service;
   private final Context context;
   private final NetworkStack networkStack;
+  private final NetworkStack coalescingNetworkStack;
+  private final NetworkStack cachingNetworkStack;
+  private final NetworkStack cachingCoalescingNetworkStack;
+  private final boolean isCoalescingEnabled;
   private final String endPoint;
   private final ClassLoader classLoader;
   private final RequestInterceptor requestInterceptor;
   private final NetworkMode networkMode;
-
-  private NetworkHandler(Class<?> service, Wasp.Builder builder) {
+  private final int compressionThreshold;
+  private final Parser parser;
+  private final boolean isResponseBodyDiscarded;
+  private final LogLevel logLevel;
+
+  private NetworkHandler(Class<?> service, Wasp.Builder builder, Parser parser,
+                         boolean isResponseBodyDiscarded, MethodInfoCache methodInfoCache,
+                         NetworkStack coalescingNetworkStack, ResponseCache responseCache) {
     this.service = service;
+    this.parser = parser;
+    this.isResponseBodyDiscarded = isResponseBodyDiscarded;
+    this.methodInfoCache = methodInfoCache;
+    this.coalescingNetworkStack = coalescingNetworkStack;
+    this.isCoalescingEnabled = builder.isRequestCoalescingEnabled();
     this.context = builder.getContext();
     this.networkStack = builder.getNetworkStack();
+    this.cachingNetworkStack = new CachingNetworkStack(networkStack, responseCache);
+    this.cachingCoalescingNetworkStack =
+        new CachingNetworkStack(coalescingNetworkStack, responseCache);
     this.endPoint = builder.getEndPointUrl();
     this.requestInterceptor = builder.getRequestInterceptor();
     this.networkMode = builder.getNetworkMode();
+    this.compressionThreshold = builder.getCompressionThreshold();
+    this.logLevel = builder.getLogLevel();
 
-    ClassLoader loader = service.getClassLoader();
-    this.classLoader = loader != null ? loader : ClassLoader.getSystemClassLoader();
+    this.classLoader = getClassLoader(service);
   }
 
-  public static NetworkHandler newInstance(Class<?> service, Wasp.Builder builder) {
-    return new NetworkHandler(service, builder);
+  /**
+   * The parser and the body setting belong to the wasp, later wasps don't change them
+   */
+  public static NetworkHandler newInstance(Class<?> service, Wasp.Builder builder, Parser parser,
+                                           boolean isResponseBodyDiscarded,
+                                           MethodInfoCache methodInfoCache,
+                                           NetworkStack coalescingNetworkStack,
+                                           ResponseCache responseCache) {
+    return new NetworkHandler(
+        service, builder, parser, isResponseBodyDiscarded,
+        methodInfoCache, coalescingNetworkStack, responseCache
+    );
   }
 
-  private static List<Method> getMethods(Class<?> service) {
-    List<Method> result = new ArrayList<>();
-    //        try {
-    //           // result.add(Object.class.getMethod("equals", Object.class));
-    //            //  result.add(Object.class.getMethod("hashCode", Object.class));
-    //            //  result.add(Object.class.getMethod("toString", Object.class));
-    //        } catch (NoSuchMethodException e) {
-    //            throw new AssertionError();
-    //        }
+  private static ClassLoader getClassLoader(Class<?> service) {
+    ClassLoader loader = service.getClassLoader();
+    return loader != null ? loader : ClassLoader.getSystemClassLoader();
+  }
 
-    getMethodsRecursive(service, result);
-    return result;
+  /**
+   * Loads and initializes the implementation which is generated by wasp-compiler
+   *
+   * @return null if there is no generated implementation for the service
+   */
+  static Class<?> loadGeneratedService(Class<?> service) {
+    try {
+      return Class.forName(service.getName() + GENERATED_SUFFIX, true, getClassLoader(service));
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
   }
 
   /**
-   * Fills {@code proxiedMethods} with the methods of {@code interfaces} and
-   * the interfaces they extend. May contain duplicates.
+   * Returns the generated implementation of the service if it exists, otherwise a proxy
    */
-  private static void getMethodsRecursive(Class<?> service, List<Method> methods) {
-    Collections.addAll(methods, service.getDeclaredMethods());
+  Object getServiceInstance() {
+    Object generatedService = createGeneratedService();
+    if (generatedService != null) {
+      return generatedService;
+    }
+    return getProxyClass();
   }
 
-  Object getProxyClass() {
-    List<Method> methods = getMethods(service);
-    fillMethods(methods);
+  /**
+   * Loads the implementation which is generated by wasp-compiler. It requires neither the
+   * reflection over the methods nor the proxy invocation.
+   *
+   * @return null if there is no generated implementation for the service
+   */
+  private Object createGeneratedService() {
+    Class<?> clazz = loadGeneratedService(service);
+    if (clazz == null) {
+      return null;
+    }
+    try {
+      GeneratedService generatedService = (GeneratedService) clazz.newInstance();
+      generatedService.attach(this);
+      return generatedService;
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new RuntimeException("Unable to create " + clazz.getName(), e);
+    }
+  }
 
+  /**
+   * The methods are not parsed here, each method is parsed on its first invocation
+   */
+  Object getProxyClass() {
     return Proxy.newProxyInstance(classLoader, new Class[]{service}, this);
   }
 
-  private void fillMethods(List<Method> methods) {
-    for (Method method : methods) {
-      MethodInfo methodInfo = MethodInfo.newInstance(context, method);
-      methodInfoCache.put(method.getName(), methodInfo);
+  Context getContext() {
+    return context;
+  }
+
+  /**
+   * Idempotent requests are coalesced if it is enabled globally or by the method. The cache is
+   * checked before the requests are coalesced.
+   */
+  private NetworkStack getNetworkStack(MethodInfo methodInfo) {
+    boolean isCoalesced =
+        methodInfo.isIdempotent() && (isCoalescingEnabled || methodInfo.isCoalesced());
+    if (methodInfo.isCached()) {
+      return isCoalesced ? cachingCoalescingNetworkStack : cachingNetworkStack;
+    }
+    return isCoalesced ? coalescingNetworkStack : networkStack;
+  }
+
+  RequestCreator.Builder newRequestBuilder(MethodInfo methodInfo) {
+    return new RequestCreator.Builder(methodInfo, endPoint, parser);
+  }
+
+  private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+    switch (method.getName()) {
+      case "equals":
+        return proxy == args[0];
+      case "hashCode":
+        return System.identityHashCode(proxy);
+      case "toString":
+        return service.getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+      default:
+        throw new UnsupportedOperationException(method.getName());
     }
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public Object invoke(Object proxy, final Method method, final Object[] args) throws Throwable {
-    final MethodInfo methodInfo = methodInfoCache.get(method.getName());
+    // equals, hashCode and toString are not service methods, they use the identity of the proxy
+    if (method.getDeclaringClass() == Object.class) {
+      return invokeObjectMethod(proxy, method, args);
+    }
+    final MethodInfo methodInfo = methodInfoCache.get(method);
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, args, endPoint, parser);
 
     switch (methodInfo.getReturnType()) {
       case VOID:
-        return invokeCallbackRequest(proxy, method, args);
+        // Fall Through
       case REQUEST:
-        return invokeWaspRequest(proxy, method, args);
+        return invokeCallbackRequest(methodInfo, builder, (Callback<?>) args[args.length - 1]);
       case OBSERVABLE:
-        return invokeObservable(method, args);
+        return invokeObservable(methodInfo, builder);
       case SYNC:
-        return invokeSyncRequest(method, args);
+        return invokeSyncRequest(methodInfo, builder);
       default:
         throw new IllegalStateException(
             "Return type should be void, WaspRequest, Observable or Object"
@@ -101,29 +188,57 @@ final class NetworkHandler implements InvocationHandler {
     }
   }
 
-  private Object invokeSyncRequest(final Method method, final Object[] args) throws Exception {
-    final MethodInfo methodInfo = methodInfoCache.get(method.getName());
-    RequestCreator requestCreator = new RequestCreator.Builder(methodInfo, args, endPoint)
+  Object invokeSyncRequest(MethodInfo methodInfo, RequestCreator.Builder builder)
+      throws Exception {
+    RequestCreator requestCreator = builder
         .setRequestInterceptor(requestInterceptor)
+        .setCompressionThreshold(compressionThreshold)
+        .setResponseBodyDiscarded(isResponseBodyDiscarded)
+        .setLogLevel(logLevel)
         .build();
     requestCreator.log();
     if (networkMode == NetworkMode.MOCK && methodInfo.isMocked()) {
       return MockNetworkStack.getDefault(context).invokeRequest(requestCreator);
     }
 
-    return networkStack.invokeRequest(requestCreator);
+    return getNetworkStack(methodInfo).invokeRequest(requestCreator);
   }
 
-  private Object invokeObservable(final Method method, final Object[] args) {
-    final MethodInfo methodInfo = methodInfoCache.get(method.getName());
+  /**
+   * The request is created for each subscription, so that the interceptor is asked when the
+   * request is sent and each retry sends a new request
+   */
+  Observable<Object> invokeObservable(final MethodInfo methodInfo,
+                                      final RequestCreator.Builder builder) {
+    if (methodInfo.isStreaming()) {
+      // a stream can not be shared, streaming requests are never coalesced
+      final NetworkStack stack = networkMode == NetworkMode.MOCK && methodInfo.isMocked()
+          ? MockNetworkStack.getDefault(context) : networkStack;
+      return Observable.create(new Observable.OnSubscribe<Object>() {
+        @Override
+        public void call(Subscriber<? super Object> subscriber) {
+          RequestCreator requestCreator;
+          try {
+            requestCreator = newObservableRequest(builder);
+          } catch (Exception e) {
+            subscriber.onError(e);
+            return;
+          }
+          new StreamingOnSubscribe(stack, requestCreator).call(subscriber);
+        }
+      });
+    }
+
+    boolean isMocked = networkMode == NetworkMode.MOCK && methodInfo.isMocked();
+    if (methodInfo.isStaleWhileRevalidate() && !isMocked) {
+      return newStaleWhileRevalidateObservable(methodInfo, builder);
+    }
 
     return Observable.create(new Observable.OnSubscribe<Object>() {
       @Override
       public void call(final Subscriber<? super Object> subscriber) {
         try {
-          RequestCreator requestCreator = new RequestCreator.Builder(methodInfo, args, endPoint)
-              .setRequestInterceptor(requestInterceptor)
-              .build();
+          RequestCreator requestCreator = newObservableRequest(builder);
           requestCreator.log();
 
           if (networkMode == NetworkMode.MOCK && methodInfo.isMocked()) {
@@ -131,7 +246,7 @@ final class NetworkHandler implements InvocationHandler {
             return;
           }
 
-          subscriber.onNext(networkStack.invokeRequest(requestCreator));
+          subscriber.onNext(getNetworkStack(methodInfo).invokeRequest(requestCreator));
           subscriber.onCompleted();
         } catch (Exception e) {
           subscriber.onError(e);
@@ -140,30 +255,96 @@ final class NetworkHandler implements InvocationHandler {
     });
   }
 
-  private Object invokeWaspRequest(Object proxy, final Method method, final Object[] args) {
-    return invokeCallbackRequest(proxy, method, args);
+  /**
+   * Emits the stale object and the refreshed one if it changed, then it completes. Objects are
+   * emitted on the main thread.
+   */
+  private Observable<Object> newStaleWhileRevalidateObservable(
+      final MethodInfo methodInfo, final RequestCreator.Builder builder) {
+    return Observable.create(new Observable.OnSubscribe<Object>() {
+      @Override
+      public void call(final Subscriber<? super Object> subscriber) {
+        RequestCreator requestCreator;
+        try {
+          requestCreator = newObservableRequest(builder);
+        } catch (Exception e) {
+          subscriber.onError(e);
+          return;
+        }
+        requestCreator.log();
+        getNetworkStack(methodInfo).invokeRequest(requestCreator, new InternalCallback<Response>() {
+          private Object staleObject;
+
+          @Override
+          public void onSuccess(Response response) {
+            if (subscriber.isUnsubscribed()) {
+              return;
+            }
+            Object responseObject = response.getResponseObject();
+            if (response.isStale()) {
+              staleObject = responseObject;
+              subscriber.onNext(responseObject);
+              return;
+            }
+            if (staleObject == null || responseObject != staleObject) {
+              subscriber.onNext(responseObject);
+            }
+            subscriber.onCompleted();
+          }
+
+          @Override
+          public void onError(WaspError error) {
+            error.log();
+            if (!subscriber.isUnsubscribed()) {
+              // the same exception as the other observables
+              subscriber.onError(new ExecutionException(error));
+            }
+          }
+        });
+      }
+    });
   }
 
-  private Object invokeCallbackRequest(Object proxy, final Method method, final Object[] args) {
-    final MethodInfo methodInfo = methodInfoCache.get(method.getName());
+  /**
+   * The builder is kept intact for the next subscriptions
+   */
+  private RequestCreator newObservableRequest(RequestCreator.Builder builder) {
+    return builder.copy()
+        .setRequestInterceptor(requestInterceptor)
+        .setCompressionThreshold(compressionThreshold)
+        .setResponseBodyDiscarded(isResponseBodyDiscarded)
+        .setLogLevel(logLevel)
+        .build();
+  }
 
-    RequestCreator requestCreator = new RequestCreator.Builder(methodInfo, args, endPoint)
+  WaspRequest invokeCallbackRequest(MethodInfo methodInfo, RequestCreator.Builder builder,
+                                    final Callback<?> callback) {
+    RequestCreator requestCreator = builder
         .setRequestInterceptor(requestInterceptor)
+        .setCompressionThreshold(compressionThreshold)
+        .setResponseBodyDiscarded(isResponseBodyDiscarded)
+        .setLogLevel(logLevel)
         .build();
     requestCreator.log();
 
     final WaspRequest waspRequest = new InternalWaspRequest();
 
-    Object lastArg = args[args.length - 1];
-    final Callback<?> callback = (Callback<?>) lastArg;
-
     InternalCallback<Response> responseWaspCallback = new InternalCallback<Response>() {
+      // stale-while-revalidate methods deliver the same object again if it didn't change
+      private Object staleObject;
+
       @Override
       public void onSuccess(Response response) {
         if (waspRequest.isCancelled()) {
           Logger.i("Response not delivered because of cancelled request");
           return;
         }
+        if (response.isStale()) {
+          staleObject = response.getResponseObject();
+        } else if (staleObject != null && staleObject == response.getResponseObject()) {
+          Logger.d("Refreshed response is not delivered because it didn't change");
+          return;
+        }
         new ResponseWrapper(callback, response, response.getResponseObject()).submitResponse();
       }
 
@@ -183,7 +364,7 @@ final class NetworkHandler implements InvocationHandler {
       return waspRequest;
     }
 
-    networkStack.invokeRequest(requestCreator, responseWaspCallback);
+    getNetworkStack(methodInfo).invokeRequest(requestCreator, responseWaspCallback);
     return waspRequest;
   }
 }
@@ -0,0 +1,81 @@
+package com.orhanobut.wasp;
+
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OkHttp timeouts are set per client. Instead of cloning the client for each request, a copy is
+ * kept for each timeout. All copies share the connection pool and the dispatcher of the client.
+ * The retry backoff changes the timeout for each attempt, therefore the number of the copies
+ * is limited.
+ */
+final class OkHttpClientCache {
+
+  private static final int MAX_SIZE = 8;
+
+  private final OkHttpClient client;
+  private final Map<Integer, OkHttpClient> clients =
+      new LinkedHashMap<Integer, OkHttpClient>(MAX_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, OkHttpClient> eldest) {
+          return size() > MAX_SIZE;
+        }
+      };
+
+  private boolean isShared;
+
+  OkHttpClientCache(OkHttpClient client) {
+    this.client = client;
+  }
+
+  OkHttpClient getClient() {
+    return client;
+  }
+
+  /**
+   * @return the client whose connect, read and write timeouts are the given timeout
+   */
+  synchronized OkHttpClient get(int timeoutMs) {
+    if (client.getConnectTimeout() == timeoutMs
+        && client.getReadTimeout() == timeoutMs
+        && client.getWriteTimeout() == timeoutMs) {
+      return client;
+    }
+    OkHttpClient okHttpClient = clients.get(timeoutMs);
+    if (okHttpClient != null) {
+      return okHttpClient;
+    }
+    share();
+    okHttpClient = client.clone();
+    okHttpClient.setConnectTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    okHttpClient.setReadTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    okHttpClient.setWriteTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    clients.put(timeoutMs, okHttpClient);
+    return okHttpClient;
+  }
+
+  /**
+   * The dispatcher is copied by clone, but the connection pool is resolved lazily by OkHttp.
+   * It is set before cloning so that the copies use the same instance.
+   */
+  private void share() {
+    if (isShared) {
+      return;
+    }
+    if (client.getConnectionPool() == null) {
+      client.setConnectionPool(ConnectionPool.getDefault());
+    }
+    isShared = true;
+  }
+
+  /**
+   * Copies are dropped, it should be called when the client is configured
+   */
+  synchronized void clear() {
+    clients.clear();
+  }
+}
@@ -0,0 +1,318 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.mime.TypedOutput;
+import com.orhanobut.wasp.parsers.Parser;
+import com.orhanobut.wasp.parsers.StreamingParser;
+import com.orhanobut.wasp.utils.WaspRetryPolicy;
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.Headers;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.ResponseBody;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A NetworkStack implementation which sends the requests directly with OkHttp, without Volley.
+ * Async requests are enqueued to the OkHttp dispatcher, the response is parsed on the dispatcher
+ * thread and delivered with the callback executor of the platform, which is the main thread on
+ * Android.
+ *
+ * <p>Requests are dispatched in the order they are sent, the priority is not used.
+ */
+public final class OkHttpNetworkStack implements StreamingNetworkStack {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String PROTOCOL_CHARSET = "; charset=UTF-8";
+  private static final byte[] EMPTY_BODY = new byte[0];
+
+  private final OkHttpClientCache clients;
+  private final Platform platform = Platform.get();
+
+  private OkHttpNetworkStack(OkHttpClient client) {
+    this.clients = new OkHttpClientCache(client);
+  }
+
+  public static OkHttpNetworkStack newInstance(OkHttpClient client) {
+    if (client == null) {
+      throw new NullPointerException("OkHttpClient may not be null.");
+    }
+    return new OkHttpNetworkStack(client);
+  }
+
+  @Override
+  public void invokeRequest(RequestCreator requestCreator,
+                            InternalCallback<Response> waspCallback) {
+    new AsyncCall(requestCreator, waspCallback).enqueue();
+  }
+
+  @Override
+  public Object invokeRequest(RequestCreator requestCreator) throws Exception {
+    WaspRetryPolicy retryPolicy = requestCreator.getRetryPolicy();
+    while (true) {
+      long start = platform.elapsedRealtime();
+      com.squareup.okhttp.Response okHttpResponse;
+      try {
+        okHttpResponse = newCall(requestCreator, retryPolicy).execute();
+      } catch (SocketTimeoutException e) {
+        if (canRetry(retryPolicy)) {
+          continue;
+        }
+        throw e;
+      }
+
+      Response.Builder builder = readResponse(requestCreator, okHttpResponse, start);
+      if (!okHttpResponse.isSuccessful()) {
+        throw new ExecutionException(new WaspError(builder.build(), okHttpResponse.message()));
+      }
+      try {
+        parseResponseObject(requestCreator, okHttpResponse, builder, start);
+      } catch (IOException e) {
+        throw new ExecutionException(new WaspError(builder.build(), e.getMessage()));
+      }
+      Response response = builder.build();
+      response.log();
+      return response.getResponseObject();
+    }
+  }
+
+  @Override
+  public ResponseStream openStream(RequestCreator requestCreator) throws Exception {
+    WaspRetryPolicy retryPolicy = requestCreator.getRetryPolicy();
+    while (true) {
+      long start = platform.elapsedRealtime();
+      com.squareup.okhttp.Response okHttpResponse;
+      try {
+        okHttpResponse = newCall(requestCreator, retryPolicy).execute();
+      } catch (SocketTimeoutException e) {
+        if (canRetry(retryPolicy)) {
+          continue;
+        }
+        throw e;
+      }
+
+      if (!okHttpResponse.isSuccessful()) {
+        Response.Builder builder = readResponse(requestCreator, okHttpResponse, start);
+        throw new ExecutionException(new WaspError(builder.build(), okHttpResponse.message()));
+      }
+      ResponseBody body = okHttpResponse.body();
+      Response response = new Response.Builder()
+          .setRequest(requestCreator)
+          .setStatusCode(okHttpResponse.code())
+          .setHeaders(getHeaders(okHttpResponse.headers()))
+          .setLength((int) body.contentLength())
+          .setNetworkTime(platform.elapsedRealtime() - start)
+          .build();
+      return new ResponseStream(response, body.byteStream(), getCharset(body));
+    }
+  }
+
+  /**
+   * Timeouts of OkHttp are set per client, the request uses the client of its current timeout
+   */
+  private OkHttpClient getClient(WaspRetryPolicy retryPolicy) {
+    if (retryPolicy == null) {
+      return clients.getClient();
+    }
+    return clients.get(retryPolicy.getCurrentTimeout());
+  }
+
+  private Call newCall(RequestCreator requestCreator, WaspRetryPolicy retryPolicy) {
+    Request.Builder builder = new Request.Builder().url(requestCreator.getUrl());
+    for (Map.Entry<String, String> entry : requestCreator.getHeaders().entrySet()) {
+      builder.addHeader(entry.getKey(), entry.getValue());
+    }
+    builder.method(requestCreator.getMethod(), createRequestBody(requestCreator));
+    return getClient(retryPolicy).newCall(builder.build());
+  }
+
+  /**
+   * Same as Volley, the body has the priority over the fields
+   *
+   * @return null for the methods which can not have a body
+   */
+  private static RequestBody createRequestBody(RequestCreator requestCreator) {
+    switch (requestCreator.getMethod()) {
+      case "GET":
+        // Fall through
+      case "HEAD":
+        // Fall through
+      case "DELETE":
+        return null;
+      default:
+        break;
+    }
+    TypedOutput body = requestCreator.getBody();
+    if (body != null) {
+      return new TypedOutputRequestBody(body);
+    }
+    MediaType mediaType = MediaType.parse(requestCreator.getContentType() + PROTOCOL_CHARSET);
+    return RequestBody.create(mediaType, EMPTY_BODY);
+  }
+
+  /**
+   * Updates the timeout of the retry policy for the next attempt
+   *
+   * @return false if there is no attempt left
+   */
+  private static boolean canRetry(WaspRetryPolicy retryPolicy) {
+    return retryPolicy != null && retryPolicy.retryOnTimeout();
+  }
+
+  /**
+   * Reads the raw body from the source of the response, unless a successful body is parsed
+   * directly from the stream. See {@link #isBodyStreamed(RequestCreator)}.
+   */
+  private Response.Builder readResponse(RequestCreator requestCreator,
+                                        com.squareup.okhttp.Response okHttpResponse,
+                                        long start) throws IOException {
+    ResponseBody responseBody = okHttpResponse.body();
+    Response.Builder builder = new Response.Builder()
+        .setRequest(requestCreator)
+        .setStatusCode(okHttpResponse.code())
+        .setHeaders(getHeaders(okHttpResponse.headers()));
+    if (okHttpResponse.isSuccessful() && isBodyStreamed(requestCreator)) {
+      return builder.setLength((int) responseBody.contentLength());
+    }
+    byte[] data;
+    try {
+      data = responseBody.source().readByteArray();
+    } finally {
+      responseBody.close();
+    }
+    return builder
+        .setBody(data, getCharset(responseBody))
+        .setLength(data.length)
+        .setNetworkTime(platform.elapsedRealtime() - start);
+  }
+
+  /**
+   * The bytes of the body are not required if it is discarded after it is parsed, i.e. it is
+   * not logged and not cached either
+   */
+  private static boolean isBodyStreamed(RequestCreator requestCreator) {
+    return requestCreator.getParser() instanceof StreamingParser
+        && Response.isBodyDiscarded(requestCreator)
+        && !requestCreator.getMethodInfo().isCached();
+  }
+
+  private static Charset getCharset(ResponseBody responseBody) {
+    MediaType contentType = responseBody.contentType();
+    return contentType != null ? contentType.charset(UTF_8) : UTF_8;
+  }
+
+  /**
+   * Parses the raw body if it is read, otherwise the stream of the response body
+   */
+  private void parseResponseObject(RequestCreator requestCreator,
+                                   com.squareup.okhttp.Response okHttpResponse,
+                                   Response.Builder builder, long start) throws IOException {
+    Type type = requestCreator.getMethodInfo().getResponseObjectType();
+    Parser parser = requestCreator.getParser();
+    if (builder.getBodyData() != null) {
+      builder.setResponseObject(
+          Utils.parseBody(parser, builder.getBodyData(), builder.getCharset(), type)
+      );
+      return;
+    }
+    ResponseBody responseBody = okHttpResponse.body();
+    try {
+      builder.setResponseObject(Utils.parseBody(
+          (StreamingParser) parser, responseBody.byteStream(), getCharset(responseBody), type
+      ));
+    } finally {
+      responseBody.close();
+      builder.setNetworkTime(platform.elapsedRealtime() - start);
+    }
+  }
+
+  private static Map<String, String> getHeaders(Headers headers) {
+    Map<String, String> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (int i = 0, size = headers.size(); i < size; i++) {
+      result.put(headers.name(i), headers.value(i));
+    }
+    return result;
+  }
+
+  private final class AsyncCall implements com.squareup.okhttp.Callback {
+
+    private final RequestCreator requestCreator;
+    private final InternalCallback<Response> waspCallback;
+    private final WaspRetryPolicy retryPolicy;
+
+    private long start;
+
+    AsyncCall(RequestCreator requestCreator, InternalCallback<Response> waspCallback) {
+      this.requestCreator = requestCreator;
+      this.waspCallback = waspCallback;
+      this.retryPolicy = requestCreator.getRetryPolicy();
+    }
+
+    void enqueue() {
+      start = platform.elapsedRealtime();
+      newCall(requestCreator, retryPolicy).enqueue(this);
+    }
+
+    @Override
+    public void onFailure(Request request, IOException e) {
+      if (e instanceof SocketTimeoutException && canRetry(retryPolicy)) {
+        enqueue();
+        return;
+      }
+      Response response = new Response.Builder()
+          .setRequest(requestCreator)
+          .setNetworkTime(platform.elapsedRealtime() - start)
+          .build();
+      deliverError(new WaspError(response, e.getMessage()));
+    }
+
+    @Override
+    public void onResponse(com.squareup.okhttp.Response okHttpResponse) throws IOException {
+      Response.Builder builder;
+      try {
+        builder = readResponse(requestCreator, okHttpResponse, start);
+      } catch (IOException e) {
+        onFailure(okHttpResponse.request(), e);
+        return;
+      }
+      if (!okHttpResponse.isSuccessful()) {
+        deliverError(new WaspError(builder.build(), okHttpResponse.message()));
+        return;
+      }
+      try {
+        parseResponseObject(requestCreator, okHttpResponse, builder, start);
+      } catch (IOException e) {
+        deliverError(new WaspError(builder.build(), e.getMessage()));
+        return;
+      }
+      deliverResponse(builder.build());
+    }
+
+    private void deliverResponse(final Response response) {
+      platform.getCallbackExecutor().execute(new Runnable() {
+        @Override
+        public void run() {
+          response.log();
+          waspCallback.onSuccess(response);
+        }
+      });
+    }
+
+    private void deliverError(final WaspError error) {
+      platform.getCallbackExecutor().execute(new Runnable() {
+        @Override
+        public void run() {
+          waspCallback.onError(error);
+        }
+      });
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.orhanobut.wasp;
 import com.android.volley.AuthFailureError;
 import com.android.volley.Request;
 import com.android.volley.toolbox.HttpStack;
+import com.orhanobut.wasp.mime.TypedOutput;
 import com.squareup.okhttp.Call;
 import com.squareup.okhttp.Headers;
 import com.squareup.okhttp.MediaType;
@@ -23,33 +24,43 @@ import org.apache.http.message.BasicStatusLine;
 
 import java.io.IOException;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * An HttpStack implementation which uses {@link com.squareup.okhttp.OkHttpClient} as http client
  */
 class OkHttpStack implements HttpStack {
 
-  private final OkHttpClient client;
+  private final OkHttpClientCache clients;
 
   OkHttpStack(OkHttpClient client) {
-    this.client = client;
+    this.clients = new OkHttpClientCache(client);
   }
 
   OkHttpClient getClient() {
-    return client;
+    return clients.getClient();
+  }
+
+  /**
+   * @return the copy of the client which is used for the given timeout
+   */
+  OkHttpClient getClient(int timeoutMs) {
+    return clients.get(timeoutMs);
+  }
+
+  /**
+   * Drops the copies of the client for the timeouts, it must be called after the client is
+   * configured so that the changes are applied to the next requests
+   */
+  void invalidate() {
+    clients.clear();
   }
 
   @Override
   public HttpResponse performRequest(Request<?> request, Map<String, String> additionalHeaders)
       throws IOException, AuthFailureError {
 
-    OkHttpClient okHttpClient = client.clone();
-
-    int timeoutMs = request.getTimeoutMs();
-    okHttpClient.setConnectTimeout(timeoutMs, TimeUnit.MILLISECONDS);
-    okHttpClient.setReadTimeout(timeoutMs, TimeUnit.MILLISECONDS);
-    okHttpClient.setWriteTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    // The timeout changes for each attempt regarding to the retry policy
+    OkHttpClient okHttpClient = getClient(request.getTimeoutMs());
 
     com.squareup.okhttp.Request.Builder builder = new com.squareup.okhttp.Request.Builder();
     builder.url(request.getUrl());
@@ -155,7 +166,16 @@ class OkHttpStack implements HttpStack {
     }
   }
 
+  /**
+   * Bodies of the wasp requests are streamed to OkHttp, they are not copied by Volley
+   */
   private static RequestBody createRequestBody(Request request) throws AuthFailureError {
+    if (request instanceof VolleyNetworkStack.VolleyRequest) {
+      TypedOutput typedBody = ((VolleyNetworkStack.VolleyRequest) request).getTypedBody();
+      if (typedBody != null) {
+        return new TypedOutputRequestBody(typedBody);
+      }
+    }
     byte[] body = request.getBody();
     if (body == null) {
       return null;
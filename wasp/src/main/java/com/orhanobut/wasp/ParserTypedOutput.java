@@ -0,0 +1,45 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.mime.TypedOutput;
+import com.orhanobut.wasp.parsers.StreamingParser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * A body which is written by the streaming parser while the request is sent, it is never
+ * converted to a String. The length is not known, it is written again for each attempt.
+ */
+final class ParserTypedOutput implements TypedOutput {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final String mimeType;
+  private final StreamingParser parser;
+  private final Object body;
+
+  /**
+   * @param mimeType of the body, the body is written as UTF-8
+   */
+  ParserTypedOutput(String mimeType, StreamingParser parser, Object body) {
+    this.mimeType = mimeType;
+    this.parser = parser;
+    this.body = body;
+  }
+
+  @Override
+  public String mimeType() {
+    return mimeType;
+  }
+
+  @Override
+  public long length() {
+    return -1;
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    parser.toBody(body, out, UTF_8);
+  }
+}
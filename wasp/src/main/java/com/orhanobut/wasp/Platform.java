@@ -0,0 +1,142 @@
+package com.orhanobut.wasp;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hides the android types which are used by the runtime, so that wasp can run on a plain JVM as
+ * well. Android classes are loaded only by {@link Android}, which is used when they exist.
+ */
+abstract class Platform {
+
+  /**
+   * Log priorities, same values as android.util.Log
+   */
+  static final int VERBOSE = 2;
+  static final int DEBUG = 3;
+  static final int INFO = 4;
+  static final int WARN = 5;
+  static final int ERROR = 6;
+  static final int ASSERT = 7;
+
+  private static final Platform PLATFORM = findPlatform();
+
+  static Platform get() {
+    return PLATFORM;
+  }
+
+  private static Platform findPlatform() {
+    try {
+      Class.forName("android.os.Build");
+      return new Android();
+    } catch (ClassNotFoundException e) {
+      return new Jvm();
+    }
+  }
+
+  /**
+   * Callbacks of the async requests are delivered with this executor
+   */
+  abstract Executor getCallbackExecutor();
+
+  /**
+   * Runs the task with the callback executor after the given delay
+   */
+  abstract void executeDelayed(Runnable runnable, long delayMillis);
+
+  /**
+   * Monotonic time in milliseconds, it is used to measure the network time
+   */
+  abstract long elapsedRealtime();
+
+  abstract void log(int priority, String tag, String message);
+
+  private static final class Android extends Platform {
+
+    private final android.os.Handler handler =
+        new android.os.Handler(android.os.Looper.getMainLooper());
+
+    private final Executor callbackExecutor = new Executor() {
+      @Override
+      public void execute(Runnable runnable) {
+        handler.post(runnable);
+      }
+    };
+
+    @Override
+    Executor getCallbackExecutor() {
+      return callbackExecutor;
+    }
+
+    @Override
+    void executeDelayed(Runnable runnable, long delayMillis) {
+      handler.postDelayed(runnable, delayMillis);
+    }
+
+    @Override
+    long elapsedRealtime() {
+      return android.os.SystemClock.elapsedRealtime();
+    }
+
+    @Override
+    void log(int priority, String tag, String message) {
+      android.util.Log.println(priority, tag, message);
+    }
+  }
+
+  /**
+   * There is no main thread, callbacks are invoked on the thread which completes the request
+   */
+  private static final class Jvm extends Platform {
+
+    private final Executor callbackExecutor = new Executor() {
+      @Override
+      public void execute(Runnable runnable) {
+        runnable.run();
+      }
+    };
+
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    Executor getCallbackExecutor() {
+      return callbackExecutor;
+    }
+
+    @Override
+    void executeDelayed(Runnable runnable, long delayMillis) {
+      getScheduler().schedule(runnable, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService getScheduler() {
+      if (scheduler == null) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Wasp-Scheduler");
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+      }
+      return scheduler;
+    }
+
+    @Override
+    long elapsedRealtime() {
+      return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    @Override
+    void log(int priority, String tag, String message) {
+      if (priority >= WARN) {
+        System.err.println(tag + ": " + message);
+        return;
+      }
+      System.out.println(tag + ": " + message);
+    }
+  }
+}
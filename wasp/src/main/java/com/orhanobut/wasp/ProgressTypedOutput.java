@@ -0,0 +1,81 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.mime.TypedOutput;
+import com.orhanobut.wasp.utils.ProgressListener;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes of the wrapped body while it is written and reports them to the listener.
+ * The count starts from 0 for each attempt.
+ */
+final class ProgressTypedOutput implements TypedOutput {
+
+  private final TypedOutput body;
+  private final ProgressListener listener;
+
+  ProgressTypedOutput(TypedOutput body, ProgressListener listener) {
+    this.body = body;
+    this.listener = listener;
+  }
+
+  /**
+   * @return the body without progress, e.g. for the stacks which copy the body into memory
+   */
+  TypedOutput getBody() {
+    return body;
+  }
+
+  @Override
+  public String mimeType() {
+    return body.mimeType();
+  }
+
+  @Override
+  public long length() {
+    return body.length();
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    body.writeTo(new CountingOutputStream(out, body.length()));
+  }
+
+  private final class CountingOutputStream extends FilterOutputStream {
+
+    private final long contentLength;
+    private long bytesWritten;
+
+    CountingOutputStream(OutputStream out, long contentLength) {
+      super(out);
+      this.contentLength = contentLength;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      onWritten(1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int count) throws IOException {
+      out.write(buffer, offset, count);
+      onWritten(count);
+    }
+
+    /**
+     * The wrapped stream is closed by the network stack
+     */
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+
+    private void onWritten(int count) {
+      bytesWritten += count;
+      listener.onProgress(bytesWritten, contentLength);
+    }
+  }
+}
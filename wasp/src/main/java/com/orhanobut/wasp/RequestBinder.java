@@ -0,0 +1,77 @@
+package com.orhanobut.wasp;
+
+import rx.Observable;
+
+/**
+ * Binds the arguments of a generated service method call to the request. Primitive values are
+ * converted directly to String, so no boxing is required.
+ */
+public final class RequestBinder {
+
+  private final NetworkHandler networkHandler;
+  private final MethodInfo methodInfo;
+  private final RequestCreator.Builder builder;
+
+  private int index;
+
+  RequestBinder(NetworkHandler networkHandler, MethodInfo methodInfo) {
+    this.networkHandler = networkHandler;
+    this.methodInfo = methodInfo;
+    this.builder = networkHandler.newRequestBuilder(methodInfo);
+  }
+
+  public RequestBinder bind(Object value) {
+    builder.addParam(index++, value);
+    return this;
+  }
+
+  public RequestBinder bind(boolean value) {
+    return bind(String.valueOf(value));
+  }
+
+  public RequestBinder bind(char value) {
+    return bind(String.valueOf(value));
+  }
+
+  public RequestBinder bind(int value) {
+    return bind(String.valueOf(value));
+  }
+
+  public RequestBinder bind(long value) {
+    return bind(String.valueOf(value));
+  }
+
+  public RequestBinder bind(float value) {
+    return bind(String.valueOf(value));
+  }
+
+  public RequestBinder bind(double value) {
+    return bind(String.valueOf(value));
+  }
+
+  /**
+   * Sync call
+   *
+   * @return the response object
+   */
+  public Object execute() throws Exception {
+    return networkHandler.invokeSyncRequest(methodInfo, builder);
+  }
+
+  /**
+   * Async call
+   *
+   * @param callback is used to deliver the response
+   * @return cancelable request
+   */
+  public WaspRequest enqueue(Callback<?> callback) {
+    if (callback == null) {
+      throw new NullPointerException("Value cannot be null");
+    }
+    return networkHandler.invokeCallbackRequest(methodInfo, builder, callback);
+  }
+
+  public Observable<Object> toObservable() {
+    return networkHandler.invokeObservable(methodInfo, builder);
+  }
+}
@@ -1,25 +1,29 @@
 package com.orhanobut.wasp;
 
-import android.net.Uri;
-import android.text.TextUtils;
-
-import com.orhanobut.wasp.http.Body;
-import com.orhanobut.wasp.http.BodyMap;
-import com.orhanobut.wasp.http.Field;
-import com.orhanobut.wasp.http.FieldMap;
-import com.orhanobut.wasp.http.Header;
-import com.orhanobut.wasp.http.Path;
-import com.orhanobut.wasp.http.Query;
-import com.orhanobut.wasp.http.QueryMap;
+import com.orhanobut.wasp.mime.GzipTypedOutput;
+import com.orhanobut.wasp.mime.MultipartTypedOutput;
+import com.orhanobut.wasp.mime.TypedByteArray;
+import com.orhanobut.wasp.mime.TypedFile;
+import com.orhanobut.wasp.mime.TypedInputStream;
+import com.orhanobut.wasp.mime.TypedOutput;
+import com.orhanobut.wasp.parsers.Parser;
+import com.orhanobut.wasp.parsers.StreamingParser;
 import com.orhanobut.wasp.utils.AuthToken;
-import com.orhanobut.wasp.utils.CollectionUtils;
+import com.orhanobut.wasp.utils.CachingRequestInterceptor;
 import com.orhanobut.wasp.utils.LogLevel;
+import com.orhanobut.wasp.utils.ProgressListener;
 import com.orhanobut.wasp.utils.RequestInterceptor;
+import com.orhanobut.wasp.utils.RequestInterceptorSnapshot;
+import com.orhanobut.wasp.utils.RequestPriority;
 import com.orhanobut.wasp.utils.WaspRetryPolicy;
 
-import java.io.UnsupportedEncodingException;
-import java.lang.annotation.Annotation;
-import java.net.URLEncoder;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -27,16 +31,21 @@ import java.util.Map;
 
 final class RequestCreator {
 
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String PROTOCOL_CHARSET = "; charset=UTF-8";
+
   private final String url;
   private final String method;
   private final String contentType;
   private final Map<String, String> headers;
-  private final Map<String, String> fieldParams;
-  private final String body;
+  private final TypedOutput body;
   private final WaspRetryPolicy retryPolicy;
   private final MockHolder mock;
   private final MethodInfo methodInfo;
   private final LogLevel logLevel;
+  private final RequestPriority priority;
+  private final Parser parser;
+  private final boolean isResponseBodyDiscarded;
 
   private RequestCreator(Builder builder) {
     this.url = builder.getUrl();
@@ -46,9 +55,26 @@ final class RequestCreator {
     this.retryPolicy = builder.getRetryPolicy();
     this.mock = builder.getMock();
     this.methodInfo = builder.getMethodInfo();
-    this.logLevel = Wasp.getLogLevel();
-    this.fieldParams = builder.getFieldParams();
+    this.logLevel = builder.logLevel;
     this.contentType = builder.getContentType();
+    this.priority = builder.getPriority();
+    this.parser = builder.parser;
+    this.isResponseBodyDiscarded = builder.isResponseBodyDiscarded;
+  }
+
+  private RequestCreator(RequestCreator request, Map<String, String> headers) {
+    this.url = request.url;
+    this.method = request.method;
+    this.headers = headers;
+    this.body = request.body;
+    this.retryPolicy = request.retryPolicy;
+    this.mock = request.mock;
+    this.methodInfo = request.methodInfo;
+    this.logLevel = request.logLevel;
+    this.contentType = request.contentType;
+    this.priority = request.priority;
+    this.parser = request.parser;
+    this.isResponseBodyDiscarded = request.isResponseBodyDiscarded;
   }
 
   String getUrl() {
@@ -63,7 +89,10 @@ final class RequestCreator {
     return headers != null ? headers : Collections.<String, String>emptyMap();
   }
 
-  String getBody() {
+  /**
+   * @return the encoded body, null if the request has no body
+   */
+  TypedOutput getBody() {
     return body;
   }
 
@@ -75,6 +104,31 @@ final class RequestCreator {
     return retryPolicy;
   }
 
+  RequestPriority getPriority() {
+    return priority;
+  }
+
+  /**
+   * @return the parser of the wasp which created the request
+   */
+  Parser getParser() {
+    return parser;
+  }
+
+  /**
+   * @return true if the wasp which created the request discards the parsed response bodies
+   */
+  boolean isResponseBodyDiscarded() {
+    return isResponseBodyDiscarded;
+  }
+
+  /**
+   * @return the log level of the wasp which created the request
+   */
+  LogLevel getLogLevel() {
+    return logLevel;
+  }
+
   void log() {
     switch (logLevel) {
       case FULL:
@@ -86,7 +140,7 @@ final class RequestCreator {
             Logger.d("Header - [" + entry.getKey() + ": " + entry.getValue() + "]");
           }
         }
-        Logger.d(TextUtils.isEmpty(body) ? "Body - no body" : "Body - " + body);
+        Logger.d(getLogBody());
         Logger.d("---> END");
         break;
       default:
@@ -94,134 +148,278 @@ final class RequestCreator {
     }
   }
 
+  /**
+   * Bodies which are in memory are logged before they are compressed, files, streams and
+   * multipart bodies are not read for logging
+   */
+  String getLogBody() {
+    TypedOutput logBody = body;
+    if (logBody instanceof GzipTypedOutput) {
+      logBody = ((GzipTypedOutput) logBody).getBody();
+    }
+    if (logBody instanceof ProgressTypedOutput) {
+      logBody = ((ProgressTypedOutput) logBody).getBody();
+    }
+    if (logBody == null || logBody.length() == 0) {
+      return "Body - no body";
+    }
+    if (logBody instanceof TypedByteArray) {
+      return "Body - " + new String(((TypedByteArray) logBody).getBytes(), UTF_8);
+    }
+    if (logBody instanceof ParserTypedOutput) {
+      // e.g. @BodyMap, the parser writes it again when the request is sent
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try {
+        logBody.writeTo(out);
+        return "Body - " + new String(out.toByteArray(), UTF_8);
+      } catch (IOException e) {
+        return "Body - " + logBody.mimeType();
+      }
+    }
+    if (logBody.length() < 0) {
+      return "Body - " + logBody.mimeType();
+    }
+    return "Body - " + logBody.mimeType() + " (" + logBody.length() + " bytes)";
+  }
+
   MethodInfo getMethodInfo() {
     return methodInfo;
   }
 
-  Map<String, String> getFieldParams() {
-    return fieldParams != null ? fieldParams : Collections.<String, String>emptyMap();
+  /**
+   * Identifies the identical requests, which have the same method, url and headers. The body is
+   * not a part of the key.
+   */
+  String getKey() {
+    StringBuilder builder = new StringBuilder(128)
+        .append(method)
+        .append(' ')
+        .append(url);
+    for (Map.Entry<String, String> entry : getHeaders().entrySet()) {
+      builder.append('\n').append(entry.getKey()).append(':').append(entry.getValue());
+    }
+    return builder.toString();
   }
 
   String getContentType() {
     return contentType;
   }
 
+  /**
+   * Creates the same request with the additional headers, e.g. the conditional headers of the
+   * cache. The headers which are already set are not replaced.
+   */
+  RequestCreator newRequestWithHeaders(Map<String, String> extraHeaders) {
+    Map<String, String> headers = new LinkedHashMap<>(getHeaders());
+    for (Map.Entry<String, String> entry : extraHeaders.entrySet()) {
+      if (!headers.containsKey(entry.getKey())) {
+        headers.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return new RequestCreator(this, headers);
+  }
+
   static class Builder {
 
     private static final String KEY_AUTH = "Authorization";
+    private static final String KEY_CONTENT_ENCODING = "Content-Encoding";
+    private static final String OCTET_STREAM = "application/octet-stream";
 
     private final MethodInfo methodInfo;
+    private final RequestTemplate template;
     private final String baseUrl;
-    private final Object[] args;
+    private final Parser parser;
 
-    private String body;
-    private String relativeUrl;
+    private TypedOutput body;
+    private String[] pathValues;
     private WaspRetryPolicy retryPolicy;
-    private Uri.Builder queryParamBuilder;
+    private StringBuilder queryString;
     private Map<String, String> headers;
-    private Map<String, String> fieldParams;
+    private FormEncoder form;
+    private MultipartTypedOutput multipart;
+    private ProgressListener progressListener;
     private RequestInterceptor requestInterceptor;
+    private RequestPriority priority;
+    private int compressionThreshold;
+    private boolean isResponseBodyDiscarded;
+    private LogLevel logLevel = LogLevel.NONE;
+    private boolean isBodyStreamed;
+    private boolean isCopied;
 
-    Builder(MethodInfo methodInfo, Object[] args, String baseUrl) {
+    /**
+     * @param parser encodes the bodies of the request and parses its response
+     */
+    Builder(MethodInfo methodInfo, String baseUrl, Parser parser) {
       this.methodInfo = methodInfo;
+      this.template = methodInfo.getRequestTemplate(parser);
       this.baseUrl = baseUrl;
-      this.args = args;
-      this.relativeUrl = methodInfo.getRelativeUrl();
-
-      initParams();
+      this.parser = parser;
+      this.priority = template.getPriority();
     }
 
-    @SuppressWarnings("unchecked")
-    private void initParams() {
-      Annotation[] annotations = methodInfo.getMethodAnnotations();
-      int count = annotations.length;
+    Builder(MethodInfo methodInfo, Object[] args, String baseUrl, Parser parser) {
+      this(methodInfo, baseUrl, parser);
 
+      int count = template.getParamCount();
       for (int i = 0; i < count; i++) {
-        Object value = args[i];
-        if (value == null) {
-          throw new NullPointerException("Value cannot be null");
-        }
-        Annotation annotation = annotations[i];
-        if (annotation == null) {
-          continue;
-        }
-        Class<? extends Annotation> annotationType = annotation.annotationType();
-        if (annotationType == Path.class) {
-          String key = ((Path) annotation).value();
-          addPathParam(key, String.valueOf(value));
-          continue;
-        }
-        if (annotationType == Query.class) {
-          String key = ((Query) annotation).value();
+        addParam(i, args[i]);
+      }
+    }
+
+    /**
+     * Binds the argument to the request regarding to the param type of the given index
+     *
+     * @param index of the param
+     * @param value of the argument
+     */
+    @SuppressWarnings("unchecked")
+    void addParam(int index, Object value) {
+      if (value == null) {
+        throw new NullPointerException("Value cannot be null");
+      }
+      MethodInfo.ParamType paramType = template.getParamType(index);
+      if (paramType == null) {
+        return;
+      }
+      String key = template.getParamName(index);
+      switch (paramType) {
+        case PATH:
+          addPathParam(index, String.valueOf(value));
+          break;
+        case QUERY:
           addQueryParam(key, value);
-          continue;
-        }
-        if (annotationType == QueryMap.class) {
+          break;
+        case QUERY_MAP:
           if (!(value instanceof Map)) {
             throw new IllegalArgumentException("QueryMap accepts only Map instances");
           }
-          Map<String, ?> map;
+          Map<String, ?> queryMap;
           try {
-            map = (Map<String, ?>) value;
+            queryMap = (Map<String, ?>) value;
           } catch (Exception e) {
             throw new ClassCastException("QueryMap type should be Map<String, ?>");
           }
-          for (Map.Entry<String, ?> entry : map.entrySet()) {
+          for (Map.Entry<String, ?> entry : queryMap.entrySet()) {
             addQueryParam(entry.getKey(), entry.getValue());
           }
-          continue;
-        }
-        if (annotationType == Header.class) {
-          String key = ((Header) annotation).value();
-          addHeaderParam(key, (String) value);
-          continue;
-        }
-
-        if (annotationType == Field.class) {
-          String key = ((Field) annotation).value();
-          addFieldParams(key, (String) value);
-          continue;
-        }
-
-        if (annotationType == FieldMap.class) {
+          break;
+        case HEADER:
+          // static headers have the priority over the header params
+          if (!template.getHeaders().containsKey(key)) {
+            addHeaderParam(key, (String) value);
+          }
+          break;
+        case FIELD:
+          addFieldParams(key, value);
+          break;
+        case FIELD_MAP:
           if (!(value instanceof Map)) {
             throw new IllegalArgumentException("FieldMap accepts only Map instances");
           }
-          Map<String, String> map;
+          Map<String, ?> fieldMap;
           try {
-            map = (Map<String, String>) value;
+            fieldMap = (Map<String, ?>) value;
           } catch (Exception e) {
-            throw new ClassCastException("FieldMap type should be Map<String, String>");
+            throw new ClassCastException("FieldMap type should be Map<String, ?>");
           }
-          for (Map.Entry<String, String> entry : map.entrySet()) {
-            addFieldParams(entry.getKey(), entry.getValue());
+          for (Map.Entry<String, ?> entry : fieldMap.entrySet()) {
+            if (entry.getValue() != null) {
+              addFieldParams(entry.getKey(), entry.getValue());
+            }
           }
-          continue;
-        }
-
-        if (annotationType == Body.class) {
+          break;
+        case BODY:
           body = getBody(value);
-        }
-        if (annotationType == BodyMap.class) {
+          isBodyStreamed |= body instanceof TypedInputStream;
+          break;
+        case BODY_MAP:
           if (!(value instanceof Map)) {
             throw new IllegalArgumentException("BodyMap accepts only Map instances");
           }
-          Map<String, Object> map;
+          Map<String, Object> bodyMap;
           try {
-            map = (Map<String, Object>) value;
+            bodyMap = (Map<String, Object>) value;
           } catch (Exception e) {
             throw new ClassCastException("Map type should be Map<String,Object>");
           }
-          body = CollectionUtils.toJson(map);
-        }
+          body = encodeBodyMap(bodyMap);
+          break;
+        case PART:
+          addPart(key, value);
+          break;
+        case PRIORITY:
+          priority = (RequestPriority) value;
+          break;
+        case PROGRESS:
+          progressListener = (ProgressListener) value;
+          break;
+        default:
+          break;
       }
     }
 
+    /**
+     * Copies the bound params, so that the request can be built again with the current values
+     * of the interceptor, e.g. for each subscription of an observable. Building the copy doesn't
+     * change this builder. Files and byte arrays are sent again, but an input stream is read by
+     * the first request only, therefore a body with a stream can be copied once.
+     *
+     * @throws IllegalStateException if the body has a stream which is already copied
+     */
+    synchronized Builder copy() {
+      if (isBodyStreamed && isCopied) {
+        throw new IllegalStateException(
+            "The body of " + methodInfo.getName() + " is streamed from an InputStream, "
+                + "it can be sent once. Call the method again instead of subscribing again."
+        );
+      }
+      isCopied = true;
+      Builder copy = new Builder(methodInfo, baseUrl, parser);
+      copy.body = body;
+      copy.pathValues = pathValues != null ? pathValues.clone() : null;
+      copy.queryString = queryString != null ? new StringBuilder(queryString) : null;
+      copy.headers = headers != null ? new LinkedHashMap<>(headers) : null;
+      copy.form = form;
+      copy.multipart = multipart;
+      copy.progressListener = progressListener;
+      copy.requestInterceptor = requestInterceptor;
+      copy.priority = priority;
+      copy.compressionThreshold = compressionThreshold;
+      copy.isResponseBodyDiscarded = isResponseBodyDiscarded;
+      copy.logLevel = logLevel;
+      copy.isBodyStreamed = isBodyStreamed;
+      return copy;
+    }
+
     Builder setRequestInterceptor(RequestInterceptor interceptor) {
       this.requestInterceptor = interceptor;
       return this;
     }
 
+    /**
+     * Bodies of the compressed methods which are smaller than the threshold are not compressed
+     */
+    Builder setCompressionThreshold(int compressionThreshold) {
+      this.compressionThreshold = compressionThreshold;
+      return this;
+    }
+
+    /**
+     * See {@link Wasp.Builder#discardResponseBody()}
+     */
+    Builder setResponseBodyDiscarded(boolean isResponseBodyDiscarded) {
+      this.isResponseBodyDiscarded = isResponseBodyDiscarded;
+      return this;
+    }
+
+    /**
+     * See {@link Wasp.Builder#setLogLevel(LogLevel)}
+     */
+    Builder setLogLevel(LogLevel logLevel) {
+      this.logLevel = logLevel;
+      return this;
+    }
+
     /**
      * Merges static and param headers and create a request.
      *
@@ -234,61 +432,150 @@ final class RequestCreator {
 
     /**
      * It is called right before building a request, this method will add
-     * intercepted headers, params, static headers and retry policy
+     * intercepted headers, params and retry policy. Static headers and retry policy are
+     * taken from the template.
      */
     private void postInit() {
-      //Add static headers
-      for (Map.Entry<String, String> entry : methodInfo.getHeaders().entrySet()) {
-        addHeaderParam(entry.getKey(), entry.getValue());
-      }
-
       //Set retry policy
-      if (methodInfo.getRetryPolicy() != null) {
-        retryPolicy = methodInfo.getRetryPolicy();
+      retryPolicy = template.newRetryPolicy();
+
+      // Same as Volley, the body has the priority over the fields
+      if (body == null && form != null) {
+        body = form.toBody(template.getContentType() + PROTOCOL_CHARSET);
+      }
+      if (body == null && multipart != null) {
+        body = multipart;
+      }
+      // the listener counts the bytes of the body before they are compressed
+      if (body != null && progressListener != null) {
+        body = new ProgressTypedOutput(body, progressListener);
       }
+      compressBody();
 
       if (requestInterceptor == null) {
         return;
       }
+      if (requestInterceptor instanceof CachingRequestInterceptor) {
+        applySnapshot(((CachingRequestInterceptor) requestInterceptor).getSnapshot());
+        return;
+      }
 
       //Add intercepted query params
       Map<String, Object> tempQueryParams = new HashMap<>();
       requestInterceptor.onQueryParamsAdded(tempQueryParams);
-      for (Map.Entry<String, Object> entry : tempQueryParams.entrySet()) {
-        addQueryParam(entry.getKey(), entry.getValue());
-      }
+      addQueryParams(tempQueryParams);
 
       //Add intercepted headers
       Map<String, String> tempHeaders = new HashMap<>();
       requestInterceptor.onHeadersAdded(tempHeaders);
-      for (Map.Entry<String, String> entry : tempHeaders.entrySet()) {
-        addHeaderParam(entry.getKey(), entry.getValue());
-      }
+      addHeaderParams(tempHeaders);
 
       //If retry policy is not already set via annotations than set it via requestInterceptor
       WaspRetryPolicy waspRetryPolicy = requestInterceptor.getRetryPolicy();
       if (retryPolicy == null && waspRetryPolicy != null) {
-        retryPolicy = waspRetryPolicy;
-      }
-
-      // If authToken is set, it will check if the filter is enabled
-      // it will add token to each request if the filter is not enabled
-      // If the filter is enabled, it will be added to request which has @Auth annotation
-      AuthToken authToken = requestInterceptor.getAuthToken();
-      if (authToken != null) {
-        String token = authToken.getToken();
-        if (!authToken.isFilterEnabled()) {
-          addHeaderParam(KEY_AUTH, token);
-          return;
-        }
-        if (methodInfo.isAuthTokenEnabled()) {
-          addHeaderParam(KEY_AUTH, token);
-        }
+        // the interceptor returns the same policy for concurrent requests, Volley updates it
+        retryPolicy = new WaspRetryPolicy(
+            waspRetryPolicy.getCurrentTimeout(),
+            waspRetryPolicy.getMaxNumRetries(),
+            waspRetryPolicy.getBackoffMultiplier()
+        );
+      }
+
+      addAuthToken(requestInterceptor.getAuthToken());
+    }
+
+    /**
+     * The body is wrapped, it is compressed only when it is written. Bodies with unknown length
+     * are always compressed.
+     */
+    private void compressBody() {
+      if (!template.isCompressed() || body == null) {
+        return;
+      }
+      long length = body.length();
+      if (length >= 0 && length < compressionThreshold) {
+        return;
+      }
+      body = new GzipTypedOutput(body);
+      addHeaderParam(KEY_CONTENT_ENCODING, "gzip");
+    }
+
+    /**
+     * Same as the interceptor callbacks, but the values are taken from the cached snapshot
+     */
+    private void applySnapshot(RequestInterceptorSnapshot snapshot) {
+      addQueryParams(snapshot.getQueryParams());
+      addHeaderParams(snapshot.getHeaders());
+      if (retryPolicy == null) {
+        retryPolicy = snapshot.newRetryPolicy();
+      }
+      addAuthToken(snapshot.getAuthToken());
+    }
+
+    private void addQueryParams(Map<String, Object> params) {
+      if (params.isEmpty()) {
+        return;
+      }
+      for (Map.Entry<String, Object> entry : params.entrySet()) {
+        addQueryParam(entry.getKey(), entry.getValue());
+      }
+    }
+
+    private void addHeaderParams(Map<String, String> headers) {
+      if (headers.isEmpty()) {
+        return;
+      }
+      for (Map.Entry<String, String> entry : headers.entrySet()) {
+        addHeaderParam(entry.getKey(), entry.getValue());
+      }
+    }
+
+    /**
+     * If authToken is set, it will check if the filter is enabled
+     * it will add token to each request if the filter is not enabled
+     * If the filter is enabled, it will be added to request which has @Auth annotation
+     */
+    private void addAuthToken(AuthToken authToken) {
+      if (authToken == null) {
+        return;
+      }
+      if (!authToken.isFilterEnabled() || template.isAuthTokenEnabled()) {
+        addHeaderParam(KEY_AUTH, authToken.getToken());
+      }
+    }
+
+    /**
+     * Typed bodies are sent as they are, the other objects are converted by the parser
+     */
+    private TypedOutput getBody(Object body) {
+      if (body instanceof TypedOutput) {
+        return (TypedOutput) body;
+      }
+      return encodeBody(parser.toBody(body));
+    }
+
+    /**
+     * The body is encoded once, the string is not kept
+     */
+    private TypedOutput encodeBody(String body) {
+      if (body == null) {
+        return null;
       }
+      return new TypedByteArray(template.getContentType() + PROTOCOL_CHARSET, body.getBytes(UTF_8));
     }
 
-    private String getBody(Object body) {
-      return Wasp.getParser().toBody(body);
+    /**
+     * Maps are written by the streaming parser while the request is sent. The map is copied,
+     * later changes of the caller are not sent.
+     */
+    private TypedOutput encodeBodyMap(Map<String, Object> bodyMap) {
+      Map<String, Object> copy = new LinkedHashMap<>(bodyMap);
+      if (parser instanceof StreamingParser) {
+        return new ParserTypedOutput(
+            template.getContentType() + PROTOCOL_CHARSET, (StreamingParser) parser, copy
+        );
+      }
+      return encodeBody(parser.toBody(copy));
     }
 
     /**
@@ -298,69 +585,136 @@ final class RequestCreator {
      * @return full url
      */
     private String getUrl() {
-      String endpoint = methodInfo.getBaseUrl();
-      if (endpoint == null) {
-        endpoint = baseUrl;
-      }
-      return endpoint + relativeUrl + getQueryString();
+      return template.getUrl(baseUrl, pathValues, queryString != null ? queryString : "");
     }
 
-    private String getQueryString() {
-      if (queryParamBuilder == null) {
-        return "";
+    /**
+     * Fills the slots of the url template which are bound to the param of the given index
+     */
+    private void addPathParam(int index, String value) {
+      int[] slots = template.getPathSlots(index);
+      if (slots.length == 0) {
+        return;
       }
-      return queryParamBuilder.toString();
-    }
-
-    private void addPathParam(String key, String value) {
-      try {
-        String encodedValue = URLEncoder.encode(String.valueOf(value), "UTF-8");
-        relativeUrl = relativeUrl.replace("{" + key + "}", encodedValue);
-      } catch (UnsupportedEncodingException e) {
-        throw new RuntimeException("unable to encode the value for path");
+      if (pathValues == null) {
+        pathValues = new String[template.getSlotCount()];
+      }
+      String encodedValue = UrlTemplate.encodePathSegment(value);
+      for (int slot : slots) {
+        pathValues[slot] = encodedValue;
       }
     }
 
     private void addQueryParam(String key, Object value) {
-      if (queryParamBuilder == null) {
-        queryParamBuilder = new Uri.Builder();
+      StringBuilder queryString = this.queryString;
+      if (queryString == null) {
+        queryString = new StringBuilder(64).append('?');
+        this.queryString = queryString;
+      } else {
+        queryString.append('&');
       }
-      queryParamBuilder.appendQueryParameter(key, String.valueOf(value));
+      queryString.append(UrlTemplate.encodeQueryComponent(key))
+          .append('=')
+          .append(UrlTemplate.encodeQueryComponent(String.valueOf(value)));
     }
 
+    /**
+     * Static headers are shared until a header is added
+     */
     private void addHeaderParam(String key, String value) {
       Map<String, String> headers = this.headers;
       if (headers == null) {
-        headers = new LinkedHashMap<>();
+        headers = new LinkedHashMap<>(template.getHeaders());
         this.headers = headers;
       }
       headers.put(key, value);
     }
 
     /**
-     * Adds the field to the map in order to use in form-url-encoded
+     * Encodes the field into the form-url-encoded body. Repeated keys are kept, iterables and
+     * arrays add a field for each of their non null elements.
      *
      * @param key   of the field
      * @param value of the field
      */
-    private void addFieldParams(String key, String value) {
-      Map<String, String> params = this.fieldParams;
-      if (params == null) {
-        params = new LinkedHashMap<>();
-        this.fieldParams = params;
+    private void addFieldParams(String key, Object value) {
+      if (value instanceof Iterable) {
+        for (Object element : (Iterable<?>) value) {
+          if (element != null) {
+            addField(key, element);
+          }
+        }
+        return;
       }
-      params.put(key, value);
+      if (value.getClass().isArray()) {
+        for (int i = 0, length = Array.getLength(value); i < length; i++) {
+          Object element = Array.get(value, i);
+          if (element != null) {
+            addField(key, element);
+          }
+        }
+        return;
+      }
+      addField(key, value);
+    }
+
+    private void addField(String key, Object value) {
+      FormEncoder form = this.form;
+      if (form == null) {
+        form = new FormEncoder();
+        this.form = form;
+      }
+      form.add(key, String.valueOf(value));
+    }
+
+    /**
+     * Files and streams are not read here, they are written in chunks when the request is sent
+     */
+    private void addPart(String name, Object value) {
+      MultipartTypedOutput multipart = this.multipart;
+      if (multipart == null) {
+        multipart = new MultipartTypedOutput();
+        this.multipart = multipart;
+      }
+      TypedOutput partBody = getPartBody(value);
+      isBodyStreamed |= partBody instanceof TypedInputStream;
+      multipart.addPart(name, partBody);
+    }
+
+    private TypedOutput getPartBody(Object value) {
+      if (value instanceof TypedOutput) {
+        return (TypedOutput) value;
+      }
+      if (value instanceof String) {
+        byte[] bytes = ((String) value).getBytes(UTF_8);
+        return new TypedByteArray("text/plain" + PROTOCOL_CHARSET, bytes);
+      }
+      if (value instanceof byte[]) {
+        return new TypedByteArray(OCTET_STREAM, (byte[]) value);
+      }
+      if (value instanceof File) {
+        File file = (File) value;
+        String mimeType = URLConnection.guessContentTypeFromName(file.getName());
+        return new TypedFile(mimeType != null ? mimeType : OCTET_STREAM, file);
+      }
+      if (value instanceof InputStream) {
+        return new TypedInputStream(OCTET_STREAM, (InputStream) value);
+      }
+      return new TypedByteArray(
+          parser.getSupportedContentType() + PROTOCOL_CHARSET,
+          parser.toBody(value).getBytes(UTF_8)
+      );
     }
 
     String getHttpMethod() {
-      return methodInfo.getHttpMethod();
+      return template.getHttpMethod();
     }
 
     Map<String, String> getHeaders() {
-      return headers;
+      return headers != null ? headers : template.getHeaders();
     }
 
-    String getBody() {
+    TypedOutput getBody() {
       return body;
     }
 
@@ -368,6 +722,10 @@ final class RequestCreator {
       return retryPolicy;
     }
 
+    RequestPriority getPriority() {
+      return priority;
+    }
+
     MockHolder getMock() {
       return methodInfo.getMock();
     }
@@ -377,14 +735,7 @@ final class RequestCreator {
     }
 
     String getContentType() {
-      if (methodInfo.getContentType() == null) {
-        return Wasp.getParser().getSupportedContentType();
-      }
-      return methodInfo.getContentType();
-    }
-
-    Map<String, String> getFieldParams() {
-      return fieldParams;
+      return template.getContentType();
     }
 
   }
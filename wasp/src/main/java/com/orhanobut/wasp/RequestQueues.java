@@ -0,0 +1,88 @@
+package com.orhanobut.wasp;
+
+import android.content.Context;
+
+import com.android.volley.Cache;
+import com.android.volley.Network;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.DiskBasedCache;
+import com.android.volley.toolbox.HttpStack;
+
+import java.io.File;
+
+/**
+ * Request queues of a wasp instance. REST and image requests share the network, but each of them
+ * has its own thread pool so that a burst in one of them can not starve the other one. Queues
+ * and their threads are created when they are used first.
+ */
+final class RequestQueues {
+
+  static final int DEFAULT_REST_POOL_SIZE = 4;
+  static final int DEFAULT_IMAGE_POOL_SIZE = 2;
+  static final int DEFAULT_DISK_CACHE_SIZE = 5 * 1024 * 1024;
+
+  private static final String REST_CACHE_DIR = "volley";
+  private static final String IMAGE_CACHE_DIR = "volley-images";
+
+  private final Context context;
+  private final HttpStack httpStack;
+  private final int restPoolSize;
+  private final int imagePoolSize;
+  private final boolean isDiskCacheShared;
+  private final int diskCacheSize;
+
+  private Network network;
+  private Cache restCache;
+  private RequestQueue restQueue;
+  private RequestQueue imageQueue;
+
+  RequestQueues(Context context, HttpStack httpStack, int restPoolSize, int imagePoolSize,
+                boolean isDiskCacheShared, int diskCacheSize) {
+    this.context = context;
+    this.httpStack = httpStack;
+    this.restPoolSize = restPoolSize;
+    this.imagePoolSize = imagePoolSize;
+    this.isDiskCacheShared = isDiskCacheShared;
+    this.diskCacheSize = diskCacheSize;
+  }
+
+  synchronized RequestQueue getRestQueue() {
+    if (restQueue == null) {
+      restQueue = newQueue(getRestCache(), restPoolSize);
+    }
+    return restQueue;
+  }
+
+  /**
+   * Images use the disk cache of the REST requests if it is shared, otherwise a separate
+   * directory in order not to evict each other
+   */
+  synchronized RequestQueue getImageQueue() {
+    if (imageQueue == null) {
+      Cache cache = isDiskCacheShared ? getRestCache() : newCache(IMAGE_CACHE_DIR);
+      imageQueue = newQueue(cache, imagePoolSize);
+    }
+    return imageQueue;
+  }
+
+  private RequestQueue newQueue(Cache cache, int poolSize) {
+    if (network == null) {
+      network = new BasicNetwork(httpStack);
+    }
+    RequestQueue queue = new RequestQueue(cache, network, poolSize);
+    queue.start();
+    return queue;
+  }
+
+  private Cache getRestCache() {
+    if (restCache == null) {
+      restCache = newCache(REST_CACHE_DIR);
+    }
+    return restCache;
+  }
+
+  private Cache newCache(String directory) {
+    return new DiskBasedCache(new File(context.getCacheDir(), directory), diskCacheSize);
+  }
+}
@@ -0,0 +1,155 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.parsers.Parser;
+import com.orhanobut.wasp.utils.RequestPriority;
+import com.orhanobut.wasp.utils.WaspRetryPolicy;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable part of the request which is resolved once per method. Each call only copies what it
+ * changes and binds the arguments, see {@link RequestCreator.Builder}
+ */
+final class RequestTemplate {
+
+  private final Parser parser;
+  private final String httpMethod;
+  private final String baseUrl;
+  private final UrlTemplate urlTemplate;
+  private final String contentType;
+  private final Map<String, String> headers;
+  private final WaspRetryPolicy retryPolicy;
+  private final boolean isAuthTokenEnabled;
+  private final boolean isCompressed;
+  private final RequestPriority priority;
+  private final MethodInfo.ParamType[] paramTypes;
+  private final String[] paramNames;
+
+  /**
+   * Slots of the url template for each path param, null for the other params
+   */
+  private final int[][] pathSlots;
+
+  RequestTemplate(MethodInfo methodInfo, Parser parser) {
+    this.parser = parser;
+    this.httpMethod = methodInfo.getHttpMethod();
+    this.baseUrl = methodInfo.getBaseUrl();
+    this.urlTemplate = methodInfo.getUrlTemplate();
+    this.contentType = methodInfo.getContentType() != null
+        ? methodInfo.getContentType() : parser.getSupportedContentType();
+    this.retryPolicy = methodInfo.getRetryPolicy();
+    this.isAuthTokenEnabled = methodInfo.isAuthTokenEnabled();
+    this.isCompressed = methodInfo.isCompressed();
+    this.priority = methodInfo.getPriority();
+    this.paramTypes = methodInfo.getParamTypes();
+    this.paramNames = methodInfo.getParamNames();
+
+    Map<String, String> staticHeaders = methodInfo.getHeaders();
+    this.headers = staticHeaders.isEmpty()
+        ? Collections.<String, String>emptyMap()
+        : Collections.unmodifiableMap(new LinkedHashMap<>(staticHeaders));
+
+    this.pathSlots = new int[paramTypes.length][];
+    for (int i = 0; i < paramTypes.length; i++) {
+      if (paramTypes[i] == MethodInfo.ParamType.PATH) {
+        pathSlots[i] = findSlots(paramNames[i]);
+      }
+    }
+  }
+
+  private int[] findSlots(String name) {
+    int count = 0;
+    for (int i = 0; i < urlTemplate.getSlotCount(); i++) {
+      if (name.equals(urlTemplate.getSlotName(i))) {
+        count++;
+      }
+    }
+    int[] slots = new int[count];
+    int index = 0;
+    for (int i = 0; i < urlTemplate.getSlotCount(); i++) {
+      if (name.equals(urlTemplate.getSlotName(i))) {
+        slots[index++] = i;
+      }
+    }
+    return slots;
+  }
+
+  /**
+   * The template depends on the parser for the default content type
+   */
+  boolean isCreatedFor(Parser parser) {
+    return this.parser == parser;
+  }
+
+  String getHttpMethod() {
+    return httpMethod;
+  }
+
+  /**
+   * @param endPoint is used unless the method has its own end point
+   */
+  String getUrl(String endPoint, String[] pathValues, CharSequence queryString) {
+    return urlTemplate.expand(baseUrl != null ? baseUrl : endPoint, pathValues, queryString);
+  }
+
+  int getSlotCount() {
+    return urlTemplate.getSlotCount();
+  }
+
+  String getContentType() {
+    return contentType;
+  }
+
+  /**
+   * @return unmodifiable static headers, never null
+   */
+  Map<String, String> getHeaders() {
+    return headers;
+  }
+
+  /**
+   * Volley updates the retry policy while retrying, therefore each request needs its own copy
+   *
+   * @return null if the method has no retry policy
+   */
+  WaspRetryPolicy newRetryPolicy() {
+    if (retryPolicy == null) {
+      return null;
+    }
+    return new WaspRetryPolicy(
+        retryPolicy.getCurrentTimeout(),
+        retryPolicy.getMaxNumRetries(),
+        retryPolicy.getBackoffMultiplier()
+    );
+  }
+
+  RequestPriority getPriority() {
+    return priority;
+  }
+
+  boolean isAuthTokenEnabled() {
+    return isAuthTokenEnabled;
+  }
+
+  boolean isCompressed() {
+    return isCompressed;
+  }
+
+  MethodInfo.ParamType getParamType(int index) {
+    return paramTypes[index];
+  }
+
+  String getParamName(int index) {
+    return paramNames[index];
+  }
+
+  int getParamCount() {
+    return paramTypes.length;
+  }
+
+  int[] getPathSlots(int index) {
+    return pathSlots[index];
+  }
+}
@@ -1,9 +1,10 @@
 package com.orhanobut.wasp;
 
-import android.text.TextUtils;
-
+import com.orhanobut.wasp.parsers.Parser;
 import com.orhanobut.wasp.utils.LogLevel;
+import com.orhanobut.wasp.utils.StringUtils;
 
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Map;
 
@@ -16,18 +17,35 @@ public final class Response {
   private final Object responseObject;
   private final Map<String, String> headers;
   private final String body;
+  private final byte[] bodyData;
+  private final Charset charset;
   private final String url;
   private final LogLevel logLevel;
+  private final boolean revalidated;
+  private final boolean stale;
+  private final Parser parser;
 
   private Response(Builder builder) {
     this.url = builder.getUrl();
     this.statusCode = builder.getStatusCode();
     this.headers = builder.getHeaders();
-    this.body = builder.getBody();
     this.length = builder.getLength();
     this.networkTime = builder.getNetworkTime();
     this.responseObject = builder.getResponseObject();
-    this.logLevel = Wasp.getLogLevel();
+    this.logLevel = builder.getLogLevel();
+    this.charset = builder.getCharset();
+    this.revalidated = builder.isRevalidated();
+    this.stale = builder.isStale();
+    this.parser = builder.getParser();
+
+    // the parsed object replaces the body, unless it is logged
+    if (responseObject != null && builder.isBodyDiscarded()) {
+      this.body = null;
+      this.bodyData = null;
+    } else {
+      this.body = builder.getBody();
+      this.bodyData = builder.getBodyData();
+    }
   }
 
   /**
@@ -53,13 +71,39 @@ public final class Response {
   }
 
   /**
-   * Response body. May be {@code null}.
+   * Response body. May be {@code null}, e.g. when the body is discarded after it is parsed.
+   * The raw body is decoded on each call, it is not kept as a String.
    */
   @SuppressWarnings("unused")
   public String getBody() {
+    if (body == null && bodyData != null) {
+      return new String(bodyData, charset);
+    }
     return body;
   }
 
+  /**
+   * @return the raw body, null if the body is given as a String or it is discarded
+   */
+  byte[] getBodyData() {
+    return bodyData;
+  }
+
+  Charset getCharset() {
+    return charset;
+  }
+
+  /**
+   * @return the parser of the request, null if the response doesn't belong to a request
+   */
+  Parser getParser() {
+    return parser;
+  }
+
+  LogLevel getLogLevel() {
+    return logLevel;
+  }
+
   /**
    * Response body length.
    */
@@ -83,10 +127,38 @@ public final class Response {
     return networkTime;
   }
 
-  private String getFormattedBody() {
+  /**
+   * Returns true if the server answered 304 Not Modified and the cached response is delivered,
+   * the object of the cached response is reused without parsing. Unchanged responses of
+   * {@code @StaleWhileRevalidate} methods are revalidated as well.
+   */
+  @SuppressWarnings("unused")
+  public boolean isRevalidated() {
+    return revalidated;
+  }
+
+  /**
+   * Returns true if the response is delivered from the cache before it is refreshed, the
+   * refreshed response follows only if it changed. See {@code @StaleWhileRevalidate}.
+   */
+  @SuppressWarnings("unused")
+  public boolean isStale() {
+    return stale;
+  }
+
+  private static String getFormattedBody(String body) {
     return body.replace("\n", "").replace("\r", "").replace("\t", "");
   }
 
+  /**
+   * @return true if the body is dropped once it is parsed, it is kept if it is logged
+   */
+  static boolean isBodyDiscarded(RequestCreator request) {
+    LogLevel logLevel = request.getLogLevel();
+    return request.isResponseBodyDiscarded()
+        && logLevel != LogLevel.FULL && logLevel != LogLevel.FULL_REST_ONLY;
+  }
+
   void log() {
     switch (logLevel) {
       case FULL:
@@ -98,7 +170,8 @@ public final class Response {
             Logger.d("Header - [" + entry.getKey() + ": " + entry.getValue() + "]");
           }
         }
-        Logger.d(TextUtils.isEmpty(body) ? "Body - no body" : "Body - " + getFormattedBody());
+        String body = getBody();
+        Logger.d(StringUtils.isEmpty(body) ? "Body - no body" : "Body - " + getFormattedBody(body));
         Logger.d("<--- END " + "(Size: " + length + " bytes - Network time: "
             + networkTime + " ms)");
         break;
@@ -112,11 +185,18 @@ public final class Response {
     private String url;
     private Map<String, String> headers;
     private String body;
+    private byte[] bodyData;
+    private Charset charset;
     private Object responseObject;
 
     private int statusCode;
     private int length;
     private long networkTime;
+    private boolean revalidated;
+    private boolean stale;
+    private Parser parser;
+    private boolean isBodyDiscarded;
+    private LogLevel logLevel = LogLevel.NONE;
 
     Response build() {
       return new Response(this);
@@ -131,6 +211,39 @@ public final class Response {
       return this;
     }
 
+    /**
+     * Takes the url, the parser, the log level and the body setting of the request
+     */
+    Builder setRequest(RequestCreator request) {
+      this.url = request.getUrl();
+      this.parser = request.getParser();
+      this.logLevel = request.getLogLevel();
+      this.isBodyDiscarded = Response.isBodyDiscarded(request);
+      return this;
+    }
+
+    LogLevel getLogLevel() {
+      return logLevel;
+    }
+
+    Builder setLogLevel(LogLevel logLevel) {
+      this.logLevel = logLevel;
+      return this;
+    }
+
+    Parser getParser() {
+      return parser;
+    }
+
+    Builder setParser(Parser parser) {
+      this.parser = parser;
+      return this;
+    }
+
+    boolean isBodyDiscarded() {
+      return isBodyDiscarded;
+    }
+
     int getStatusCode() {
       return statusCode;
     }
@@ -158,6 +271,23 @@ public final class Response {
       return this;
     }
 
+    /**
+     * Keeps the raw body, it is decoded only when the body is requested as a String
+     */
+    Builder setBody(byte[] data, Charset charset) {
+      this.bodyData = data;
+      this.charset = charset;
+      return this;
+    }
+
+    byte[] getBodyData() {
+      return bodyData;
+    }
+
+    Charset getCharset() {
+      return charset;
+    }
+
     int getLength() {
       return length;
     }
@@ -184,5 +314,23 @@ public final class Response {
       this.responseObject = object;
       return this;
     }
+
+    boolean isRevalidated() {
+      return revalidated;
+    }
+
+    Builder setRevalidated(boolean revalidated) {
+      this.revalidated = revalidated;
+      return this;
+    }
+
+    boolean isStale() {
+      return stale;
+    }
+
+    Builder setStale(boolean stale) {
+      this.stale = stale;
+      return this;
+    }
   }
 }
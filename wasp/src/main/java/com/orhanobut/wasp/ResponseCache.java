@@ -0,0 +1,203 @@
+package com.orhanobut.wasp;
+
+import com.android.volley.Cache;
+import com.android.volley.toolbox.DiskBasedCache;
+import com.orhanobut.wasp.utils.WaspCache;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Cache of the {@code @Cache} methods. Entries are kept in memory with their parsed objects and
+ * their raw bodies are written to the disk, an entry which is read from the disk is parsed once
+ * and then it is served from the memory as well.
+ *
+ * <p>The memory keeps the most recently used {@link #MEMORY_CACHE_SIZE} entries, the evicted ones
+ * are read from the disk again. The disk is accessed only by the cache thread and the sync
+ * callers, never by the main thread. Without a directory, e.g. on the plain JVM, responses are
+ * kept only in memory.
+ *
+ * <p>Wasp instances share the cache of a directory, see {@link #forDirectory(File, int)}, so
+ * that two disk caches don't write the same files.
+ */
+final class ResponseCache {
+
+  static final String DIRECTORY = "wasp-responses";
+
+  /**
+   * Parsed objects can not be measured, the memory cache is bounded by the number of entries
+   */
+  static final int MEMORY_CACHE_SIZE = 100;
+
+  /**
+   * Caches by the directory, they live as long as the process like the request queues
+   */
+  private static final Map<File, ResponseCache> SHARED_CACHES = new HashMap<>();
+
+  private final WaspCache<String, CacheEntry> memoryCache = new WaspCache<>(MEMORY_CACHE_SIZE);
+  private final File directory;
+  private final int diskCacheSize;
+
+  private ExecutorService executor;
+  private Cache diskCache;
+
+  /**
+   * @param directory     of the disk cache, null in order to keep the responses only in memory
+   * @param diskCacheSize maximum size of the disk cache in bytes
+   */
+  ResponseCache(File directory, int diskCacheSize) {
+    this.directory = directory;
+    this.diskCacheSize = diskCacheSize;
+  }
+
+  /**
+   * @param directory     of the disk cache, null in order to keep the responses only in memory
+   * @param diskCacheSize maximum size of the disk cache in bytes, only the size of the first
+   *                      cache of the directory is used
+   * @return the shared cache of the directory, a new memory cache if there is no directory
+   */
+  static ResponseCache forDirectory(File directory, int diskCacheSize) {
+    if (directory == null) {
+      return new ResponseCache(null, diskCacheSize);
+    }
+    synchronized (SHARED_CACHES) {
+      File key = directory.getAbsoluteFile();
+      ResponseCache cache = SHARED_CACHES.get(key);
+      if (cache == null) {
+        cache = new ResponseCache(key, diskCacheSize);
+        SHARED_CACHES.put(key, cache);
+      }
+      return cache;
+    }
+  }
+
+  boolean hasDiskCache() {
+    return directory != null;
+  }
+
+  CacheEntry getFromMemory(String key) {
+    return memoryCache.get(key);
+  }
+
+  /**
+   * Looks up the memory first, then the disk. It blocks, it must not be called on the main
+   * thread.
+   *
+   * @return null if there is no entry or the entry on the disk can not be parsed
+   */
+  CacheEntry get(String key, RequestCreator requestCreator) {
+    CacheEntry entry = memoryCache.get(key);
+    if (entry != null || directory == null) {
+      return entry;
+    }
+    Cache cache = getDiskCache();
+    Cache.Entry diskEntry = cache.get(key);
+    if (diskEntry == null) {
+      return null;
+    }
+    Charset charset = Utils.parseCharset(
+        CacheEntry.getHeader(diskEntry.responseHeaders, "Content-Type")
+    );
+    Object responseObject;
+    try {
+      responseObject = Utils.parseBody(
+          requestCreator.getParser(), diskEntry.data, charset,
+          requestCreator.getMethodInfo().getResponseObjectType()
+      );
+    } catch (Exception e) {
+      Logger.w("Cached response could not be parsed: " + e.getMessage());
+      cache.remove(key);
+      return null;
+    }
+    Response response = new Response.Builder()
+        .setRequest(requestCreator)
+        .setStatusCode(200)
+        .setHeaders(diskEntry.responseHeaders)
+        .setBody(diskEntry.data, charset)
+        .setResponseObject(responseObject)
+        .setLength(diskEntry.data.length)
+        .build();
+    entry = new CacheEntry(response, diskEntry.softTtl, diskEntry.ttl);
+    memoryCache.put(key, entry);
+    return entry;
+  }
+
+  /**
+   * The entry is available in memory right away, it is written to the disk on the cache thread.
+   * Responses without their raw body, e.g. the discarded ones, are kept only in memory.
+   */
+  void put(final String key, CacheEntry entry) {
+    memoryCache.put(key, entry);
+    Response response = entry.getResponse();
+    byte[] data = response.getBodyData();
+    if (directory == null || data == null) {
+      return;
+    }
+    final Cache.Entry diskEntry = new Cache.Entry();
+    diskEntry.data = data;
+    diskEntry.etag = CacheEntry.getHeader(response.getHeaders(), "ETag");
+    diskEntry.softTtl = entry.getExpiresAt();
+    diskEntry.ttl = entry.getStaleIfErrorUntil();
+    diskEntry.responseHeaders = response.getHeaders();
+    execute(new Runnable() {
+      @Override
+      public void run() {
+        getDiskCache().put(key, diskEntry);
+      }
+    });
+  }
+
+  /**
+   * Replaces the entry only in memory, e.g. after it is revalidated. The body on the disk didn't
+   * change, it keeps the old expiration and it is revalidated again after a restart.
+   */
+  void refresh(String key, CacheEntry entry) {
+    memoryCache.put(key, entry);
+  }
+
+  void remove(final String key) {
+    memoryCache.remove(key);
+    if (directory == null) {
+      return;
+    }
+    execute(new Runnable() {
+      @Override
+      public void run() {
+        getDiskCache().remove(key);
+      }
+    });
+  }
+
+  /**
+   * Runs the task on the cache thread
+   */
+  synchronized void execute(Runnable runnable) {
+    if (executor == null) {
+      executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "Wasp-Cache");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    executor.execute(runnable);
+  }
+
+  /**
+   * The disk cache reads the headers of all entries when it is initialized
+   */
+  private synchronized Cache getDiskCache() {
+    if (diskCache == null) {
+      diskCache = new DiskBasedCache(directory, diskCacheSize);
+      diskCache.initialize();
+    }
+    return diskCache;
+  }
+}
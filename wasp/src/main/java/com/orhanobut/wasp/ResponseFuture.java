@@ -0,0 +1,58 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.utils.WaspRetryPolicy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Waits for the result of an async request, it is used by the stacks which always send the
+ * requests asynchronously
+ */
+final class ResponseFuture implements InternalCallback<Response> {
+
+  private static final int DEFAULT_TIMEOUT_MS = 30000;
+
+  private final CountDownLatch latch = new CountDownLatch(1);
+
+  private Response response;
+  private WaspError error;
+
+  @Override
+  public void onSuccess(Response response) {
+    this.response = response;
+    latch.countDown();
+  }
+
+  @Override
+  public void onError(WaspError error) {
+    this.error = error;
+    latch.countDown();
+  }
+
+  /**
+   * Waits as long as all attempts of the retry policy of the request may take
+   *
+   * @throws ExecutionException with the WaspError if the request fails
+   */
+  Response get(RequestCreator requestCreator) throws Exception {
+    long timeout = getTimeout(requestCreator);
+    if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+      throw new TimeoutException();
+    }
+    if (error != null) {
+      throw new ExecutionException(error);
+    }
+    return response;
+  }
+
+  /**
+   * @return the total timeout of the retry policy, 30 seconds without a retry policy
+   */
+  static long getTimeout(RequestCreator requestCreator) {
+    WaspRetryPolicy retryPolicy = requestCreator.getRetryPolicy();
+    return retryPolicy != null ? retryPolicy.getTotalTimeout() : DEFAULT_TIMEOUT_MS;
+  }
+}
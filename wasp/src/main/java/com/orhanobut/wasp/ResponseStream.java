@@ -0,0 +1,40 @@
+package com.orhanobut.wasp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * The body of a successful response which is not read yet. The response holds the status and the
+ * headers, it has no body.
+ */
+final class ResponseStream implements Closeable {
+
+  private final Response response;
+  private final InputStream body;
+  private final Charset charset;
+
+  ResponseStream(Response response, InputStream body, Charset charset) {
+    this.response = response;
+    this.body = body;
+    this.charset = charset;
+  }
+
+  Response getResponse() {
+    return response;
+  }
+
+  InputStream getBody() {
+    return body;
+  }
+
+  Charset getCharset() {
+    return charset;
+  }
+
+  @Override
+  public void close() throws IOException {
+    body.close();
+  }
+}
@@ -240,6 +240,10 @@ final class RetroTypes {
     }
   }
 
+  static ParameterizedType newParameterizedType(Class<?> rawType, Type... typeArguments) {
+    return new ParameterizedTypeImpl(null, rawType, typeArguments);
+  }
+
   private static final class ParameterizedTypeImpl implements ParameterizedType {
     private final Type ownerType;
     private final Type rawType;
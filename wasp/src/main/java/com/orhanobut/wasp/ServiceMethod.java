@@ -0,0 +1,302 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.utils.RequestPriority;
+import com.orhanobut.wasp.utils.WaspRetryPolicy;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the compile time information of a service method. It is created by the generated
+ * service implementations, see {@link GeneratedService}
+ */
+public final class ServiceMethod {
+
+  private final MethodInfo methodInfo;
+
+  private ServiceMethod(Builder builder) {
+    this.methodInfo = MethodInfo.newInstance(builder);
+  }
+
+  MethodInfo getMethodInfo() {
+    return methodInfo;
+  }
+
+  @SuppressWarnings("unused")
+  public static class Builder {
+
+    private final String name;
+    private final List<String> headers = new ArrayList<>();
+    private final List<MethodInfo.ParamType> paramTypes = new ArrayList<>();
+    private final List<String> paramNames = new ArrayList<>();
+
+    private String httpMethod;
+    private String relativeUrl;
+    private String baseUrl;
+    private String contentType;
+    private WaspRetryPolicy retryPolicy;
+    private MockHolder mock;
+    private CachePolicy cachePolicy;
+    private boolean isAuthTokenEnabled;
+    private boolean isCoalesced;
+    private boolean isCompressed;
+    private boolean isStreaming;
+    private boolean isStaleWhileRevalidate;
+    private RequestPriority priority = RequestPriority.NORMAL;
+    private MethodInfo.ReturnType returnType;
+    private Type responseObjectType;
+
+    /**
+     * @param name is used in the error messages, ie: Service.method
+     */
+    public Builder(String name) {
+      this.name = name;
+    }
+
+    public Builder setHttpMethod(String httpMethod, String relativeUrl) {
+      this.httpMethod = httpMethod;
+      this.relativeUrl = relativeUrl;
+      return this;
+    }
+
+    public Builder setEndPoint(String baseUrl) {
+      this.baseUrl = baseUrl;
+      return this;
+    }
+
+    public Builder setContentType(String contentType) {
+      this.contentType = contentType;
+      return this;
+    }
+
+    public Builder addHeaders(String... headers) {
+      if (headers == null) {
+        throw new NullPointerException("HEAD value may not be null");
+      }
+      for (String header : headers) {
+        this.headers.add(header);
+      }
+      return this;
+    }
+
+    public Builder setRetryPolicy(int timeout, int maxNumRetries, float backoffMultiplier) {
+      this.retryPolicy = new WaspRetryPolicy(timeout, maxNumRetries, backoffMultiplier);
+      return this;
+    }
+
+    public Builder setAuth() {
+      this.isAuthTokenEnabled = true;
+      return this;
+    }
+
+    public Builder setCoalesce() {
+      this.isCoalesced = true;
+      return this;
+    }
+
+    public Builder setCompress() {
+      this.isCompressed = true;
+      return this;
+    }
+
+    public Builder setStreaming() {
+      this.isStreaming = true;
+      return this;
+    }
+
+    /**
+     * @param maxAge       in seconds, -1 in order to use the response headers
+     * @param staleIfError in seconds
+     */
+    public Builder setCache(int maxAge, int staleIfError) {
+      this.cachePolicy = new CachePolicy(maxAge, staleIfError);
+      return this;
+    }
+
+    public Builder setStaleWhileRevalidate() {
+      this.isStaleWhileRevalidate = true;
+      return this;
+    }
+
+    public Builder setPriority(RequestPriority priority) {
+      if (priority == null) {
+        throw new NullPointerException("Priority may not be null");
+      }
+      this.priority = priority;
+      return this;
+    }
+
+    public Builder setMock(int statusCode, String path) {
+      this.mock = new MockHolder(statusCode, path);
+      return this;
+    }
+
+    /**
+     * Async call, the last param is the callback
+     */
+    public Builder returnsCallback(Type responseObjectType) {
+      return setReturnType(MethodInfo.ReturnType.VOID, responseObjectType);
+    }
+
+    /**
+     * Async call which returns a cancelable WaspRequest, the last param is the callback
+     */
+    public Builder returnsWaspRequest(Type responseObjectType) {
+      return setReturnType(MethodInfo.ReturnType.REQUEST, responseObjectType);
+    }
+
+    public Builder returnsObservable(Type responseObjectType) {
+      return setReturnType(MethodInfo.ReturnType.OBSERVABLE, responseObjectType);
+    }
+
+    public Builder returnsSync(Type responseObjectType) {
+      return setReturnType(MethodInfo.ReturnType.SYNC, responseObjectType);
+    }
+
+    public Builder addPathParam(String name) {
+      return addParam(MethodInfo.ParamType.PATH, name);
+    }
+
+    public Builder addQueryParam(String name) {
+      return addParam(MethodInfo.ParamType.QUERY, name);
+    }
+
+    public Builder addQueryMapParam() {
+      return addParam(MethodInfo.ParamType.QUERY_MAP, null);
+    }
+
+    public Builder addHeaderParam(String name) {
+      return addParam(MethodInfo.ParamType.HEADER, name);
+    }
+
+    public Builder addFieldParam(String name) {
+      return addParam(MethodInfo.ParamType.FIELD, name);
+    }
+
+    public Builder addFieldMapParam() {
+      return addParam(MethodInfo.ParamType.FIELD_MAP, null);
+    }
+
+    public Builder addBodyParam() {
+      return addParam(MethodInfo.ParamType.BODY, null);
+    }
+
+    public Builder addBodyMapParam() {
+      return addParam(MethodInfo.ParamType.BODY_MAP, null);
+    }
+
+    public Builder addPartParam(String name) {
+      return addParam(MethodInfo.ParamType.PART, name);
+    }
+
+    /**
+     * The argument overrides the priority of the method
+     */
+    public Builder addPriorityParam() {
+      return addParam(MethodInfo.ParamType.PRIORITY, null);
+    }
+
+    public Builder addProgressParam() {
+      return addParam(MethodInfo.ParamType.PROGRESS, null);
+    }
+
+    public ServiceMethod build() {
+      if (httpMethod == null) {
+        throw new NullPointerException("method annotation may not be null");
+      }
+      if (returnType == null) {
+        throw new NullPointerException("Return type may not be null");
+      }
+      return new ServiceMethod(this);
+    }
+
+    private Builder setReturnType(MethodInfo.ReturnType returnType, Type responseObjectType) {
+      this.returnType = returnType;
+      this.responseObjectType = responseObjectType;
+      return this;
+    }
+
+    private Builder addParam(MethodInfo.ParamType type, String name) {
+      paramTypes.add(type);
+      paramNames.add(name);
+      return this;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    String getHttpMethod() {
+      return httpMethod;
+    }
+
+    String getRelativeUrl() {
+      return relativeUrl;
+    }
+
+    String getBaseUrl() {
+      return baseUrl;
+    }
+
+    String getContentType() {
+      return contentType;
+    }
+
+    List<String> getHeaders() {
+      return headers;
+    }
+
+    WaspRetryPolicy getRetryPolicy() {
+      return retryPolicy;
+    }
+
+    MockHolder getMock() {
+      return mock;
+    }
+
+    CachePolicy getCachePolicy() {
+      return cachePolicy;
+    }
+
+    boolean isAuthTokenEnabled() {
+      return isAuthTokenEnabled;
+    }
+
+    boolean isCoalesced() {
+      return isCoalesced;
+    }
+
+    boolean isCompressed() {
+      return isCompressed;
+    }
+
+    boolean isStreaming() {
+      return isStreaming;
+    }
+
+    boolean isStaleWhileRevalidate() {
+      return isStaleWhileRevalidate;
+    }
+
+    RequestPriority getPriority() {
+      return priority;
+    }
+
+    MethodInfo.ReturnType getReturnType() {
+      return returnType;
+    }
+
+    Type getResponseObjectType() {
+      return responseObjectType;
+    }
+
+    List<MethodInfo.ParamType> getParamTypes() {
+      return paramTypes;
+    }
+
+    List<String> getParamNames() {
+      return paramNames;
+    }
+  }
+}
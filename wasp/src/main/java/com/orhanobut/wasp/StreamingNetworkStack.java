@@ -0,0 +1,16 @@
+package com.orhanobut.wasp;
+
+/**
+ * A network stack which can pass the body of the response as a stream, it is used by the
+ * {@link com.orhanobut.wasp.http.Streaming} methods. Other stacks read the whole body.
+ */
+interface StreamingNetworkStack extends NetworkStack {
+
+  /**
+   * Sends the request on the current thread, the caller reads and closes the body.
+   *
+   * @throws java.util.concurrent.ExecutionException which wraps the WaspError for the failed
+   *                                                 requests
+   */
+  ResponseStream openStream(RequestCreator requestCreator) throws Exception;
+}
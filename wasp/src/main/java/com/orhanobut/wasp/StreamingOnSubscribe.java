@@ -0,0 +1,184 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.parsers.ElementReader;
+import com.orhanobut.wasp.parsers.Parser;
+import com.orhanobut.wasp.parsers.StreamingParser;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rx.Observable;
+import rx.Producer;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Emits the elements of a streaming method. The request is sent on the first request of the
+ * subscriber and an element is parsed only when it is requested, the rest of the body waits in
+ * the network buffers. Unsubscribing closes the body.
+ *
+ * <p>If the stack or the parser can not stream, the whole list is parsed first and its elements
+ * are emitted in the same way.
+ */
+final class StreamingOnSubscribe implements Observable.OnSubscribe<Object> {
+
+  private final NetworkStack networkStack;
+  private final RequestCreator requestCreator;
+
+  StreamingOnSubscribe(NetworkStack networkStack, RequestCreator requestCreator) {
+    this.networkStack = networkStack;
+    this.requestCreator = requestCreator;
+  }
+
+  @Override
+  public void call(Subscriber<? super Object> subscriber) {
+    final ElementProducer producer = new ElementProducer(subscriber);
+    subscriber.add(Subscriptions.create(new Action0() {
+      @Override
+      public void call() {
+        producer.close();
+      }
+    }));
+    subscriber.setProducer(producer);
+  }
+
+  private ElementReader<Object> open() throws Exception {
+    requestCreator.log();
+    Parser parser = requestCreator.getParser();
+    if (networkStack instanceof StreamingNetworkStack && parser instanceof StreamingParser) {
+      ResponseStream stream = ((StreamingNetworkStack) networkStack).openStream(requestCreator);
+      stream.getResponse().log();
+      try {
+        return ((StreamingParser) parser).fromBodyElements(
+            stream.getBody(), stream.getCharset(),
+            requestCreator.getMethodInfo().getElementType()
+        );
+      } catch (RuntimeException e) {
+        stream.close();
+        throw e;
+      }
+    }
+    List<?> elements = (List<?>) networkStack.invokeRequest(requestCreator);
+    return new ListElementReader(elements);
+  }
+
+  private final class ElementProducer implements Producer {
+
+    private final Subscriber<? super Object> subscriber;
+
+    /**
+     * Requested and not emitted elements, the thread which changes it from 0 emits them
+     */
+    private final AtomicLong requested = new AtomicLong();
+
+    private volatile ElementReader<Object> reader;
+    private volatile boolean closed;
+
+    ElementProducer(Subscriber<? super Object> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        return;
+      }
+      long current;
+      long next;
+      do {
+        current = requested.get();
+        next = current + n;
+        if (next < 0) {
+          next = Long.MAX_VALUE;
+        }
+      } while (!requested.compareAndSet(current, next));
+      if (current == 0) {
+        emit(next);
+      }
+    }
+
+    /**
+     * Terminal events leave the requested count above 0, so that nothing is emitted afterwards
+     */
+    private void emit(long remaining) {
+      while (true) {
+        long emitted = 0;
+        while (emitted != remaining) {
+          if (subscriber.isUnsubscribed()) {
+            close();
+            return;
+          }
+          Object element;
+          try {
+            if (reader == null) {
+              reader = open();
+              // unsubscribed while the request was sent
+              if (closed) {
+                close();
+                return;
+              }
+            }
+            if (!reader.hasNext()) {
+              close();
+              subscriber.onCompleted();
+              return;
+            }
+            element = reader.next();
+          } catch (Exception e) {
+            close();
+            subscriber.onError(e);
+            return;
+          }
+          subscriber.onNext(element);
+          emitted++;
+        }
+        remaining = requested.addAndGet(-emitted);
+        if (remaining == 0) {
+          return;
+        }
+      }
+    }
+
+    void close() {
+      closed = true;
+      ElementReader<Object> current = reader;
+      if (current == null) {
+        return;
+      }
+      try {
+        current.close();
+      } catch (IOException e) {
+        Logger.d("Unable to close the response body: " + e.getMessage());
+      }
+    }
+  }
+
+  private static final class ListElementReader implements ElementReader<Object> {
+
+    private final Iterator<?> iterator;
+
+    ListElementReader(List<?> elements) {
+      List<?> list = elements != null ? elements : Collections.emptyList();
+      this.iterator = list.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public Object next() {
+      return iterator.next();
+    }
+
+    @Override
+    public void close() {
+      // nothing to release
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.mime.TypedOutput;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.RequestBody;
+
+import java.io.IOException;
+
+import okio.BufferedSink;
+
+/**
+ * Writes the typed body directly to the OkHttp sink, it is not copied into a byte array
+ */
+final class TypedOutputRequestBody extends RequestBody {
+
+  private final TypedOutput body;
+  private final MediaType mediaType;
+
+  TypedOutputRequestBody(TypedOutput body) {
+    this.body = body;
+    this.mediaType = MediaType.parse(body.mimeType());
+  }
+
+  @Override
+  public MediaType contentType() {
+    return mediaType;
+  }
+
+  @Override
+  public long contentLength() throws IOException {
+    return body.length();
+  }
+
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    body.writeTo(sink.outputStream());
+  }
+}
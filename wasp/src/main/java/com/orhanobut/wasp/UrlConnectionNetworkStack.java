@@ -0,0 +1,314 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.mime.TypedByteArray;
+import com.orhanobut.wasp.mime.TypedOutput;
+import com.orhanobut.wasp.utils.WaspRetryPolicy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A NetworkStack implementation which only uses the JDK. Requests are sent with
+ * HttpURLConnection, async requests run on the given executor and they are delivered with the
+ * callback executor of the platform. It is the default network stack when there is no context.
+ *
+ * <p>HttpURLConnection doesn't support PATCH, the priority is not used.
+ */
+public final class UrlConnectionNetworkStack implements StreamingNetworkStack {
+
+  private static final String PROTOCOL_CHARSET = "; charset=UTF-8";
+  private static final int DEFAULT_TIMEOUT_MS = 30000;
+  private static final int BUFFER_SIZE = 4096;
+  private static final byte[] EMPTY_BODY = new byte[0];
+
+  private final ExecutorService executor;
+  private final Platform platform = Platform.get();
+
+  private UrlConnectionNetworkStack(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  public static UrlConnectionNetworkStack newInstance(ExecutorService executor) {
+    if (executor == null) {
+      throw new NullPointerException("ExecutorService may not be null.");
+    }
+    return new UrlConnectionNetworkStack(executor);
+  }
+
+  /**
+   * Creates the stack with a fixed pool of daemon threads
+   */
+  public static UrlConnectionNetworkStack newInstance(int threadPoolSize) {
+    if (threadPoolSize < 1) {
+      throw new IllegalArgumentException("Thread pool size should be at least 1");
+    }
+    return new UrlConnectionNetworkStack(
+        Executors.newFixedThreadPool(threadPoolSize, new ThreadFactory() {
+          private final AtomicInteger count = new AtomicInteger();
+
+          @Override
+          public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Wasp-Network-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        })
+    );
+  }
+
+  @Override
+  public void invokeRequest(final RequestCreator requestCreator,
+                            final InternalCallback<Response> waspCallback) {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          deliverResponse(execute(requestCreator), waspCallback);
+        } catch (ExecutionException e) {
+          deliverError((WaspError) e.getCause(), waspCallback);
+        }
+      }
+    });
+  }
+
+  @Override
+  public Object invokeRequest(RequestCreator requestCreator) throws Exception {
+    Response response = execute(requestCreator);
+    response.log();
+    return response.getResponseObject();
+  }
+
+  @Override
+  public ResponseStream openStream(RequestCreator requestCreator) throws Exception {
+    WaspRetryPolicy retryPolicy = requestCreator.getRetryPolicy();
+    while (true) {
+      long start = platform.elapsedRealtime();
+      HttpURLConnection connection;
+      try {
+        connection = connect(requestCreator, retryPolicy);
+      } catch (SocketTimeoutException e) {
+        if (retryPolicy != null && retryPolicy.retryOnTimeout()) {
+          continue;
+        }
+        throw newError(requestCreator, start, e);
+      } catch (IOException e) {
+        throw newError(requestCreator, start, e);
+      }
+
+      int statusCode = connection.getResponseCode();
+      Response.Builder builder = new Response.Builder()
+          .setRequest(requestCreator)
+          .setStatusCode(statusCode)
+          .setHeaders(getHeaders(connection));
+      if (statusCode < 200 || statusCode > 299) {
+        try {
+          byte[] body = readBody(connection, statusCode);
+          builder.setBody(body, Utils.parseCharset(connection.getContentType()))
+              .setLength(body.length);
+        } finally {
+          connection.disconnect();
+        }
+        builder.setNetworkTime(platform.elapsedRealtime() - start);
+        throw new ExecutionException(new WaspError(builder.build(), "Status code " + statusCode));
+      }
+      Response response = builder
+          .setLength(connection.getContentLength())
+          .setNetworkTime(platform.elapsedRealtime() - start)
+          .build();
+      // closing the stream releases the connection
+      return new ResponseStream(
+          response, connection.getInputStream(), Utils.parseCharset(connection.getContentType())
+      );
+    }
+  }
+
+  /**
+   * Sends the request on the current thread, it is retried as long as the retry policy allows
+   *
+   * @throws ExecutionException which wraps the WaspError for the failed requests
+   */
+  private Response execute(RequestCreator requestCreator) throws ExecutionException {
+    WaspRetryPolicy retryPolicy = requestCreator.getRetryPolicy();
+    while (true) {
+      long start = platform.elapsedRealtime();
+      Response.Builder builder;
+      try {
+        builder = send(requestCreator, retryPolicy, start);
+      } catch (SocketTimeoutException e) {
+        if (retryPolicy != null && retryPolicy.retryOnTimeout()) {
+          continue;
+        }
+        throw newError(requestCreator, start, e);
+      } catch (IOException e) {
+        throw newError(requestCreator, start, e);
+      }
+
+      int statusCode = builder.getStatusCode();
+      if (statusCode < 200 || statusCode > 299) {
+        throw new ExecutionException(new WaspError(builder.build(), "Status code " + statusCode));
+      }
+      try {
+        Object responseObject = Utils.parseBody(
+            requestCreator.getParser(), builder.getBodyData(), builder.getCharset(),
+            requestCreator.getMethodInfo().getResponseObjectType()
+        );
+        builder.setResponseObject(responseObject);
+      } catch (IOException e) {
+        throw new ExecutionException(new WaspError(builder.build(), e.getMessage()));
+      }
+      return builder.build();
+    }
+  }
+
+  private ExecutionException newError(RequestCreator requestCreator, long start, IOException e) {
+    Response response = new Response.Builder()
+        .setRequest(requestCreator)
+        .setNetworkTime(platform.elapsedRealtime() - start)
+        .build();
+    return new ExecutionException(new WaspError(response, e.getMessage()));
+  }
+
+  private Response.Builder send(RequestCreator requestCreator, WaspRetryPolicy retryPolicy,
+                                long start) throws IOException {
+    HttpURLConnection connection = connect(requestCreator, retryPolicy);
+    try {
+      int statusCode = connection.getResponseCode();
+      byte[] body = readBody(connection, statusCode);
+      return new Response.Builder()
+          .setRequest(requestCreator)
+          .setStatusCode(statusCode)
+          .setHeaders(getHeaders(connection))
+          .setBody(body, Utils.parseCharset(connection.getContentType()))
+          .setLength(body.length)
+          .setNetworkTime(platform.elapsedRealtime() - start);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * Opens the connection, writes the request and reads the status, the body is not read yet
+   */
+  private static HttpURLConnection connect(RequestCreator requestCreator,
+                                           WaspRetryPolicy retryPolicy) throws IOException {
+    HttpURLConnection connection =
+        (HttpURLConnection) new URL(requestCreator.getUrl()).openConnection();
+    try {
+      int timeout = retryPolicy != null ? retryPolicy.getCurrentTimeout() : DEFAULT_TIMEOUT_MS;
+      connection.setConnectTimeout(timeout);
+      connection.setReadTimeout(timeout);
+      connection.setUseCaches(false);
+      connection.setDoInput(true);
+      connection.setRequestMethod(requestCreator.getMethod());
+      for (Map.Entry<String, String> entry : requestCreator.getHeaders().entrySet()) {
+        connection.addRequestProperty(entry.getKey(), entry.getValue());
+      }
+      writeBody(connection, requestCreator);
+      connection.getResponseCode();
+      return connection;
+    } catch (IOException e) {
+      connection.disconnect();
+      throw e;
+    }
+  }
+
+  private static void writeBody(HttpURLConnection connection, RequestCreator requestCreator)
+      throws IOException {
+    switch (requestCreator.getMethod()) {
+      case "GET":
+        // Fall through
+      case "HEAD":
+        // Fall through
+      case "DELETE":
+        return;
+      default:
+        break;
+    }
+    TypedOutput body = requestCreator.getBody();
+    if (body == null) {
+      body = new TypedByteArray(requestCreator.getContentType() + PROTOCOL_CHARSET, EMPTY_BODY);
+    }
+    connection.setDoOutput(true);
+    long length = body.length();
+    if (length >= 0 && length <= Integer.MAX_VALUE) {
+      connection.setFixedLengthStreamingMode((int) length);
+    } else {
+      connection.setChunkedStreamingMode(0);
+    }
+    connection.setRequestProperty("Content-Type", body.mimeType());
+    OutputStream out = connection.getOutputStream();
+    try {
+      body.writeTo(out);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Error responses have their body in the error stream, HEAD requests have no body at all
+   */
+  private static byte[] readBody(HttpURLConnection connection, int statusCode)
+      throws IOException {
+    InputStream in = statusCode >= 400 ? connection.getErrorStream() : connection.getInputStream();
+    if (in == null) {
+      return new byte[0];
+    }
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        out.write(buffer, 0, count);
+      }
+      return out.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+
+  private static Map<String, String> getHeaders(HttpURLConnection connection) {
+    Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (Map.Entry<String, List<String>> entry : connection.getHeaderFields().entrySet()) {
+      List<String> values = entry.getValue();
+      // the status line has no name
+      if (entry.getKey() != null && !values.isEmpty()) {
+        headers.put(entry.getKey(), values.get(values.size() - 1));
+      }
+    }
+    return headers;
+  }
+
+
+  private void deliverResponse(final Response response,
+                               final InternalCallback<Response> waspCallback) {
+    platform.getCallbackExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        response.log();
+        waspCallback.onSuccess(response);
+      }
+    });
+  }
+
+  private void deliverError(final WaspError error, final InternalCallback<Response> waspCallback) {
+    platform.getCallbackExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        waspCallback.onError(error);
+      }
+    });
+  }
+}
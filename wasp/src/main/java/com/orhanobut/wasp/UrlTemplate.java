@@ -0,0 +1,154 @@
+package com.orhanobut.wasp;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Relative url which is parsed once into the literal parts and the path param slots,
+ * ie: "/repos/{id}/commits" -> ["/repos/", "/commits"] and ["id"]
+ */
+final class UrlTemplate {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  /**
+   * There is always one more literal than the slots, literals may be empty
+   */
+  private final String[] literals;
+  private final String[] names;
+  private final int literalLength;
+
+  private UrlTemplate(String[] literals, String[] names) {
+    this.literals = literals;
+    this.names = names;
+
+    int length = 0;
+    for (String literal : literals) {
+      length += literal.length();
+    }
+    this.literalLength = length;
+  }
+
+  static UrlTemplate parse(String relativeUrl) {
+    if (relativeUrl == null) {
+      relativeUrl = "";
+    }
+    List<String> literals = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+
+    int start = 0;
+    int length = relativeUrl.length();
+    while (start <= length) {
+      int open = relativeUrl.indexOf('{', start);
+      int close = open == -1 ? -1 : relativeUrl.indexOf('}', open);
+      if (close == -1) {
+        literals.add(relativeUrl.substring(start));
+        break;
+      }
+      literals.add(relativeUrl.substring(start, open));
+      names.add(relativeUrl.substring(open + 1, close));
+      start = close + 1;
+    }
+    return new UrlTemplate(
+        literals.toArray(new String[literals.size()]),
+        names.toArray(new String[names.size()])
+    );
+  }
+
+  /**
+   * @return the number of the path param slots
+   */
+  int getSlotCount() {
+    return names.length;
+  }
+
+  String getSlotName(int index) {
+    return names[index];
+  }
+
+  /**
+   * Creates the full url in one pass.
+   *
+   * @param baseUrl     is prepended to the url
+   * @param values      encoded path values for each slot, a slot without value is kept as it is
+   * @param queryString is appended to the url, it may be empty
+   */
+  String expand(String baseUrl, String[] values, CharSequence queryString) {
+    int capacity = baseUrl.length() + literalLength + queryString.length();
+    for (int i = 0; i < names.length; i++) {
+      String value = values == null ? null : values[i];
+      capacity += value == null ? names[i].length() + 2 : value.length();
+    }
+
+    StringBuilder builder = new StringBuilder(capacity);
+    builder.append(baseUrl);
+    for (int i = 0; i < names.length; i++) {
+      builder.append(literals[i]);
+      String value = values == null ? null : values[i];
+      if (value == null) {
+        builder.append('{').append(names[i]).append('}');
+      } else {
+        builder.append(value);
+      }
+    }
+    builder.append(literals[names.length]);
+    builder.append(queryString);
+    return builder.toString();
+  }
+
+  /**
+   * Encodes the value to be used as a single path segment. Unlike URLEncoder, which is meant for
+   * form encoding, space is encoded as %20 and only the unreserved characters of RFC 3986 are
+   * kept as they are.
+   */
+  static String encodePathSegment(String value) {
+    return encode(value, false);
+  }
+
+  /**
+   * Encodes the query param name or value in the same way as {@code Uri.encode}, which also keeps
+   * "!'()*" as they are.
+   */
+  static String encodeQueryComponent(String value) {
+    return encode(value, true);
+  }
+
+  private static String encode(String value, boolean query) {
+    int length = value.length();
+    int i = 0;
+    while (i < length && isAllowed(value.charAt(i), query)) {
+      i++;
+    }
+    if (i == length) {
+      return value;
+    }
+
+    StringBuilder builder = new StringBuilder(length + 16);
+    builder.append(value, 0, i);
+    byte[] bytes = value.substring(i).getBytes(UTF_8);
+    for (byte b : bytes) {
+      char c = (char) (b & 0xFF);
+      if (isAllowed(c, query)) {
+        builder.append(c);
+        continue;
+      }
+      builder.append('%')
+          .append(HEX_DIGITS[(c >> 4) & 0xF])
+          .append(HEX_DIGITS[c & 0xF]);
+    }
+    return builder.toString();
+  }
+
+  private static boolean isAllowed(char c, boolean query) {
+    return isUnreserved(c) || (query && "!'()*".indexOf(c) != -1);
+  }
+
+  private static boolean isUnreserved(char c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '-' || c == '.' || c == '_' || c == '~';
+  }
+}
@@ -1,7 +1,18 @@
 package com.orhanobut.wasp;
 
+import com.orhanobut.wasp.parsers.Parser;
+import com.orhanobut.wasp.parsers.StreamingParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+
 final class Utils {
 
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
   private Utils() {
     //no instance
   }
@@ -16,6 +27,46 @@ final class Utils {
     return false;
   }
 
+  /**
+   * Streaming parsers read the body from the network buffer, the others require a String
+   */
+  @SuppressWarnings("unchecked")
+  static <T> T parseBody(Parser parser, byte[] data, Charset charset, Type type)
+      throws IOException {
+    if (parser instanceof StreamingParser) {
+      return ((StreamingParser) parser).fromBody(new ByteArrayInputStream(data), charset, type);
+    }
+    return parser.fromBody(new String(data, charset), type);
+  }
+
+  /**
+   * Parses the body from the network stream, it requires a streaming parser
+   */
+  static <T> T parseBody(StreamingParser parser, InputStream in, Charset charset, Type type)
+      throws IOException {
+    return parser.fromBody(in, charset, type);
+  }
+
+  /**
+   * @return the charset param of the content type, UTF-8 if it is missing or unknown
+   */
+  static Charset parseCharset(String contentType) {
+    if (contentType == null) {
+      return UTF_8;
+    }
+    for (String param : contentType.split(";")) {
+      String value = param.trim();
+      if (value.regionMatches(true, 0, "charset=", 0, "charset=".length())) {
+        try {
+          return Charset.forName(value.substring("charset=".length()).replace("\"", ""));
+        } catch (IllegalArgumentException e) {
+          return UTF_8;
+        }
+      }
+    }
+    return UTF_8;
+  }
+
   public static void checkRx() {
     if (!hasRxJavaOnClasspath()) {
       throw new NoClassDefFoundError("RxJava is not on classpath, "
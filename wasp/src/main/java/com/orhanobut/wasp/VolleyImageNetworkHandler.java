@@ -10,6 +10,10 @@ import com.android.volley.VolleyError;
 import com.android.volley.toolbox.HttpHeaderParser;
 import com.android.volley.toolbox.ImageRequest;
 import com.android.volley.toolbox.Volley;
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
+import com.orhanobut.wasp.utils.LogLevel;
+import com.orhanobut.wasp.utils.RequestPriority;
 import com.orhanobut.wasp.utils.StringUtils;
 import com.orhanobut.wasp.utils.WaspHttpStack;
 
@@ -18,10 +22,22 @@ import java.io.UnsupportedEncodingException;
 public class VolleyImageNetworkHandler implements InternalImageHandler.ImageNetworkHandler {
 
   private final RequestQueue requestQueue;
+  private final Parser parser;
+  private final LogLevel logLevel;
 
   public VolleyImageNetworkHandler(Context context, WaspHttpStack stack) {
     //    requestQueue = Volley.newRequestQueue(context);
-    requestQueue = Volley.newRequestQueue(context, stack.getHttpStack());
+    this(Volley.newRequestQueue(context, stack.getHttpStack()), new GsonParser(), LogLevel.NONE);
+  }
+
+  /**
+   * @param parser    parses the error bodies of the image requests
+   * @param logLevel  is the log level of the wasp which loads the images
+   */
+  VolleyImageNetworkHandler(RequestQueue requestQueue, Parser parser, LogLevel logLevel) {
+    this.requestQueue = requestQueue;
+    this.parser = parser;
+    this.logLevel = logLevel;
   }
 
   @Override
@@ -30,6 +46,7 @@ public class VolleyImageNetworkHandler implements InternalImageHandler.ImageNetw
                            final InternalCallback<InternalImageHandler.Container> waspCallback) {
 
     final String url = waspImageCreator.getUrl();
+    final RequestPriority priority = waspImageCreator.getPriority();
     Logger.d("REQUEST IMAGE -> url : " + url);
     Request<Bitmap> request = new ImageRequest(
         url,
@@ -50,7 +67,10 @@ public class VolleyImageNetworkHandler implements InternalImageHandler.ImageNetw
         new com.android.volley.Response.ErrorListener() {
           @Override
           public void onErrorResponse(VolleyError error) {
-            Response.Builder builder = new Response.Builder().setUrl(url);
+            Response.Builder builder = new Response.Builder()
+                .setUrl(url)
+                .setParser(parser)
+                .setLogLevel(logLevel);
             String errorMessage = null;
 
             if (error != null) {
@@ -78,7 +98,15 @@ public class VolleyImageNetworkHandler implements InternalImageHandler.ImageNetw
             waspCallback.onError(new WaspError(builder.build(), errorMessage));
           }
         }
-    );
+    ) {
+      @Override
+      public Priority getPriority() {
+        if (priority == null) {
+          return super.getPriority();
+        }
+        return VolleyNetworkStack.getPriority(priority);
+      }
+    };
     request.setTag(url);
     requestQueue.add(request);
   }
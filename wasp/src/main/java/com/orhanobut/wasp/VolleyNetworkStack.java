@@ -1,7 +1,5 @@
 package com.orhanobut.wasp;
 
-import android.content.Context;
-
 import com.android.volley.AuthFailureError;
 import com.android.volley.NetworkResponse;
 import com.android.volley.ParseError;
@@ -10,13 +8,16 @@ import com.android.volley.RequestQueue;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.HttpHeaderParser;
 import com.android.volley.toolbox.RequestFuture;
-import com.android.volley.toolbox.Volley;
-import com.orhanobut.wasp.utils.WaspHttpStack;
+import com.orhanobut.wasp.mime.TypedByteArray;
+import com.orhanobut.wasp.mime.TypedOutput;
+import com.orhanobut.wasp.utils.RequestPriority;
 import com.orhanobut.wasp.utils.WaspRetryPolicy;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -35,14 +36,6 @@ public final class VolleyNetworkStack implements NetworkStack {
     this.requestQueue = requestQueue;
   }
 
-  private VolleyNetworkStack(Context context, WaspHttpStack stack) {
-    requestQueue = Volley.newRequestQueue(context, stack.getHttpStack());
-  }
-
-  static VolleyNetworkStack newInstance(Context context, WaspHttpStack stack) {
-    return new VolleyNetworkStack(context, stack);
-  }
-
   static VolleyNetworkStack newInstance(RequestQueue requestQueue) {
     return new VolleyNetworkStack(requestQueue);
   }
@@ -61,20 +54,21 @@ public final class VolleyNetworkStack implements NetworkStack {
         future.onResponse(response.getResponseObject());
       }
     };
+    WaspRetryPolicy policy = requestCreator.getRetryPolicy();
+    if (policy != null) {
+      request.setRetryPolicy(policy);
+    }
     future.setRequest(request);
     addToQueue(request);
-    int timeout = 30000;
-    if (requestCreator.getRetryPolicy() != null) {
-      timeout = requestCreator.getRetryPolicy().getCurrentTimeout();
-    }
-    return future.get(timeout, TimeUnit.MILLISECONDS);
+    // volley retries the request, the future waits for all of the attempts
+    return future.get(ResponseFuture.getTimeout(requestCreator), TimeUnit.MILLISECONDS);
   }
 
   private void addToQueue(final RequestCreator waspRequest,
                           InternalCallback<Response> waspCallback) {
     String url = waspRequest.getUrl();
     int method = getMethod(waspRequest.getMethod());
-    final VolleyListener listener = new VolleyListener(waspCallback, url);
+    final VolleyListener listener = new VolleyListener(waspCallback, waspRequest);
     Request<Response> request = new VolleyRequest(method, url, waspRequest, listener) {
       @Override
       protected void deliverResponse(Response response) {
@@ -110,6 +104,19 @@ public final class VolleyNetworkStack implements NetworkStack {
     }
   }
 
+  static Request.Priority getPriority(RequestPriority priority) {
+    switch (priority) {
+      case LOW:
+        return Request.Priority.LOW;
+      case HIGH:
+        return Request.Priority.HIGH;
+      case IMMEDIATE:
+        return Request.Priority.IMMEDIATE;
+      default:
+        return Request.Priority.NORMAL;
+    }
+  }
+
   private <T> void addToQueue(Request<T> request) {
     getRequestQueue().add(request);
   }
@@ -129,11 +136,11 @@ public final class VolleyNetworkStack implements NetworkStack {
       com.android.volley.Response.ErrorListener {
 
     private final InternalCallback waspCallback;
-    private final String url;
+    private final RequestCreator waspRequest;
 
-    VolleyListener(InternalCallback waspCallback, String url) {
+    VolleyListener(InternalCallback waspCallback, RequestCreator waspRequest) {
       this.waspCallback = waspCallback;
-      this.url = url;
+      this.waspRequest = waspRequest;
     }
 
     @Override
@@ -144,7 +151,7 @@ public final class VolleyNetworkStack implements NetworkStack {
 
     @Override
     public void onErrorResponse(VolleyError error) {
-      Response.Builder builder = new Response.Builder().setUrl(url);
+      Response.Builder builder = new Response.Builder().setRequest(waspRequest);
       String errorMessage = null;
 
       if (error != null) {
@@ -153,17 +160,14 @@ public final class VolleyNetworkStack implements NetworkStack {
 
         if (error.networkResponse != null) {
           NetworkResponse response = error.networkResponse;
-          String body;
           try {
-            body = new String(
-                error.networkResponse.data, HttpHeaderParser.parseCharset(response.headers)
-            );
-          } catch (UnsupportedEncodingException e) {
-            body = "Unable to parse error body!!!!!";
+            Charset charset = Charset.forName(HttpHeaderParser.parseCharset(response.headers));
+            builder.setBody(response.data, charset);
+          } catch (IllegalArgumentException e) {
+            builder.setBody("Unable to parse error body!!!!!");
           }
           builder.setStatusCode(response.statusCode)
               .setHeaders(response.headers)
-              .setBody(body)
               .setLength(response.data.length);
         }
       }
@@ -172,25 +176,37 @@ public final class VolleyNetworkStack implements NetworkStack {
     }
   }
 
-  private static class VolleyRequest extends Request<Response> {
+  static class VolleyRequest extends Request<Response> {
 
     /**
      * Charset for request.
      */
     private static final String PROTOCOL_CHARSET = "UTF-8";
 
-    private final String requestBody;
-    private final String url;
+    private final TypedOutput requestBody;
     private final Type responseObjectType;
     private final RequestCreator waspRequest;
+    private final Priority priority;
+
+    private byte[] writtenBody;
 
     public VolleyRequest(int method, String url, RequestCreator request,
                          final com.android.volley.Response.ErrorListener listener) {
       super(method, url, listener);
-      this.url = url;
       this.requestBody = request.getBody();
       this.responseObjectType = request.getMethodInfo().getResponseObjectType();
       this.waspRequest = request;
+      this.priority = VolleyNetworkStack.getPriority(request.getPriority());
+      // responses of the cached methods are stored by wasp with their parsed objects
+      setShouldCache(!request.getMethodInfo().isCached());
+    }
+
+    /**
+     * Volley dispatches the pending requests with higher priority first
+     */
+    @Override
+    public Priority getPriority() {
+      return priority;
     }
 
     @Override
@@ -206,16 +222,30 @@ public final class VolleyNetworkStack implements NetworkStack {
     @Override
     @SuppressWarnings("unchecked")
     protected com.android.volley.Response parseNetworkResponse(NetworkResponse response) {
+      // volley revalidates its own cache entries and passes their data with 304. The cached
+      // methods are not cached by volley, their 304 has no body and the caching stack delivers
+      // the cached object.
+      if (response.statusCode == HttpURLConnection.HTTP_NOT_MODIFIED
+          && waspRequest.getMethodInfo().isCached()) {
+        Response waspResponse = new Response.Builder()
+            .setRequest(waspRequest)
+            .setStatusCode(response.statusCode)
+            .setHeaders(response.headers)
+            .setNetworkTime(response.networkTimeMs)
+            .build();
+        return com.android.volley.Response.success(waspResponse, null);
+      }
       try {
         byte[] data = response.data;
-        String body = new String(data, HttpHeaderParser.parseCharset(response.headers));
-        Object responseObject = Wasp.getParser().fromBody(body, responseObjectType);
+        Charset charset = Charset.forName(HttpHeaderParser.parseCharset(response.headers));
+        Object responseObject =
+            Utils.parseBody(waspRequest.getParser(), data, charset, responseObjectType);
 
         Response waspResponse = new Response.Builder()
-            .setUrl(url)
+            .setRequest(waspRequest)
             .setStatusCode(response.statusCode)
             .setHeaders(response.headers)
-            .setBody(body)
+            .setBody(data, charset)
             .setResponseObject(responseObject)
             .setLength(data.length)
             .setNetworkTime(response.networkTimeMs)
@@ -223,15 +253,26 @@ public final class VolleyNetworkStack implements NetworkStack {
 
         return com.android.volley.Response.success(waspResponse,
             HttpHeaderParser.parseCacheHeaders(response));
-      } catch (UnsupportedEncodingException e) {
+      } catch (IllegalArgumentException e) {
+        // unknown charset
         return com.android.volley.Response.error(new ParseError(e));
       } catch (IOException e) {
         return com.android.volley.Response.error(new ParseError(e));
       }
     }
 
+    /**
+     * @return the body which can be streamed by the http stack, null if there is none
+     */
+    TypedOutput getTypedBody() {
+      return requestBody;
+    }
+
     @Override
     public String getBodyContentType() {
+      if (requestBody != null) {
+        return requestBody.mimeType();
+      }
       return String.format(
           "%1$s; charset=%2$s",
           waspRequest.getContentType(),
@@ -239,27 +280,35 @@ public final class VolleyNetworkStack implements NetworkStack {
       );
     }
 
-    @Override
-    protected Map<String, String> getParams() throws AuthFailureError {
-      return waspRequest.getFieldParams();
-    }
-
     @Override
     public byte[] getBody() throws AuthFailureError {
-      byte[] body;
+      if (requestBody == null) {
+        return super.getBody();
+      }
+      // Volley asks the body for each attempt, encoded bodies are returned without copying
+      if (requestBody instanceof TypedByteArray) {
+        return ((TypedByteArray) requestBody).getBytes();
+      }
+      // the http stacks other than OkHttpStack require the whole body, e.g. gzip and multipart
+      // bodies are written once and kept for retries
+      if (writtenBody != null) {
+        return writtenBody;
+      }
+      TypedOutput body = requestBody;
+      if (body instanceof ProgressTypedOutput) {
+        // copying into memory is not the upload progress
+        body = ((ProgressTypedOutput) body).getBody();
+      }
       try {
-        body = requestBody == null ? null : requestBody.getBytes(PROTOCOL_CHARSET);
-      } catch (UnsupportedEncodingException uee) {
-        Logger.wtf("Unsupported Encoding while trying to get the bytes of %s using %s"
-                + requestBody
-                + PROTOCOL_CHARSET
-        );
+        long length = body.length();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length > 0 ? (int) length : 32);
+        body.writeTo(out);
+        writtenBody = out.toByteArray();
+        return writtenBody;
+      } catch (IOException e) {
+        Logger.e("Body could not be written: " + e.getMessage());
         return null;
       }
-      if (body == null) {
-        return super.getBody();
-      }
-      return body;
     }
   }
 
@@ -1,7 +1,6 @@
 package com.orhanobut.wasp;
 
 import android.content.Context;
-import android.text.TextUtils;
 
 import com.orhanobut.wasp.parsers.GsonParser;
 import com.orhanobut.wasp.parsers.Parser;
@@ -9,95 +8,235 @@ import com.orhanobut.wasp.utils.LogLevel;
 import com.orhanobut.wasp.utils.NetworkMode;
 import com.orhanobut.wasp.utils.RequestInterceptor;
 import com.orhanobut.wasp.utils.SSLUtils;
+import com.orhanobut.wasp.utils.StringUtils;
 import com.orhanobut.wasp.utils.WaspHttpStack;
 
+import java.io.File;
 import java.net.CookieHandler;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
 import java.net.CookieStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLSocketFactory;
 
 public class Wasp {
 
-  private static Context context;
-  private static LogLevel logLevel;
-  private static Parser parser;
-  private static WaspHttpStack httpStack;
+  private static volatile boolean isLogEnabled;
+  private static volatile Parser lastParser;
+  private static Wasp imageWasp;
+
+  private static ExecutorService warmUpExecutor;
 
   private final Builder builder;
+  private final MethodInfoCache methodInfoCache;
+  private final Parser parser;
+  private final boolean isResponseBodyDiscarded;
+  private final LogLevel logLevel;
+  private NetworkStack coalescingNetworkStack;
+  private ResponseCache responseCache;
+  private ImageHandler imageHandler;
 
   private Wasp(Builder builder) {
     this.builder = builder;
-
-    logLevel = builder.getLogLevel();
-    context = builder.getContext();
-    parser = builder.getParser();
-    httpStack = builder.getWaspHttpStack();
+    this.methodInfoCache = new MethodInfoCache(builder.getContext());
+    this.parser = builder.getParser();
+    this.isResponseBodyDiscarded = builder.isResponseBodyDiscarded();
+    this.logLevel = builder.getLogLevel();
+
+    // a later wasp without logging doesn't silence the earlier ones
+    if (logLevel != LogLevel.NONE) {
+      isLogEnabled = true;
+    }
+    lastParser = parser;
+    // images are loaded with volley, they are not available without the context
+    if (builder.getContext() != null) {
+      Image.offer(this);
+    }
   }
 
   /**
    * It is used for the parse operations.
+   *
+   * @deprecated services use the parser of the wasp which created them, this is the parser of
+   * the last built wasp
    */
+  @Deprecated
   public static Parser getParser() {
-    if (parser == null) {
+    if (lastParser == null) {
       throw new NullPointerException("Wasp.Builder must be called first");
     }
-    return parser;
+    return lastParser;
   }
 
-  static LogLevel getLogLevel() {
-    return logLevel;
+  /**
+   * @return true if any wasp logs, the requests and the responses check their own log level
+   */
+  static boolean isLogEnabled() {
+    return isLogEnabled;
   }
 
+  /**
+   * Creates the implementation of the service. If the service is processed by wasp-compiler,
+   * the generated implementation is used, otherwise a proxy is created.
+   */
   @SuppressWarnings("unchecked")
   public <T> T create(Class<T> service) {
+    validateService(service);
+    NetworkHandler handler = NetworkHandler.newInstance(
+        service, builder, parser, isResponseBodyDiscarded,
+        methodInfoCache, getCoalescingNetworkStack(), getResponseCache()
+    );
+    return (T) handler.getServiceInstance();
+  }
+
+  /**
+   * Parses the methods of the given services on a background thread, otherwise each method is
+   * parsed on its first invocation. Generated services are only loaded since they don't require
+   * any parsing. Invalid methods are logged here and they fail again when they are invoked.
+   */
+  public void warmUp(final Class<?>... services) {
+    if (services == null) {
+      throw new NullPointerException("services may not be null");
+    }
+    for (Class<?> service : services) {
+      validateService(service);
+    }
+    getWarmUpExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        for (Class<?> service : services) {
+          try {
+            if (NetworkHandler.loadGeneratedService(service) == null) {
+              methodInfoCache.parse(service);
+            }
+          } catch (RuntimeException e) {
+            Logger.e("Warm up failed for " + service.getName() + ": " + e.getMessage());
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * The image queues and the memory cache are created on the first image request
+   */
+  private synchronized ImageHandler getImageHandler() {
+    if (imageHandler == null) {
+      imageHandler = new InternalImageHandler(
+          new BitmapWaspCache(
+              BitmapWaspCache.getDefaultMaxSize(), builder.getImageCacheConcurrencyLevel()
+          ),
+          new VolleyImageNetworkHandler(
+              builder.getRequestQueues().getImageQueue(), parser, logLevel
+          )
+      );
+    }
+    return imageHandler;
+  }
+
+  private synchronized ImageHandler peekImageHandler() {
+    return imageHandler;
+  }
+
+  /**
+   * Services which are created by the same wasp share the in flight requests
+   */
+  private synchronized NetworkStack getCoalescingNetworkStack() {
+    if (coalescingNetworkStack == null) {
+      coalescingNetworkStack = new CoalescingNetworkStack(builder.getNetworkStack());
+    }
+    return coalescingNetworkStack;
+  }
+
+  /**
+   * Services which are created by the same wasp share the cached responses, wasp instances share
+   * the ones of the same directory. Responses are kept only in memory if there is no context.
+   */
+  private synchronized ResponseCache getResponseCache() {
+    if (responseCache == null) {
+      Context context = builder.getContext();
+      File directory = context != null
+          ? new File(context.getCacheDir(), ResponseCache.DIRECTORY) : null;
+      responseCache = ResponseCache.forDirectory(directory, builder.getDiskCacheSize());
+    }
+    return responseCache;
+  }
+
+  MethodInfoCache getMethodInfoCache() {
+    return methodInfoCache;
+  }
+
+  private static void validateService(Class<?> service) {
     if (service == null) {
       throw new NullPointerException("service param may not be null");
     }
     if (!service.isInterface()) {
       throw new IllegalArgumentException("Only interface type is supported");
     }
-    NetworkHandler handler = NetworkHandler.newInstance(service, builder);
-    return (T) handler.getProxyClass();
+  }
+
+  private static synchronized ExecutorService getWarmUpExecutor() {
+    if (warmUpExecutor == null) {
+      warmUpExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "Wasp-WarmUp");
+          thread.setDaemon(true);
+          thread.setPriority(Thread.MIN_PRIORITY);
+          return thread;
+        }
+      });
+    }
+    return warmUpExecutor;
   }
 
   /**
-   * Initiate download and load image process
+   * Initiate download and load image process. Images are loaded by the first wasp which is
+   * built with a context, later wasps don't replace it.
    */
   public static class Image {
 
-    private static ImageHandler imageHandler;
-
     public static ImageCreator.Builder from(String path) {
-      if (TextUtils.isEmpty(path)) {
+      if (StringUtils.isEmpty(path)) {
         throw new IllegalArgumentException("Path cannot be empty or null");
       }
-      return new ImageCreator.Builder()
-          .setImageHandler(getImageHandler())
-          .from(path);
-    }
-
-    private static ImageHandler getImageHandler() {
-      if (context == null) {
+      Wasp wasp = getImageWasp();
+      if (wasp == null) {
         throw new NullPointerException("Wasp.Builder should be instantiated first");
       }
-      if (imageHandler == null) {
-        imageHandler = new InternalImageHandler(
-            new BitmapWaspCache(), new VolleyImageNetworkHandler(context, httpStack)
-        );
-      }
-      return imageHandler;
+      return new ImageCreator.Builder()
+          .setImageHandler(wasp.getImageHandler())
+          .setLogLevel(wasp.logLevel)
+          .from(path);
     }
 
     public static void clearCache() {
+      Wasp wasp = getImageWasp();
+      ImageHandler imageHandler = wasp != null ? wasp.peekImageHandler() : null;
       if (imageHandler == null) {
         return;
       }
       imageHandler.clearCache();
     }
 
+    static void offer(Wasp wasp) {
+      synchronized (Image.class) {
+        if (imageWasp == null) {
+          imageWasp = wasp;
+        }
+      }
+    }
+
+    private static Wasp getImageWasp() {
+      synchronized (Image.class) {
+        return imageWasp;
+      }
+    }
+
   }
 
   /**
@@ -106,6 +245,9 @@ public class Wasp {
   @SuppressWarnings("unused")
   public static class Builder {
 
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    static final int DEFAULT_IMAGE_CACHE_CONCURRENCY_LEVEL = 1;
+
     private String endPointUrl;
     private LogLevel logLevel;
     private NetworkMode networkMode;
@@ -117,6 +259,16 @@ public class Wasp {
     private HostnameVerifier hostnameVerifier;
     private SSLSocketFactory sslSocketFactory;
     private CookieHandler cookieHandler;
+    private boolean isRequestCoalescingEnabled;
+    private boolean isOkHttpNetworkStackEnabled;
+    private int restThreadPoolSize = RequestQueues.DEFAULT_REST_POOL_SIZE;
+    private int imageThreadPoolSize = RequestQueues.DEFAULT_IMAGE_POOL_SIZE;
+    private boolean isDiskCacheShared;
+    private RequestQueues requestQueues;
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+    private int diskCacheSize = RequestQueues.DEFAULT_DISK_CACHE_SIZE;
+    private int imageCacheConcurrencyLevel = DEFAULT_IMAGE_CACHE_CONCURRENCY_LEVEL;
+    private boolean isResponseBodyDiscarded;
 
     public Builder(Context context) {
       if (context == null) {
@@ -125,6 +277,14 @@ public class Wasp {
       this.context = context;
     }
 
+    /**
+     * Creates a builder which doesn't depend on android, e.g. for the plain JVM. Requests are
+     * sent with {@link UrlConnectionNetworkStack} unless another network stack is set. Images,
+     * mock files and pinned certificates require a context, they are not available.
+     */
+    public Builder() {
+    }
+
     public Builder setEndpoint(String url) {
       if (url == null || url.trim().length() == 0) {
         throw new NullPointerException("End point url may not be null or empty");
@@ -173,6 +333,7 @@ public class Wasp {
       if (sslSocketFactory != null) {
         throw new IllegalStateException("Only one type of trust certificate method can be used!");
       }
+      checkContext("Pinned certificates");
       this.sslSocketFactory = SSLUtils.getPinnedCertSslSocketFactory(
           context, keyStoreRawResId, keyStorePassword
       );
@@ -259,14 +420,167 @@ public class Wasp {
       return this;
     }
 
+    /**
+     * Identical GET and HEAD requests which are in flight at the same time share one network
+     * call and its response. It can be enabled per method with {@code @Coalesce} as well.
+     */
+    @SuppressWarnings("unused")
+    public Builder enableRequestCoalescing() {
+      this.isRequestCoalescingEnabled = true;
+      return this;
+    }
+
+    boolean isRequestCoalescingEnabled() {
+      return isRequestCoalescingEnabled;
+    }
+
+    /**
+     * Requests are sent directly with the OkHttpClient of the WaspOkHttpStack instead of Volley.
+     * Certificate and cookie settings are applied to that client as well.
+     */
+    @SuppressWarnings("unused")
+    public Builder useOkHttpNetworkStack() {
+      this.isOkHttpNetworkStackEnabled = true;
+      return this;
+    }
+
+    /**
+     * Sets the number of the network threads which are used by the REST requests
+     */
+    @SuppressWarnings("unused")
+    public Builder setRestThreadPoolSize(int size) {
+      if (size < 1) {
+        throw new IllegalArgumentException("Thread pool size should be at least 1");
+      }
+      this.restThreadPoolSize = size;
+      return this;
+    }
+
+    /**
+     * Sets the number of the network threads which are used by the image requests
+     */
+    @SuppressWarnings("unused")
+    public Builder setImageThreadPoolSize(int size) {
+      if (size < 1) {
+        throw new IllegalArgumentException("Thread pool size should be at least 1");
+      }
+      this.imageThreadPoolSize = size;
+      return this;
+    }
+
+    /**
+     * REST and image responses are stored in the same disk cache instead of separate directories
+     */
+    @SuppressWarnings("unused")
+    public Builder shareDiskCache() {
+      this.isDiskCacheShared = true;
+      return this;
+    }
+
+    /**
+     * Bodies of the {@code @Compress} methods which are smaller than the given size in bytes are
+     * sent without compression, since gzip doesn't pay off for them. Default is 1024 bytes.
+     */
+    @SuppressWarnings("unused")
+    public Builder setCompressionThreshold(int bytes) {
+      if (bytes < 0) {
+        throw new IllegalArgumentException("Compression threshold may not be negative");
+      }
+      this.compressionThreshold = bytes;
+      return this;
+    }
+
+    int getCompressionThreshold() {
+      return compressionThreshold;
+    }
+
+    /**
+     * Bodies of the successful responses are dropped once they are parsed, so that the responses
+     * which are kept only hold the parsed objects. {@code Response.getBody()} returns null for
+     * them. Bodies are still kept when they are logged and for the errors. OkHttpNetworkStack
+     * parses them directly from the network with a streaming parser, unless they are cached.
+     */
+    @SuppressWarnings("unused")
+    public Builder discardResponseBody() {
+      this.isResponseBodyDiscarded = true;
+      return this;
+    }
+
+    boolean isResponseBodyDiscarded() {
+      return isResponseBodyDiscarded;
+    }
+
+    /**
+     * Sets the maximum size in bytes of each disk cache: the REST and the image caches of Volley
+     * and the response cache of the {@code @Cache} methods. Default is 5 MB.
+     */
+    @SuppressWarnings("unused")
+    public Builder setDiskCacheSize(int bytes) {
+      if (bytes < 1) {
+        throw new IllegalArgumentException("Disk cache size should be at least 1 byte");
+      }
+      this.diskCacheSize = bytes;
+      return this;
+    }
+
+    int getDiskCacheSize() {
+      return diskCacheSize;
+    }
+
+    /**
+     * Splits the memory cache of the images into the given number of segments which are locked
+     * separately, so that the image lookups of the main thread and the decode callbacks don't
+     * wait for each other. Each segment evicts its own least recently used images. Default is 1,
+     * a single exact LRU.
+     *
+     * <p>The cache may use 1/8 of the heap and each segment gets an equal share of it. A bitmap
+     * which is larger than the share of its segment is not kept in memory, e.g. with 64 MB of
+     * heap and level 4 the bitmaps may be at most 2 MB. Keep the level low for large images.
+     */
+    @SuppressWarnings("unused")
+    public Builder setImageCacheConcurrencyLevel(int level) {
+      if (level < 1) {
+        throw new IllegalArgumentException("Concurrency level should be at least 1");
+      }
+      this.imageCacheConcurrencyLevel = level;
+      return this;
+    }
+
+    int getImageCacheConcurrencyLevel() {
+      return imageCacheConcurrencyLevel;
+    }
+
+    RequestQueues getRequestQueues() {
+      if (requestQueues == null) {
+        checkContext("Volley");
+        requestQueues = new RequestQueues(
+            context, getWaspHttpStack().getHttpStack(),
+            restThreadPoolSize, imageThreadPoolSize, isDiskCacheShared, diskCacheSize
+        );
+      }
+      return requestQueues;
+    }
+
     public Builder setNetworkStack(NetworkStack networkStack) {
       this.networkStack = networkStack;
       return this;
     }
 
     public NetworkStack getNetworkStack() {
+      if (networkStack == null && isOkHttpNetworkStackEnabled) {
+        WaspHttpStack stack = getWaspHttpStack();
+        if (!(stack instanceof WaspOkHttpStack)) {
+          throw new IllegalStateException("OkHttpNetworkStack requires WaspOkHttpStack");
+        }
+        networkStack = OkHttpNetworkStack.newInstance(
+            ((WaspOkHttpStack) stack).getHttpStack().getClient()
+        );
+      }
+      if (networkStack == null && context == null) {
+        networkStack = UrlConnectionNetworkStack.newInstance(restThreadPoolSize);
+      }
       if (networkStack == null) {
-        networkStack = VolleyNetworkStack.newInstance(getContext(), getWaspHttpStack());
+        networkStack = VolleyNetworkStack.newInstance(getRequestQueues().getRestQueue());
       }
       return networkStack;
     }
@@ -274,5 +588,11 @@ public class Wasp {
     public Wasp build() {
       return new Wasp(this);
     }
+
+    private void checkContext(String feature) {
+      if (context == null) {
+        throw new IllegalStateException(feature + " requires the Builder with a Context");
+      }
+    }
   }
 }
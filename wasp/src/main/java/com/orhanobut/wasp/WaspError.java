@@ -1,8 +1,9 @@
 package com.orhanobut.wasp;
 
-import android.text.TextUtils;
-
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
 import com.orhanobut.wasp.utils.LogLevel;
+import com.orhanobut.wasp.utils.StringUtils;
 
 import java.lang.reflect.Type;
 
@@ -16,7 +17,7 @@ public class WaspError extends Throwable {
   public WaspError(Response response, String errorMessage) {
     this.response = response;
     this.errorMessage = errorMessage;
-    this.logLevel = Wasp.getLogLevel();
+    this.logLevel = response != null ? response.getLogLevel() : LogLevel.NONE;
   }
 
   /**
@@ -46,17 +47,36 @@ public class WaspError extends Throwable {
     if (response == null) {
       return null;
     }
-    String body = response.getBody();
-    if (TextUtils.isEmpty(body)) {
-      return null;
-    }
     try {
-      return Wasp.getParser().fromBody(response.getBody(), type);
+      // raw bodies are parsed without decoding them into a String
+      byte[] data = response.getBodyData();
+      if (data != null) {
+        return data.length == 0
+            ? null : Utils.parseBody(getParser(), data, response.getCharset(), type);
+      }
+      String body = response.getBody();
+      if (StringUtils.isEmpty(body)) {
+        return null;
+      }
+      return getParser().fromBody(body, type);
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
   }
 
+  /**
+   * Responses which don't belong to a request are parsed with the parser of the last wasp, or
+   * with the default parser if there is no wasp yet
+   */
+  @SuppressWarnings("deprecation")
+  private Parser getParser() {
+    Parser parser = response.getParser();
+    if (parser == null) {
+      parser = Wasp.getParser();
+    }
+    return parser != null ? parser : new GsonParser();
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
@@ -43,6 +43,7 @@ public class WaspOkHttpStack implements WaspHttpStack<OkHttpStack> {
   @Override
   public void setHostnameVerifier(HostnameVerifier hostnameVerifier) {
     okHttpStack.getClient().setHostnameVerifier(hostnameVerifier);
+    okHttpStack.invalidate();
   }
 
   /**
@@ -51,6 +52,7 @@ public class WaspOkHttpStack implements WaspHttpStack<OkHttpStack> {
   @Override
   public void setSslSocketFactory(SSLSocketFactory sslSocketFactory) {
     okHttpStack.getClient().setSslSocketFactory(sslSocketFactory);
+    okHttpStack.invalidate();
   }
 
   /**
@@ -59,6 +61,7 @@ public class WaspOkHttpStack implements WaspHttpStack<OkHttpStack> {
   @Override
   public void setCookieHandler(CookieHandler cookieHandler) {
     okHttpStack.getClient().setCookieHandler(cookieHandler);
+    okHttpStack.invalidate();
   }
 
 }
\ No newline at end of file
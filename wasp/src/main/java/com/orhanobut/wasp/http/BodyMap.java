@@ -8,7 +8,8 @@ import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 /**
- * Used to define the body map for the request
+ * Used to define the body map for the request. The map is written by the parser while the request
+ * is sent, values are escaped in the same way as {@link Body}.
  */
 @Documented
 @Target(PARAMETER)
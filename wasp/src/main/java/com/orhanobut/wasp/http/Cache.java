@@ -0,0 +1,27 @@
+package com.orhanobut.wasp.http;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Caches the response of a GET request. While the response is fresh, it is delivered from the
+ * memory or the disk without a network call, the parsed object is kept in memory and it is not
+ * parsed again. Responses with {@code Cache-Control: no-store} are never cached.
+ *
+ * <p>{@code maxAge} is the freshness in seconds, if it is not set the {@code max-age} of
+ * {@code Cache-Control} or {@code Expires} of the response is used. {@code staleIfError} is the
+ * number of seconds after the expiration which the cached response is still delivered when the
+ * request fails with a network or a server error.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface Cache {
+  int maxAge() default -1;
+
+  int staleIfError() default 0;
+}
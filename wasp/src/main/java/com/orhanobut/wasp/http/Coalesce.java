@@ -0,0 +1,18 @@
+package com.orhanobut.wasp.http;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Identical requests which are sent while the same request is in flight wait for it and share its
+ * response instead of hitting the network again. Only GET and HEAD requests can be coalesced.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface Coalesce {
+}
@@ -0,0 +1,19 @@
+package com.orhanobut.wasp.http;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * The body is compressed with gzip while it is written and the request is sent with
+ * {@code Content-Encoding: gzip}. Bodies which are smaller than the compression threshold of the
+ * builder are sent as they are. GET and HEAD requests can not be compressed.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface Compress {
+}
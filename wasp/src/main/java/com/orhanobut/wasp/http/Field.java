@@ -8,7 +8,8 @@ import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 /**
- * Creates a field for form url
+ * Creates a field for form url. The same name can be used by more than one field, iterables and
+ * arrays are sent as a field for each element.
  */
 @Documented
 @Target(PARAMETER)
@@ -0,0 +1,25 @@
+package com.orhanobut.wasp.http;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Creates a part of a {@link Multipart} body. Strings are sent as text/plain, byte arrays and
+ * input streams as application/octet-stream, files with the type of their extension and typed
+ * outputs as they are. Other objects are converted by the parser.
+ *
+ * <p>Files and streams are written in chunks while the request is sent, they are not loaded into
+ * memory. Use {@link com.orhanobut.wasp.mime.TypedInputStream} in order to set the content type
+ * of a stream. Volley streams the body only with the default WaspOkHttpStack, other http stacks
+ * of Volley copy the whole body into memory.
+ */
+@Documented
+@Target(PARAMETER)
+@Retention(RUNTIME)
+public @interface Part {
+  String value();
+}
@@ -0,0 +1,22 @@
+package com.orhanobut.wasp.http;
+
+import com.orhanobut.wasp.utils.RequestPriority;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Sets the priority of the request. If it is used for a {@link RequestPriority} param, the value
+ * is ignored and the argument overrides the priority of the method for that call.
+ */
+@Documented
+@Target({METHOD, PARAMETER})
+@Retention(RUNTIME)
+public @interface Priority {
+  RequestPriority value() default RequestPriority.NORMAL;
+}
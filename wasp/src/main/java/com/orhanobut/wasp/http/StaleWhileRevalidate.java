@@ -0,0 +1,25 @@
+package com.orhanobut.wasp.http;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Delivers the cached object of an expired response right away and refreshes it in the
+ * background. The refreshed object is delivered a second time only if the response changed, it
+ * is compared by the ETag or by the content. It requires {@link Cache}, fresh responses are
+ * delivered once without a network call.
+ *
+ * <p>Callbacks receive the stale response first, {@code Response.isStale()} returns true.
+ * Observables emit the stale object and the refreshed one and then they complete. Sync methods
+ * return the stale object and the cache is refreshed in the background. If the refresh fails,
+ * the error is delivered after the stale object.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface StaleWhileRevalidate {
+}
@@ -0,0 +1,22 @@
+package com.orhanobut.wasp.http;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * The response is a JSON array and its elements are emitted one by one while it is downloaded.
+ * It can be used only with Observable and the type argument is the element type, ie:
+ * {@code Observable<Repo>}. Elements are parsed as they are requested by the subscriber.
+ *
+ * <p>The body is streamed by OkHttpNetworkStack and UrlConnectionNetworkStack, the other stacks
+ * parse the whole array before the first element is emitted.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface Streaming {
+}
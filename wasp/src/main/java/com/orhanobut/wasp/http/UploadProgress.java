@@ -0,0 +1,22 @@
+package com.orhanobut.wasp.http;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Reports the progress of the request body to a
+ * {@link com.orhanobut.wasp.utils.ProgressListener} param
+ *
+ * <p>Progress is reported by the stacks which stream the body: OkHttpNetworkStack,
+ * UrlConnectionNetworkStack and Volley with the default WaspOkHttpStack. Volley with another
+ * http stack copies the body into memory and it doesn't report the progress.
+ */
+@Documented
+@Target(PARAMETER)
+@Retention(RUNTIME)
+public @interface UploadProgress {
+}
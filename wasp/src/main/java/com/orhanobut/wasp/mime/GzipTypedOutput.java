@@ -0,0 +1,71 @@
+package com.orhanobut.wasp.mime;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the given body while it is written, the compressed body is never kept in memory.
+ * Its length is not known before it is written, therefore streaming stacks send it chunked.
+ */
+public class GzipTypedOutput implements TypedOutput {
+
+  private static final int BUFFER_SIZE = 4096;
+
+  private final TypedOutput body;
+
+  public GzipTypedOutput(TypedOutput body) {
+    if (body == null) {
+      throw new NullPointerException("body may not be null");
+    }
+    this.body = body;
+  }
+
+  /**
+   * @return the uncompressed body
+   */
+  public TypedOutput getBody() {
+    return body;
+  }
+
+  @Override
+  public String mimeType() {
+    return body.mimeType();
+  }
+
+  @Override
+  public long length() {
+    return -1;
+  }
+
+  /**
+   * The gzip stream is closed in order to release its deflater, the given stream is left open
+   */
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    GZIPOutputStream gzip = new GZIPOutputStream(new NonClosingOutputStream(out), BUFFER_SIZE);
+    try {
+      body.writeTo(gzip);
+    } finally {
+      gzip.close();
+    }
+  }
+
+  private static final class NonClosingOutputStream extends FilterOutputStream {
+
+    NonClosingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int count) throws IOException {
+      out.write(buffer, offset, count);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+}
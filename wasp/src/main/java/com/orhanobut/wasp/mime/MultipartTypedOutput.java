@@ -0,0 +1,163 @@
+package com.orhanobut.wasp.mime;
+
+import com.orhanobut.wasp.utils.MimeTypes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A multipart/form-data body. The headers of the parts are encoded when they are added, the
+ * bodies of the parts are written one by one while the request is sent, i.e. files are streamed
+ * from the disk and they are not loaded into memory.
+ *
+ * <p>The length is known only if the lengths of all parts are known.
+ */
+public final class MultipartTypedOutput implements TypedOutput {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final byte[] CRLF = {'\r', '\n'};
+
+  private final List<MimePart> parts = new ArrayList<>();
+  private final String boundary;
+  private final byte[] footer;
+
+  private long length;
+
+  public MultipartTypedOutput() {
+    this(UUID.randomUUID().toString());
+  }
+
+  public MultipartTypedOutput(String boundary) {
+    if (boundary == null) {
+      throw new NullPointerException("boundary may not be null");
+    }
+    this.boundary = boundary;
+    this.footer = ("\r\n--" + boundary + "--\r\n").getBytes(UTF_8);
+    this.length = footer.length;
+  }
+
+  /**
+   * The file name is taken from {@link TypedFile} and {@link TypedInputStream} bodies
+   */
+  public void addPart(String name, TypedOutput body) {
+    addPart(name, getFileName(body), body);
+  }
+
+  /**
+   * @param fileName is sent in the content disposition, it may be null
+   */
+  public void addPart(String name, String fileName, TypedOutput body) {
+    if (name == null) {
+      throw new NullPointerException("name may not be null");
+    }
+    if (body == null) {
+      throw new NullPointerException("body may not be null");
+    }
+    MimePart part = new MimePart(
+        encodeHeaders(name, fileName, body, parts.isEmpty()), body
+    );
+    parts.add(part);
+    long bodyLength = body.length();
+    if (length < 0 || bodyLength < 0) {
+      length = -1;
+    } else {
+      length += part.headers.length + bodyLength;
+    }
+  }
+
+  public int getPartCount() {
+    return parts.size();
+  }
+
+  @Override
+  public String mimeType() {
+    return MimeTypes.CONTENT_TYPE_MULTIPART + "; boundary=" + boundary;
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    for (MimePart part : parts) {
+      out.write(part.headers);
+      part.body.writeTo(out);
+    }
+    out.write(footer);
+  }
+
+  /**
+   * The delimiter of a part starts with the line break which ends the previous part
+   */
+  private byte[] encodeHeaders(String name, String fileName, TypedOutput body, boolean first) {
+    StringBuilder builder = new StringBuilder(128);
+    if (!first) {
+      builder.append("\r\n");
+    }
+    builder.append("--").append(boundary).append("\r\n")
+        .append("Content-Disposition: form-data; name=");
+    appendQuoted(builder, name);
+    if (fileName != null) {
+      builder.append("; filename=");
+      appendQuoted(builder, fileName);
+    }
+    builder.append("\r\nContent-Type: ").append(body.mimeType());
+    long bodyLength = body.length();
+    if (bodyLength >= 0) {
+      builder.append("\r\nContent-Length: ").append(bodyLength);
+    }
+    builder.append("\r\n\r\n");
+    return builder.toString().getBytes(UTF_8);
+  }
+
+  /**
+   * Quotes and line breaks are escaped, otherwise they would end the header
+   */
+  private static void appendQuoted(StringBuilder builder, String value) {
+    builder.append('"');
+    for (int i = 0, length = value.length(); i < length; i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\n':
+          builder.append("%0A");
+          break;
+        case '\r':
+          builder.append("%0D");
+          break;
+        case '"':
+          builder.append("%22");
+          break;
+        default:
+          builder.append(c);
+      }
+    }
+    builder.append('"');
+  }
+
+  private static String getFileName(TypedOutput body) {
+    if (body instanceof TypedFile) {
+      return ((TypedFile) body).file().getName();
+    }
+    if (body instanceof TypedInputStream) {
+      return ((TypedInputStream) body).fileName();
+    }
+    return null;
+  }
+
+  private static final class MimePart {
+
+    final byte[] headers;
+    final TypedOutput body;
+
+    MimePart(byte[] headers, TypedOutput body) {
+      this.headers = headers;
+      this.body = body;
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.orhanobut.wasp.mime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Body which is already encoded in memory. The array is not copied, it should not be changed
+ * after the body is created.
+ */
+public class TypedByteArray implements TypedOutput {
+
+  private final String mimeType;
+  private final byte[] bytes;
+
+  public TypedByteArray(String mimeType, byte[] bytes) {
+    if (mimeType == null) {
+      throw new NullPointerException("mimeType may not be null");
+    }
+    if (bytes == null) {
+      throw new NullPointerException("bytes may not be null");
+    }
+    this.mimeType = mimeType;
+    this.bytes = bytes;
+  }
+
+  public byte[] getBytes() {
+    return bytes;
+  }
+
+  @Override
+  public String mimeType() {
+    return mimeType;
+  }
+
+  @Override
+  public long length() {
+    return bytes.length;
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(bytes);
+  }
+}
@@ -0,0 +1,57 @@
+package com.orhanobut.wasp.mime;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Body which is streamed from a file, the file is not loaded into memory
+ */
+public class TypedFile implements TypedOutput {
+
+  private static final int BUFFER_SIZE = 4096;
+
+  private final String mimeType;
+  private final File file;
+
+  public TypedFile(String mimeType, File file) {
+    if (mimeType == null) {
+      throw new NullPointerException("mimeType may not be null");
+    }
+    if (file == null) {
+      throw new NullPointerException("file may not be null");
+    }
+    this.mimeType = mimeType;
+    this.file = file;
+  }
+
+  public File file() {
+    return file;
+  }
+
+  @Override
+  public String mimeType() {
+    return mimeType;
+  }
+
+  @Override
+  public long length() {
+    return file.length();
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    InputStream in = new FileInputStream(file);
+    try {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    } finally {
+      in.close();
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.orhanobut.wasp.mime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Body which is streamed from an input stream in chunks and closed afterwards. A stream can be
+ * read once, therefore it fails if the request is retried after the body is written.
+ */
+public class TypedInputStream implements TypedOutput {
+
+  private static final int BUFFER_SIZE = 4096;
+
+  private final String mimeType;
+  private final String fileName;
+  private final long length;
+  private final InputStream in;
+
+  private boolean written;
+
+  public TypedInputStream(String mimeType, InputStream in) {
+    this(mimeType, null, -1, in);
+  }
+
+  /**
+   * @param fileName is sent in the multipart bodies, it may be null
+   * @param length   of the stream in bytes, -1 if it is not known
+   */
+  public TypedInputStream(String mimeType, String fileName, long length, InputStream in) {
+    if (mimeType == null) {
+      throw new NullPointerException("mimeType may not be null");
+    }
+    if (in == null) {
+      throw new NullPointerException("in may not be null");
+    }
+    this.mimeType = mimeType;
+    this.fileName = fileName;
+    this.length = length;
+    this.in = in;
+  }
+
+  public String fileName() {
+    return fileName;
+  }
+
+  @Override
+  public String mimeType() {
+    return mimeType;
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  @Override
+  public synchronized void writeTo(OutputStream out) throws IOException {
+    if (written) {
+      throw new IOException("Input stream is already written, it can not be sent again");
+    }
+    written = true;
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    } finally {
+      in.close();
+    }
+  }
+}
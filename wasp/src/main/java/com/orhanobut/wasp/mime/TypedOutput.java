@@ -0,0 +1,29 @@
+package com.orhanobut.wasp.mime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Binary body of a request. It is encoded once and written directly to the connection, the
+ * network stacks don't convert it to a String.
+ *
+ * <p>It can be used as a {@code @Body} parameter in order to send a body which is not parsed,
+ * e.g. a {@link TypedFile}.
+ */
+public interface TypedOutput {
+
+  /**
+   * @return the content type of the body, including the charset if there is any
+   */
+  String mimeType();
+
+  /**
+   * @return the length in bytes, -1 if it is not known
+   */
+  long length();
+
+  /**
+   * Writes the body to the given stream, it may be called again when the request is retried
+   */
+  void writeTo(OutputStream out) throws IOException;
+}
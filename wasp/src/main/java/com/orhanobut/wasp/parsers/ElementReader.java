@@ -0,0 +1,21 @@
+package com.orhanobut.wasp.parsers;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the elements of an array body one by one, only the current element is held in memory.
+ * Closing the reader closes the body as well.
+ */
+public interface ElementReader<T> extends Closeable {
+
+  /**
+   * @return true if there is another element, an empty body has no elements
+   */
+  boolean hasNext() throws IOException;
+
+  /**
+   * Parses the next element of the array
+   */
+  T next() throws IOException;
+}
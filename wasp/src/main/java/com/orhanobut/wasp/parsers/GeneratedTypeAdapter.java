@@ -0,0 +1,188 @@
+package com.orhanobut.wasp.parsers;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Base class of the {@code Model$$TypeAdapter} classes which are generated by wasp-compiler.
+ * Fields are read and written directly, the rest behaves the same as the reflective adapter of
+ * Gson: unknown names are skipped, null values don't change primitive fields and the runtime
+ * type of a field is used when it is a subclass.
+ */
+public abstract class GeneratedTypeAdapter<T> extends TypeAdapter<T> {
+
+  /**
+   * Gson without custom adapters, an adapter of the same class is the default one of its type
+   */
+  private static final Gson DEFAULT_GSON = new Gson();
+
+  protected final Gson gson;
+
+  private final TypeAdapter<Double> doubleAdapter;
+  private final TypeAdapter<Float> floatAdapter;
+
+  protected GeneratedTypeAdapter(Gson gson) {
+    this.gson = gson;
+    this.doubleAdapter = gson.getAdapter(Double.class);
+    this.floatAdapter = gson.getAdapter(Float.class);
+  }
+
+  protected abstract T newInstance();
+
+  /**
+   * Reads the value of the given name into the instance, unknown names should be skipped
+   */
+  protected abstract void readField(JsonReader in, String name, T value) throws IOException;
+
+  protected abstract void writeFields(JsonWriter out, T value) throws IOException;
+
+  @Override
+  public final T read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    T value = newInstance();
+    try {
+      in.beginObject();
+      while (in.hasNext()) {
+        readField(in, in.nextName(), value);
+      }
+      in.endObject();
+    } catch (IllegalStateException e) {
+      throw new JsonSyntaxException(e);
+    }
+    return value;
+  }
+
+  @Override
+  public final void write(JsonWriter out, T value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    writeFields(out, value);
+    out.endObject();
+  }
+
+  @SuppressWarnings("unchecked")
+  protected final <F> TypeAdapter<F> getAdapter(Type type) {
+    return (TypeAdapter<F>) gson.getAdapter(TypeToken.get(type));
+  }
+
+  /**
+   * Writes the field value with the adapter of its runtime type if it is more specific
+   *
+   * @param declaredClass of the field, null if the field type is parameterized
+   */
+  @SuppressWarnings("unchecked")
+  protected final <F> void write(JsonWriter out, TypeAdapter<F> adapter, Class<?> declaredClass,
+                                 F value) throws IOException {
+    TypeAdapter<F> chosen = adapter;
+    if (value != null && declaredClass != null && value.getClass() != declaredClass) {
+      TypeAdapter<F> runtimeAdapter = (TypeAdapter<F>) gson.getAdapter(value.getClass());
+      // a custom adapter of the declared type wins over the default one of the runtime type
+      if (!isDefault(runtimeAdapter, value.getClass()) || isDefault(adapter, declaredClass)) {
+        chosen = runtimeAdapter;
+      }
+    }
+    chosen.write(out, value);
+  }
+
+  protected final void writeDouble(JsonWriter out, double value) throws IOException {
+    doubleAdapter.write(out, value);
+  }
+
+  protected final void writeFloat(JsonWriter out, float value) throws IOException {
+    floatAdapter.write(out, value);
+  }
+
+  protected static String readString(JsonReader in) throws IOException {
+    JsonToken token = in.peek();
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    if (token == JsonToken.BOOLEAN) {
+      return Boolean.toString(in.nextBoolean());
+    }
+    return in.nextString();
+  }
+
+  protected static int readInt(JsonReader in, int current) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return current;
+    }
+    try {
+      return in.nextInt();
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  protected static long readLong(JsonReader in, long current) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return current;
+    }
+    try {
+      return in.nextLong();
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  protected static double readDouble(JsonReader in, double current) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return current;
+    }
+    return in.nextDouble();
+  }
+
+  protected static float readFloat(JsonReader in, float current) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return current;
+    }
+    return (float) in.nextDouble();
+  }
+
+  protected static boolean readBoolean(JsonReader in, boolean current) throws IOException {
+    JsonToken token = in.peek();
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+      return current;
+    }
+    if (token == JsonToken.STRING) {
+      return Boolean.parseBoolean(in.nextString());
+    }
+    return in.nextBoolean();
+  }
+
+  /**
+   * Generated adapters take the place of the reflective adapter of gson, therefore they are
+   * default as well
+   */
+  private static boolean isDefault(TypeAdapter<?> adapter, Class<?> type) {
+    if (adapter instanceof GeneratedTypeAdapter) {
+      return true;
+    }
+    try {
+      return adapter.getClass() == DEFAULT_GSON.getAdapter(type).getClass();
+    } catch (IllegalArgumentException e) {
+      // gson can't create the default adapter, ie: duplicate field names
+      return false;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.orhanobut.wasp.parsers;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Provides the {@code Model$$TypeAdapter} classes which are generated by wasp-compiler, other
+ * types are left to Gson. It is registered by the default GsonParser, a custom Gson can register
+ * it with {@code new GsonBuilder().registerTypeAdapterFactory(new GeneratedTypeAdapterFactory())}
+ */
+public final class GeneratedTypeAdapterFactory implements TypeAdapterFactory {
+
+  static final String SUFFIX = "$$TypeAdapter";
+
+  private static final Object NO_ADAPTER = new Object();
+
+  /**
+   * Generated adapter constructors by model class, NO_ADAPTER if there is no generated one
+   */
+  private final ConcurrentMap<Class<?>, Object> constructors = new ConcurrentHashMap<>();
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+    Class<? super T> rawType = type.getRawType();
+    // adapters are generated only for the classes without type parameters
+    if (type.getType() != rawType) {
+      return null;
+    }
+    Object constructor = constructors.get(rawType);
+    if (constructor == null) {
+      constructor = findConstructor(rawType);
+      constructors.putIfAbsent(rawType, constructor);
+    }
+    if (constructor == NO_ADAPTER) {
+      return null;
+    }
+    try {
+      return (TypeAdapter<T>) ((Constructor<?>) constructor).newInstance(gson);
+    } catch (InvocationTargetException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException("Unable to create the adapter of " + rawType.getName(), cause);
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new RuntimeException("Unable to create the adapter of " + rawType.getName(), e);
+    }
+  }
+
+  private static Object findConstructor(Class<?> type) {
+    ClassLoader loader = type.getClassLoader();
+    if (loader == null || type.isPrimitive() || type.isArray() || type.isInterface()
+        || isPlatformType(type.getName())) {
+      return NO_ADAPTER;
+    }
+    try {
+      return Class.forName(type.getName() + SUFFIX, true, loader).getConstructor(Gson.class);
+    } catch (ClassNotFoundException | NoSuchMethodException e) {
+      return NO_ADAPTER;
+    }
+  }
+
+  private static boolean isPlatformType(String name) {
+    return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("android.")
+        || name.startsWith("com.google.gson.");
+  }
+}
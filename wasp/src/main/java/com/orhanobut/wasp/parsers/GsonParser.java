@@ -1,19 +1,38 @@
 package com.orhanobut.wasp.parsers;
 
-import android.text.TextUtils;
-
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 import com.orhanobut.wasp.utils.MimeTypes;
+import com.orhanobut.wasp.utils.StringUtils;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 
-public class GsonParser implements Parser {
+public class GsonParser implements StreamingParser {
 
   private final Gson gson;
 
+  /**
+   * Uses a default Gson which also finds the type adapters generated by wasp-compiler
+   */
   public GsonParser() {
-    this(new Gson());
+    this(new GsonBuilder()
+        .registerTypeAdapterFactory(new GeneratedTypeAdapterFactory())
+        .create());
   }
 
   public GsonParser(Gson gson) {
@@ -25,7 +44,7 @@ public class GsonParser implements Parser {
 
   @Override
   public <T> T fromBody(String content, Type type) throws IOException {
-    if (TextUtils.isEmpty(content)) {
+    if (StringUtils.isEmpty(content)) {
       return null;
     }
     if (type == null) {
@@ -34,6 +53,43 @@ public class GsonParser implements Parser {
     return gson.fromJson(content, type);
   }
 
+  /**
+   * The body is decoded while it is read by JsonReader, it is never held as a whole String
+   */
+  @Override
+  public <T> T fromBody(InputStream in, Charset charset, Type type) throws IOException {
+    if (type == null) {
+      throw new NullPointerException("Type should not be null");
+    }
+    JsonReader reader = new JsonReader(new InputStreamReader(in, charset));
+    T result = gson.fromJson(reader, type);
+    assertFullConsumption(result, reader);
+    return result;
+  }
+
+  /**
+   * Same check as fromBody(String), content after the value is not ignored
+   */
+  private static void assertFullConsumption(Object result, JsonReader reader) throws IOException {
+    try {
+      if (result != null && reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new JsonIOException("JSON document was not fully consumed.");
+      }
+    } catch (MalformedJsonException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> ElementReader<T> fromBodyElements(InputStream in, Charset charset, Type elementType) {
+    if (elementType == null) {
+      throw new NullPointerException("Type should not be null");
+    }
+    TypeAdapter<T> adapter = (TypeAdapter<T>) gson.getAdapter(TypeToken.get(elementType));
+    return new GsonElementReader<>(new JsonReader(new InputStreamReader(in, charset)), adapter);
+  }
+
   @Override
   public String toBody(Object body) {
     if (body == null) {
@@ -42,9 +98,97 @@ public class GsonParser implements Parser {
     return gson.toJson(body);
   }
 
+  /**
+   * Values are escaped by the JsonWriter of gson while they are written
+   */
+  @Override
+  public void toBody(Object body, OutputStream out, Charset charset) throws IOException {
+    if (body == null) {
+      throw new NullPointerException("Body should not be null");
+    }
+    OutputStreamWriter writer = new OutputStreamWriter(out, charset);
+    try {
+      gson.toJson(body, body.getClass(), new JsonWriter(writer));
+    } catch (JsonIOException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw e;
+    }
+    writer.flush();
+  }
+
   @Override
   public String getSupportedContentType() {
     return MimeTypes.CONTENT_JSON;
   }
 
+  /**
+   * Same as Gson.fromJson, the reader is lenient and state errors are syntax errors
+   */
+  private static final class GsonElementReader<T> implements ElementReader<T> {
+
+    private final JsonReader reader;
+    private final TypeAdapter<T> adapter;
+
+    private boolean started;
+    private boolean finished;
+
+    GsonElementReader(JsonReader reader, TypeAdapter<T> adapter) {
+      this.reader = reader;
+      this.adapter = adapter;
+      reader.setLenient(true);
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+      if (finished) {
+        return false;
+      }
+      try {
+        if (!started) {
+          started = true;
+          if (isEmpty()) {
+            finished = true;
+            return false;
+          }
+          reader.beginArray();
+        }
+        if (reader.hasNext()) {
+          return true;
+        }
+        reader.endArray();
+        finished = true;
+        return false;
+      } catch (IllegalStateException e) {
+        throw new JsonSyntaxException(e);
+      }
+    }
+
+    /**
+     * An empty body or null has no elements, same as the null result of Gson
+     */
+    private boolean isEmpty() throws IOException {
+      try {
+        return reader.peek() == JsonToken.NULL;
+      } catch (EOFException e) {
+        return true;
+      }
+    }
+
+    @Override
+    public T next() throws IOException {
+      try {
+        return adapter.read(reader);
+      } catch (IllegalStateException e) {
+        throw new JsonSyntaxException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+
 }
@@ -0,0 +1,47 @@
+package com.orhanobut.wasp.parsers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+
+/**
+ * A parser which reads the response body directly from its bytes and writes the request body
+ * directly to the network, the body is never held as a String. Wasp uses it instead of
+ * {@link #fromBody(String, Type)} and {@link #toBody(Object)} when the parser implements it.
+ */
+public interface StreamingParser extends Parser {
+
+  /**
+   * Parse an HTTP response body to a concrete object of the specified type.
+   *
+   * @param in      HTTP response body, it is not closed by the parser.
+   * @param charset Charset of the body.
+   * @param type    Target object type.
+   * @param <T>     Target object type.
+   * @return Instance of {@code <T>}, null if the body is empty.
+   * @throws IOException if parsing was unable to complete.
+   */
+  <T> T fromBody(InputStream in, Charset charset, Type type) throws IOException;
+
+  /**
+   * Creates a reader for the elements of an array body, it is used by the streaming methods.
+   * Nothing is read until the first element is requested.
+   *
+   * @param in          HTTP response body, it is closed when the reader is closed.
+   * @param charset     Charset of the body.
+   * @param elementType Type of the array elements.
+   */
+  <T> ElementReader<T> fromBodyElements(InputStream in, Charset charset, Type elementType);
+
+  /**
+   * Writes the representation of the object to the request body.
+   *
+   * @param body    Object instance to convert.
+   * @param out     Request body, it is flushed but not closed by the parser.
+   * @param charset Charset of the body.
+   * @throws IOException if the body can not be written.
+   */
+  void toBody(Object body, OutputStream out, Charset charset) throws IOException;
+}
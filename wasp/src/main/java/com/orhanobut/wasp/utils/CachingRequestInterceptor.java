@@ -0,0 +1,40 @@
+package com.orhanobut.wasp.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Request interceptor whose values are requested only once and reused for each request until
+ * {@link #invalidate()} is called, ie: after the auth token is refreshed.
+ * Only required methods can be overwrite, same as {@link SimpleRequestInterceptor}
+ */
+public class CachingRequestInterceptor extends SimpleRequestInterceptor {
+
+  private final AtomicInteger version = new AtomicInteger();
+
+  private volatile RequestInterceptorSnapshot snapshot;
+
+  /**
+   * Drops the current snapshot, the interceptor methods are called again for the next request
+   */
+  public void invalidate() {
+    version.incrementAndGet();
+    snapshot = null;
+  }
+
+  /**
+   * Returns the current snapshot or creates a new one. A snapshot which is created while the
+   * interceptor is invalidated is used only by the request which created it.
+   */
+  public RequestInterceptorSnapshot getSnapshot() {
+    int currentVersion = version.get();
+    RequestInterceptorSnapshot current = snapshot;
+    if (current != null && current.getVersion() == currentVersion) {
+      return current;
+    }
+    RequestInterceptorSnapshot newSnapshot = new RequestInterceptorSnapshot(currentVersion, this);
+    if (version.get() == currentVersion) {
+      snapshot = newSnapshot;
+    }
+    return newSnapshot;
+  }
+}
@@ -9,6 +9,12 @@ public class CollectionUtils {
     // no instance
   }
 
+  /**
+   * @deprecated values are not escaped and strings which start with [ or { are inserted as they
+   * are. Bodies are written by the parser of wasp, see
+   * {@link com.orhanobut.wasp.parsers.Parser#toBody(Object)}
+   */
+  @Deprecated
   public static String toJson(Map<String, Object> map) {
     StringBuilder builder = new StringBuilder();
     builder.append("{");
@@ -1,7 +1,6 @@
 package com.orhanobut.wasp.utils;
 
 import android.content.Context;
-import android.text.TextUtils;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -15,7 +14,7 @@ public class IOUtils {
   }
 
   public static boolean assetsFileExists(Context context, String filePath) {
-    if (TextUtils.isEmpty(filePath)) {
+    if (StringUtils.isEmpty(filePath)) {
       return false;
     }
     try {
@@ -29,7 +28,7 @@ public class IOUtils {
   }
 
   public static String readFileFromAssets(Context context, String filePath) throws IOException {
-    if (TextUtils.isEmpty(filePath)) {
+    if (StringUtils.isEmpty(filePath)) {
       return null;
     }
 
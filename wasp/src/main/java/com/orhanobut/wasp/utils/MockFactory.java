@@ -1,7 +1,6 @@
 package com.orhanobut.wasp.utils;
 
 import android.content.Context;
-import android.text.TextUtils;
 
 import com.google.gson.internal.UnsafeAllocator;
 import com.orhanobut.wasp.Logger;
@@ -42,7 +41,7 @@ public final class MockFactory {
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
-    if (TextUtils.isEmpty(responseString)) {
+    if (StringUtils.isEmpty(responseString)) {
       throw new RuntimeException("Mock file \"" + filePath + "\" is empty");
     }
 
@@ -1,7 +1,5 @@
 package com.orhanobut.wasp.utils;
 
-import android.text.TextUtils;
-
 import com.orhanobut.wasp.Logger;
 import com.squareup.okhttp.Headers;
 import com.squareup.okhttp.Interceptor;
@@ -46,7 +44,7 @@ public class OkHttpLogInterceptor implements Interceptor {
     Logger.d("<--- RESPONSE " + response.code() + " " + response.request().urlString());
     logHeaders(response.headers());
     String responseBody = response.body().string();
-    Logger.d(TextUtils.isEmpty(responseBody) ? "Body - no body" : "Body - " + responseBody);
+    Logger.d(StringUtils.isEmpty(responseBody) ? "Body - no body" : "Body - " + responseBody);
     Logger.d("<--- END " + "(Size: " + response.body().contentLength() + " bytes - "
         + "Network time: " + (t2 - t1) / MILLI_AS_NANO + " ms)");
 
@@ -0,0 +1,14 @@
+package com.orhanobut.wasp.utils;
+
+/**
+ * Listens the bytes of the request body while they are written. It is called on the thread which
+ * writes the request, after each chunk. The count starts again if the request is retried.
+ */
+public interface ProgressListener {
+
+  /**
+   * @param bytesWritten  total bytes which are written so far
+   * @param contentLength of the body, -1 if it is not known
+   */
+  void onProgress(long bytesWritten, long contentLength);
+}
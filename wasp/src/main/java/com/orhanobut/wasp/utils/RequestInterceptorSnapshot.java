@@ -0,0 +1,74 @@
+package com.orhanobut.wasp.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable values of a {@link CachingRequestInterceptor}, it is shared by all requests until
+ * the interceptor is invalidated.
+ */
+public final class RequestInterceptorSnapshot {
+
+  private final int version;
+  private final Map<String, String> headers;
+  private final Map<String, Object> queryParams;
+  private final WaspRetryPolicy retryPolicy;
+  private final AuthToken authToken;
+
+  RequestInterceptorSnapshot(int version, RequestInterceptor interceptor) {
+    this.version = version;
+
+    Map<String, String> headers = new LinkedHashMap<>();
+    interceptor.onHeadersAdded(headers);
+    this.headers = headers.isEmpty()
+        ? Collections.<String, String>emptyMap()
+        : Collections.unmodifiableMap(headers);
+
+    Map<String, Object> queryParams = new LinkedHashMap<>();
+    interceptor.onQueryParamsAdded(queryParams);
+    this.queryParams = queryParams.isEmpty()
+        ? Collections.<String, Object>emptyMap()
+        : Collections.unmodifiableMap(queryParams);
+
+    // The policy is copied since Volley updates it while retrying
+    WaspRetryPolicy policy = interceptor.getRetryPolicy();
+    this.retryPolicy = policy == null ? null : copy(policy);
+    this.authToken = interceptor.getAuthToken();
+  }
+
+  private static WaspRetryPolicy copy(WaspRetryPolicy policy) {
+    return new WaspRetryPolicy(
+        policy.getCurrentTimeout(), policy.getMaxNumRetries(), policy.getBackoffMultiplier()
+    );
+  }
+
+  int getVersion() {
+    return version;
+  }
+
+  /**
+   * @return unmodifiable headers, never null
+   */
+  public Map<String, String> getHeaders() {
+    return headers;
+  }
+
+  /**
+   * @return unmodifiable query params, never null
+   */
+  public Map<String, Object> getQueryParams() {
+    return queryParams;
+  }
+
+  /**
+   * @return a new retry policy for each request, null if the interceptor has no retry policy
+   */
+  public WaspRetryPolicy newRetryPolicy() {
+    return retryPolicy == null ? null : copy(retryPolicy);
+  }
+
+  public AuthToken getAuthToken() {
+    return authToken;
+  }
+}
@@ -0,0 +1,23 @@
+package com.orhanobut.wasp.utils;
+
+/**
+ * Requests with higher priority are dispatched first, requests with the same priority are
+ * dispatched in the order they are sent
+ */
+public enum RequestPriority {
+
+  /**
+   * Background work, it is dispatched after every other pending request
+   */
+  LOW,
+
+  /**
+   * Default priority of the requests
+   */
+  NORMAL,
+
+  HIGH,
+
+  IMMEDIATE
+
+}
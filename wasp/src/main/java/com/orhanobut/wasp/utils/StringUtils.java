@@ -10,6 +10,13 @@ public class StringUtils {
     return delimiter + value + delimiter;
   }
 
+  /**
+   * Same as TextUtils.isEmpty, which is not available on the JVM
+   */
+  public static boolean isEmpty(CharSequence value) {
+    return value == null || value.length() == 0;
+  }
+
   /**
    * Creates a cache key for use with the L1 cache.
    *
@@ -1,46 +1,303 @@
 package com.orhanobut.wasp.utils;
 
 import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * A thread safe LRU cache with a maximum size. The size of an entry is 1 by default, override
+ * {@link #sizeOf(Object, Object)} in order to measure the entries in other units, ie: bytes.
+ * The least recently used entries are evicted when the total size exceeds the maximum size.
+ *
+ * <p>The cache may be split into segments which have their own locks, so that the threads which
+ * access different segments don't wait for each other. Each segment has a share of the maximum
+ * size and it evicts its own least recently used entries, i.e. the order is approximately LRU.
+ * An entry which is larger than the share of its segment is not kept. With a single segment,
+ * the default, it is an exact LRU.
+ *
+ * <p>{@link #entryRemoved(boolean, Object, Object, Object)} is called without holding a lock,
+ * so that it may release the resources of the removed values.
+ */
 public class WaspCache<K, V> {
 
-  private final LinkedHashMap<K, V> map;
+  /**
+   * Maximum size of the caches which are created without a size
+   */
+  private static final int DEFAULT_MAX_SIZE = 100;
 
+  private final Segment[] segments;
+  private final int segmentMask;
+
+  private volatile int maxSize;
+
+  /**
+   * Creates a cache of at most 100 entries, or a total size of 100 if
+   * {@link #sizeOf(Object, Object)} is overridden. It was unbounded before.
+   *
+   * @deprecated the maximum size should be given, use {@link #WaspCache(int)}
+   */
+  @Deprecated
   public WaspCache() {
-    this.map = new LinkedHashMap<>(0, 0.75f, true);
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * @param maxSize the maximum number of entries, or the maximum sum of the sizes of the entries
+   *                if {@link #sizeOf(Object, Object)} is overridden
+   */
+  public WaspCache(int maxSize) {
+    this(maxSize, 1);
+  }
+
+  /**
+   * @param concurrencyLevel the number of segments, it is rounded up to a power of two. There
+   *                         are at most as many segments as maxSize, so that each segment has a
+   *                         share of at least 1.
+   */
+  @SuppressWarnings("unchecked")
+  public WaspCache(int maxSize, int concurrencyLevel) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize <= 0");
+    }
+    if (concurrencyLevel <= 0) {
+      throw new IllegalArgumentException("concurrencyLevel <= 0");
+    }
+    int count = 1;
+    while (count < concurrencyLevel && count <= maxSize >> 1) {
+      count <<= 1;
+    }
+    this.segments = (Segment[]) new WaspCache.Segment[count];
+    this.segmentMask = count - 1;
+    this.maxSize = maxSize;
+    for (int i = 0; i < count; i++) {
+      segments[i] = new Segment(getSegmentMaxSize(maxSize, i));
+    }
   }
 
+  /**
+   * An entry which is larger than the share of its segment is rejected, the other entries are
+   * not evicted for it and the previous value of the key is removed.
+   */
   public void put(K key, V value) {
     if (key == null || value == null) {
       throw new NullPointerException("key == null || value == null");
     }
-    V temp = map.get(key);
-    synchronized (map) {
-      if (temp != null) {
-        map.remove(key);
-      }
-      map.put(key, value);
+    segmentFor(key).put(key, value);
+  }
+
+  /**
+   * @return the value of the key, it becomes the most recently used entry of its segment. Null
+   * if there is no value.
+   */
+  public V get(K key) {
+    if (key == null) {
+      throw new NullPointerException("key may not be null");
     }
+    return segmentFor(key).get(key);
   }
 
   public void remove(K key) {
     if (key == null) {
       throw new NullPointerException("key may not be null");
     }
+    segmentFor(key).remove(key);
+  }
 
-    synchronized (map) {
-      map.remove(key);
+  /**
+   * Evicts all entries
+   */
+  public void clearAll() {
+    trimToSize(-1);
+  }
+
+  /**
+   * Evicts the least recently used entries until the total size is not larger than the given
+   * size
+   *
+   * @param maxSize -1 in order to evict all entries
+   */
+  public void trimToSize(int maxSize) {
+    for (int i = 0; i < segments.length; i++) {
+      segments[i].trimToSize(maxSize < 0 ? -1 : getSegmentMaxSize(maxSize, i));
     }
   }
 
-  public V get(K key) {
-    if (key == null) {
-      throw new NullPointerException("key may not be null");
+  /**
+   * Changes the maximum size, the entries which don't fit anymore are evicted
+   *
+   * @param maxSize at least the number of segments
+   */
+  public void resize(int maxSize) {
+    if (maxSize < segments.length) {
+      throw new IllegalArgumentException("maxSize < " + segments.length + " segments");
+    }
+    this.maxSize = maxSize;
+    for (int i = 0; i < segments.length; i++) {
+      segments[i].resize(getSegmentMaxSize(maxSize, i));
     }
-    return map.get(key);
   }
 
-  public synchronized void clearAll() {
-    map.clear();
+  /**
+   * @return the sum of the sizes of the entries
+   */
+  public final int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  public final int maxSize() {
+    return maxSize;
+  }
+
+  /**
+   * @return the number of segments, an entry may be at most maxSize / segments large
+   */
+  public final int segmentCount() {
+    return segments.length;
+  }
+
+  public final int evictionCount() {
+    int evictionCount = 0;
+    for (Segment segment : segments) {
+      evictionCount += segment.evictionCount();
+    }
+    return evictionCount;
+  }
+
+  /**
+   * Returns the size of the entry in the units of the maximum size. It must not change while the
+   * entry is in the cache.
+   */
+  protected int sizeOf(K key, V value) {
+    return 1;
+  }
+
+  /**
+   * Called when an entry is evicted, removed or replaced
+   *
+   * @param evicted  true if the entry is evicted in order to make space, false if it is removed or
+   *                 replaced
+   * @param newValue the new value of the key if it is replaced, otherwise null
+   */
+  protected void entryRemoved(boolean evicted, K key, V oldValue, V newValue) {
+  }
+
+  private Segment segmentFor(K key) {
+    int hash = key.hashCode();
+    // the low bits select the segment, the high bits are spread into them
+    hash ^= hash >>> 16;
+    return segments[hash & segmentMask];
+  }
+
+  /**
+   * The remainder of the division is shared by the first segments
+   */
+  private int getSegmentMaxSize(int maxSize, int index) {
+    int count = segments.length;
+    return maxSize / count + (index < maxSize % count ? 1 : 0);
+  }
+
+  private int safeSizeOf(K key, V value) {
+    int result = sizeOf(key, value);
+    if (result < 0) {
+      throw new IllegalStateException("Negative size: " + key + "=" + value);
+    }
+    return result;
+  }
+
+  /**
+   * An exact LRU which is guarded by its own lock
+   */
+  private final class Segment {
+
+    private final LinkedHashMap<K, V> map = new LinkedHashMap<>(0, 0.75f, true);
+
+    private int size;
+    private int maxSize;
+    private int evictionCount;
+
+    Segment(int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    void put(K key, V value) {
+      int entrySize = safeSizeOf(key, value);
+      V previous;
+      int maxSize;
+      synchronized (this) {
+        maxSize = this.maxSize;
+        if (entrySize > maxSize) {
+          // the entry is rejected, the previous value is stale
+          previous = null;
+        } else {
+          size += entrySize;
+          previous = map.put(key, value);
+          if (previous != null) {
+            size -= safeSizeOf(key, previous);
+          }
+        }
+      }
+      if (entrySize > maxSize) {
+        remove(key);
+        return;
+      }
+      if (previous != null) {
+        entryRemoved(false, key, previous, value);
+      }
+      trimToSize(maxSize);
+    }
+
+    synchronized V get(K key) {
+      return map.get(key);
+    }
+
+    void remove(K key) {
+      V previous;
+      synchronized (this) {
+        previous = map.remove(key);
+        if (previous != null) {
+          size -= safeSizeOf(key, previous);
+        }
+      }
+      if (previous != null) {
+        entryRemoved(false, key, previous, null);
+      }
+    }
+
+    void trimToSize(int maxSize) {
+      while (true) {
+        K key;
+        V value;
+        synchronized (this) {
+          if (size <= maxSize || map.isEmpty()) {
+            break;
+          }
+          Map.Entry<K, V> eldest = map.entrySet().iterator().next();
+          key = eldest.getKey();
+          value = eldest.getValue();
+          map.remove(key);
+          size -= safeSizeOf(key, value);
+          evictionCount++;
+        }
+        entryRemoved(true, key, value, null);
+      }
+    }
+
+    void resize(int maxSize) {
+      synchronized (this) {
+        this.maxSize = maxSize;
+      }
+      trimToSize(maxSize);
+    }
+
+    synchronized int size() {
+      return size;
+    }
+
+    synchronized int evictionCount() {
+      return evictionCount;
+    }
   }
 }
@@ -68,6 +68,20 @@ public class WaspRetryPolicy implements RetryPolicy {
     return currentTimeoutMs;
   }
 
+  /**
+   * Returns the sum of the timeouts of the current and the remaining attempts, the backoff is
+   * applied the same as {@link #retry(VolleyError)} does. Sync requests wait this long.
+   */
+  public long getTotalTimeout() {
+    long total = 0;
+    long timeout = currentTimeoutMs;
+    for (int retryCount = currentRetryCount; retryCount <= maxNumRetries; retryCount++) {
+      total += timeout;
+      timeout += (timeout * backoffMultiplier);
+    }
+    return total;
+  }
+
   /**
    * Returns the current retry count.
    */
@@ -76,6 +90,13 @@ public class WaspRetryPolicy implements RetryPolicy {
     return currentRetryCount;
   }
 
+  /**
+   * Returns the maximum number of retries.
+   */
+  public int getMaxNumRetries() {
+    return maxNumRetries;
+  }
+
   /**
    * Returns the backoff multiplier for the policy.
    */
@@ -97,6 +118,18 @@ public class WaspRetryPolicy implements RetryPolicy {
     }
   }
 
+  /**
+   * Prepares for the next retry after a timeout. It is used by the network stacks which don't
+   * run on Volley.
+   *
+   * @return false if there is no attempt left
+   */
+  public boolean retryOnTimeout() {
+    currentRetryCount++;
+    currentTimeoutMs += (currentTimeoutMs * backoffMultiplier);
+    return hasAttemptRemaining();
+  }
+
   /**
    * Returns true if this policy has attempts remaining, false otherwise.
    */
@@ -0,0 +1,364 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachingNetworkStackTest extends BaseTestCase {
+
+  private final Parser parser = new GsonParser();
+
+  private final LinkedList<Object> results = new LinkedList<>();
+  private int sentRequests;
+  private RequestCreator lastRequest;
+
+  private final NetworkStack networkStack = new NetworkStack() {
+    @Override
+    public void invokeRequest(RequestCreator requestCreator,
+                              InternalCallback<Response> waspCallback) {
+      sentRequests++;
+      lastRequest = requestCreator;
+      Object result = results.removeFirst();
+      if (result instanceof WaspError) {
+        waspCallback.onError((WaspError) result);
+        return;
+      }
+      waspCallback.onSuccess((Response) result);
+    }
+
+    @Override
+    public Object invokeRequest(RequestCreator requestCreator) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  private final CachingNetworkStack cachingNetworkStack =
+      new CachingNetworkStack(networkStack, new ResponseCache(null, 1024));
+
+  public CachingNetworkStackTest() {
+    new Wasp.Builder(context)
+        .setEndpoint("http://www")
+        .build();
+  }
+
+  @Test
+  public void testFreshResponseIsNotRequestedAgain() throws Exception {
+    RequestCreator request = newRequest(60, 0);
+    Object user = new Object();
+    results.add(newResponse(200, user, null));
+
+    assertThat(cachingNetworkStack.invokeRequest(request)).isSameAs(user);
+    assertThat(cachingNetworkStack.invokeRequest(newRequest(60, 0))).isSameAs(user);
+    assertThat(sentRequests).isEqualTo(1);
+  }
+
+  @Test
+  public void testAsyncRequestIsDeliveredFromCache() {
+    Response response = newResponse(200, new Object(), null);
+    results.add(response);
+
+    ResponseHolder first = new ResponseHolder();
+    ResponseHolder second = new ResponseHolder();
+    cachingNetworkStack.invokeRequest(newRequest(60, 0), first);
+    cachingNetworkStack.invokeRequest(newRequest(60, 0), second);
+
+    assertThat(sentRequests).isEqualTo(1);
+    assertThat(first.response).isSameAs(response);
+    assertThat(second.response).isSameAs(response);
+  }
+
+  @Test
+  public void testMaxAgeOfResponseIsUsed() throws Exception {
+    results.add(newResponse(200, new Object(), "max-age=60"));
+    cachingNetworkStack.invokeRequest(newRequest(-1, 0));
+    cachingNetworkStack.invokeRequest(newRequest(-1, 0));
+    assertThat(sentRequests).isEqualTo(1);
+  }
+
+  @Test
+  public void testNoStoreIsNotCached() throws Exception {
+    results.add(newResponse(200, new Object(), "no-store"));
+    results.add(newResponse(200, new Object(), "no-store"));
+    cachingNetworkStack.invokeRequest(newRequest(60, 0));
+    cachingNetworkStack.invokeRequest(newRequest(60, 0));
+    assertThat(sentRequests).isEqualTo(2);
+  }
+
+  @Test
+  public void testResponseWithoutFreshnessIsNotCached() throws Exception {
+    results.add(newResponse(200, new Object(), null));
+    results.add(newResponse(200, new Object(), null));
+    cachingNetworkStack.invokeRequest(newRequest(-1, 0));
+    cachingNetworkStack.invokeRequest(newRequest(-1, 0));
+    assertThat(sentRequests).isEqualTo(2);
+  }
+
+  @Test
+  public void testStaleResponseIsServedOnServerError() throws Exception {
+    Object user = new Object();
+    results.add(newResponse(200, user, null));
+    results.add(new WaspError(newResponse(503, null, null), "unavailable"));
+
+    cachingNetworkStack.invokeRequest(newRequest(0, 60));
+    assertThat(cachingNetworkStack.invokeRequest(newRequest(0, 60))).isSameAs(user);
+    assertThat(sentRequests).isEqualTo(2);
+  }
+
+  @Test
+  public void testStaleResponseIsNotServedOnClientError() throws Exception {
+    results.add(newResponse(200, new Object(), null));
+    results.add(new WaspError(newResponse(404, null, null), "not found"));
+
+    cachingNetworkStack.invokeRequest(newRequest(0, 60));
+    try {
+      cachingNetworkStack.invokeRequest(newRequest(0, 60));
+      fail("Client errors should not be answered from the cache");
+    } catch (ExecutionException e) {
+      assertThat(((WaspError) e.getCause()).getResponse().getStatusCode()).isEqualTo(404);
+    }
+  }
+
+  @Test
+  public void testExpiredResponseIsRevalidated() {
+    Object user = new Object();
+    results.add(newResponse(200, user, "no-cache", "\"v1\""));
+    results.add(new WaspError(newResponse(304, null, null, null), "not modified"));
+
+    cachingNetworkStack.invokeRequest(newRequest(-1, 0), new ResponseHolder());
+    ResponseHolder holder = new ResponseHolder();
+    cachingNetworkStack.invokeRequest(newRequest(-1, 0), holder);
+
+    assertThat(sentRequests).isEqualTo(2);
+    assertThat(lastRequest.getHeaders().get("If-None-Match")).isEqualTo("\"v1\"");
+    assertThat(holder.response.isRevalidated()).isTrue();
+    assertThat(holder.response.getStatusCode()).isEqualTo(200);
+    assertThat(holder.response.getResponseObject()).isSameAs(user);
+  }
+
+  @Test
+  public void testNotModifiedSuccessIsRevalidated() throws Exception {
+    Object user = new Object();
+    results.add(newResponse(200, user, "no-cache", "\"v1\""));
+    results.add(newResponse(304, null, "max-age=60", null));
+
+    cachingNetworkStack.invokeRequest(newRequest(-1, 0));
+    assertThat(cachingNetworkStack.invokeRequest(newRequest(-1, 0))).isSameAs(user);
+
+    // max age of the 304 refreshes the entry
+    assertThat(cachingNetworkStack.invokeRequest(newRequest(-1, 0))).isSameAs(user);
+    assertThat(sentRequests).isEqualTo(2);
+  }
+
+  @Test
+  public void testChangedResponseReplacesRevalidatedEntry() throws Exception {
+    Object user = new Object();
+    results.add(newResponse(200, new Object(), "no-cache", "\"v1\""));
+    results.add(newResponse(200, user, "no-cache", "\"v2\""));
+    results.add(new WaspError(newResponse(304, null, null, null), "not modified"));
+
+    cachingNetworkStack.invokeRequest(newRequest(-1, 0));
+    assertThat(cachingNetworkStack.invokeRequest(newRequest(-1, 0))).isSameAs(user);
+    assertThat(cachingNetworkStack.invokeRequest(newRequest(-1, 0))).isSameAs(user);
+    assertThat(lastRequest.getHeaders().get("If-None-Match")).isEqualTo("\"v2\"");
+  }
+
+  @Test
+  public void testStaleResponseIsDeliveredBeforeRefresh() {
+    Object user = new Object();
+    Object refreshedUser = new Object();
+    results.add(newResponse(200, user, null));
+    results.add(newResponse(200, refreshedUser, null));
+
+    cachingNetworkStack.invokeRequest(newStaleWhileRevalidateRequest(), new ResponseHolder());
+    ResponseHolder holder = new ResponseHolder();
+    cachingNetworkStack.invokeRequest(newStaleWhileRevalidateRequest(), holder);
+
+    assertThat(holder.responses).hasSize(2);
+    assertThat(holder.responses.get(0).isStale()).isTrue();
+    assertThat(holder.responses.get(0).getResponseObject()).isSameAs(user);
+    assertThat(holder.responses.get(1).isStale()).isFalse();
+    assertThat(holder.responses.get(1).getResponseObject()).isSameAs(refreshedUser);
+  }
+
+  @Test
+  public void testUnchangedRefreshReusesStaleObject() {
+    Object user = new Object();
+    results.add(newResponse(200, user, null, "\"v1\""));
+    results.add(newResponse(200, new Object(), null, "\"v1\""));
+
+    cachingNetworkStack.invokeRequest(newStaleWhileRevalidateRequest(), new ResponseHolder());
+    ResponseHolder holder = new ResponseHolder();
+    cachingNetworkStack.invokeRequest(newStaleWhileRevalidateRequest(), holder);
+
+    assertThat(holder.responses).hasSize(2);
+    assertThat(holder.responses.get(1).isRevalidated()).isTrue();
+    assertThat(holder.responses.get(1).getResponseObject()).isSameAs(user);
+  }
+
+  @Test
+  public void testSyncStaleWhileRevalidateReturnsStaleObject() throws Exception {
+    Object user = new Object();
+    Object refreshedUser = new Object();
+    results.add(newResponse(200, user, null));
+    results.add(newResponse(200, refreshedUser, null));
+    results.add(newResponse(200, new Object(), null));
+
+    cachingNetworkStack.invokeRequest(newStaleWhileRevalidateRequest());
+    assertThat(cachingNetworkStack.invokeRequest(newStaleWhileRevalidateRequest())).isSameAs(user);
+    assertThat(cachingNetworkStack.invokeRequest(newStaleWhileRevalidateRequest()))
+        .isSameAs(refreshedUser);
+  }
+
+  @Test
+  public void testStaleWhileRevalidateRequiresCache() {
+    try {
+      new ServiceMethod.Builder("Api.getUser")
+          .setHttpMethod("GET", "/users")
+          .setStaleWhileRevalidate()
+          .returnsSync(Object.class)
+          .build();
+      fail("@StaleWhileRevalidate should require @Cache");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("@StaleWhileRevalidate requires @Cache");
+    }
+  }
+
+  @Test
+  public void testResponseIsReadFromDisk() throws Exception {
+    File directory = new File(context.getCacheDir(), "test-responses-" + System.nanoTime());
+    ResponseCache cache = new ResponseCache(directory, 1024 * 1024);
+    Map<String, String> headers = new HashMap<>();
+    headers.put("Cache-Control", "max-age=60");
+    headers.put("Content-Type", "application/json; charset=UTF-8");
+    results.add(new Response.Builder()
+        .setStatusCode(200)
+        .setHeaders(headers)
+        .setBody("{\"name\":\"wasp\"}".getBytes("UTF-8"), Charset.forName("UTF-8"))
+        .setResponseObject(new Object())
+        .build());
+    new CachingNetworkStack(networkStack, cache).invokeRequest(newRequest(60, 0));
+    awaitCacheThread(cache);
+
+    // nothing is in the memory of a new cache, the body is read from the disk and parsed
+    ResponseCache newCache = new ResponseCache(directory, 1024 * 1024);
+    Object user = new CachingNetworkStack(networkStack, newCache).invokeRequest(newRequest(60, 0));
+    assertThat(sentRequests).isEqualTo(1);
+    assertThat(((Map<?, ?>) user).get("name")).isEqualTo("wasp");
+  }
+
+  @Test
+  public void testCacheOfDirectoryIsShared() {
+    File directory = new File(context.getCacheDir(), "test-responses");
+    assertThat(ResponseCache.forDirectory(directory, 1024))
+        .isSameAs(ResponseCache.forDirectory(new File(directory.getPath()), 2048));
+    assertThat(ResponseCache.forDirectory(null, 1024))
+        .isNotSameAs(ResponseCache.forDirectory(null, 1024));
+  }
+
+  @Test
+  public void testExpiresIsRelativeToDate() {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("Date", "Thu, 01 Jan 2015 00:00:00 GMT");
+    headers.put("Expires", "Thu, 01 Jan 2015 00:01:00 GMT");
+    Response response = new Response.Builder().setStatusCode(200).setHeaders(headers).build();
+
+    CacheEntry entry = CacheEntry.create(new CachePolicy(-1, 0), response, 1000);
+    assertThat(entry.getExpiresAt()).isEqualTo(61000);
+  }
+
+  @Test
+  public void testOnlyGetCanBeCached() {
+    try {
+      new ServiceMethod.Builder("Api.postUser")
+          .setHttpMethod("POST", "/users")
+          .setCache(60, 0)
+          .returnsSync(Object.class)
+          .build();
+      fail("Only GET requests should be cached");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("Only GET requests can be cached");
+    }
+  }
+
+  private RequestCreator newRequest(int maxAge, int staleIfError) {
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.getUser")
+        .setHttpMethod("GET", "/users/wasp")
+        .setCache(maxAge, staleIfError)
+        .returnsSync(Object.class)
+        .build()
+        .getMethodInfo();
+    return new RequestCreator.Builder(methodInfo, "http://www", parser).build();
+  }
+
+  private RequestCreator newStaleWhileRevalidateRequest() {
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.getFeed")
+        .setHttpMethod("GET", "/feed")
+        .setCache(-1, 0)
+        .setStaleWhileRevalidate()
+        .returnsSync(Object.class)
+        .build()
+        .getMethodInfo();
+    return new RequestCreator.Builder(methodInfo, "http://www", parser).build();
+  }
+
+  private static void awaitCacheThread(ResponseCache cache) throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(1);
+    cache.execute(new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    });
+    latch.await();
+  }
+
+  private static Response newResponse(int statusCode, Object responseObject,
+                                      String cacheControl) {
+    return newResponse(statusCode, responseObject, cacheControl, null);
+  }
+
+  private static Response newResponse(int statusCode, Object responseObject,
+                                      String cacheControl, String etag) {
+    Map<String, String> headers = new HashMap<>();
+    if (cacheControl != null) {
+      headers.put("Cache-Control", cacheControl);
+    }
+    if (etag != null) {
+      headers.put("ETag", etag);
+    }
+    return new Response.Builder()
+        .setStatusCode(statusCode)
+        .setHeaders(headers)
+        .setResponseObject(responseObject)
+        .build();
+  }
+
+  private static class ResponseHolder implements InternalCallback<Response> {
+
+    final List<Response> responses = new ArrayList<>();
+    Response response;
+
+    @Override
+    public void onSuccess(Response response) {
+      this.response = response;
+      responses.add(response);
+    }
+
+    @Override
+    public void onError(WaspError error) {
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.utils.AuthToken;
+import com.orhanobut.wasp.utils.CachingRequestInterceptor;
+import com.orhanobut.wasp.utils.RequestInterceptor;
+import com.orhanobut.wasp.utils.RequestInterceptorSnapshot;
+import com.orhanobut.wasp.utils.SimpleRequestInterceptor;
+import com.orhanobut.wasp.utils.WaspRetryPolicy;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class CachingRequestInterceptorTest extends TestCase {
+
+  private int callCount;
+  private String token = "first";
+
+  private final CachingRequestInterceptor interceptor = new CachingRequestInterceptor() {
+    @Override
+    public void onHeadersAdded(Map<String, String> headers) {
+      callCount++;
+      headers.put("key", "value");
+    }
+
+    @Override
+    public AuthToken getAuthToken() {
+      return new AuthToken(token);
+    }
+  };
+
+  @Test
+  public void testSnapshotIsReused() {
+    RequestInterceptorSnapshot snapshot = interceptor.getSnapshot();
+
+    assertThat(interceptor.getSnapshot()).isSameAs(snapshot);
+    assertThat(callCount).isEqualTo(1);
+    assertThat(snapshot.getHeaders().get("key")).isEqualTo("value");
+    assertThat(snapshot.getQueryParams().isEmpty()).isTrue();
+    assertThat(snapshot.newRetryPolicy()).isNull();
+  }
+
+  @Test
+  public void testInvalidate() {
+    RequestInterceptorSnapshot snapshot = interceptor.getSnapshot();
+    token = "second";
+    interceptor.invalidate();
+
+    RequestInterceptorSnapshot newSnapshot = interceptor.getSnapshot();
+    assertThat(newSnapshot).isNotSameAs(snapshot);
+    assertThat(newSnapshot.getAuthToken().getToken()).isEqualTo("second");
+    assertThat(callCount).isEqualTo(2);
+  }
+
+  @Test
+  public void testRetryPolicyOfPlainInterceptorIsNotShared() {
+    final WaspRetryPolicy policy = new WaspRetryPolicy(1000, 1, 1f);
+    RequestInterceptor plainInterceptor = new SimpleRequestInterceptor() {
+      @Override
+      public WaspRetryPolicy getRetryPolicy() {
+        return policy;
+      }
+    };
+
+    WaspRetryPolicy first = newRequest(plainInterceptor).getRetryPolicy();
+    WaspRetryPolicy second = newRequest(plainInterceptor).getRetryPolicy();
+
+    assertThat(first).isNotSameAs(policy).isNotSameAs(second);
+    assertThat(first.getCurrentTimeout()).isEqualTo(1000);
+    assertThat(first.getMaxNumRetries()).isEqualTo(1);
+  }
+
+  private RequestCreator newRequest(RequestInterceptor requestInterceptor) {
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.getUser")
+        .setHttpMethod("GET", "/user")
+        .returnsSync(Object.class)
+        .build()
+        .getMethodInfo();
+    return new RequestCreator.Builder(methodInfo, "http://www", new GsonParser())
+        .setRequestInterceptor(requestInterceptor)
+        .build();
+  }
+}
@@ -0,0 +1,98 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CoalescingNetworkStackTest extends BaseTestCase {
+
+  private final Parser parser = new GsonParser();
+
+  private final List<InternalCallback<Response>> sentRequests = new ArrayList<>();
+
+  private final NetworkStack networkStack = new NetworkStack() {
+    @Override
+    public void invokeRequest(RequestCreator requestCreator,
+                              InternalCallback<Response> waspCallback) {
+      sentRequests.add(waspCallback);
+    }
+
+    @Override
+    public Object invokeRequest(RequestCreator requestCreator) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  private final MethodInfo methodInfo = new ServiceMethod.Builder("Api.getUser")
+      .setHttpMethod("GET", "/users/{user}")
+      .addPathParam("user")
+      .returnsCallback(Object.class)
+      .build()
+      .getMethodInfo();
+
+  private final CoalescingNetworkStack coalescingNetworkStack =
+      new CoalescingNetworkStack(networkStack);
+
+  public CoalescingNetworkStackTest() {
+    new Wasp.Builder(context)
+        .setEndpoint("http://www")
+        .build();
+  }
+
+  @Test
+  public void testIdenticalRequestsShareResponse() {
+    ResponseHolder first = new ResponseHolder();
+    ResponseHolder second = new ResponseHolder();
+    coalescingNetworkStack.invokeRequest(newRequest("wasp"), first);
+    coalescingNetworkStack.invokeRequest(newRequest("wasp"), second);
+    assertThat(sentRequests.size()).isEqualTo(1);
+
+    Response response = new Response.Builder().setStatusCode(200).build();
+    sentRequests.get(0).onSuccess(response);
+
+    assertThat(first.response).isSameAs(response);
+    assertThat(second.response).isSameAs(response);
+  }
+
+  @Test
+  public void testDifferentRequestsAreNotCoalesced() {
+    coalescingNetworkStack.invokeRequest(newRequest("wasp"), new ResponseHolder());
+    coalescingNetworkStack.invokeRequest(newRequest("orhan"), new ResponseHolder());
+    assertThat(sentRequests.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void testCompletedRequestIsSentAgain() {
+    coalescingNetworkStack.invokeRequest(newRequest("wasp"), new ResponseHolder());
+    sentRequests.get(0).onError(new WaspError(null, "error"));
+
+    coalescingNetworkStack.invokeRequest(newRequest("wasp"), new ResponseHolder());
+    assertThat(sentRequests.size()).isEqualTo(2);
+  }
+
+  private RequestCreator newRequest(String user) {
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, "http://www", parser);
+    builder.addParam(0, user);
+    return builder.build();
+  }
+
+  private static class ResponseHolder implements InternalCallback<Response> {
+
+    Response response;
+
+    @Override
+    public void onSuccess(Response response) {
+      this.response = response;
+    }
+
+    @Override
+    public void onError(WaspError error) {
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.mime.GzipTypedOutput;
+import com.orhanobut.wasp.mime.TypedOutput;
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class CompressTest extends TestCase {
+
+  private final Parser parser = new GsonParser();
+
+  private final MethodInfo methodInfo = new ServiceMethod.Builder("Api.upload")
+      .setHttpMethod("POST", "/upload")
+      .setCompress()
+      .addBodyParam()
+      .returnsSync(String.class)
+      .build()
+      .getMethodInfo();
+
+  public CompressTest() {
+    new Wasp.Builder()
+        .setEndpoint("http://www")
+        .build();
+  }
+
+  @Test
+  public void testBodyIsCompressed() throws Exception {
+    RequestCreator requestCreator = newRequest("wasp", 0);
+
+    TypedOutput body = requestCreator.getBody();
+    assertThat(body).isInstanceOf(GzipTypedOutput.class);
+    assertThat(body.length()).isEqualTo(-1);
+    assertThat(requestCreator.getHeaders().get("Content-Encoding")).isEqualTo("gzip");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    body.writeTo(out);
+    assertThat(decompress(out.toByteArray())).isEqualTo("\"wasp\"");
+  }
+
+  @Test
+  public void testSmallBodyIsNotCompressed() {
+    RequestCreator requestCreator = newRequest("wasp", 1024);
+
+    assertThat(requestCreator.getBody()).isNotInstanceOf(GzipTypedOutput.class);
+    assertThat(requestCreator.getHeaders().get("Content-Encoding")).isNull();
+  }
+
+  @Test
+  public void testGetCanNotBeCompressed() {
+    try {
+      new ServiceMethod.Builder("Api.getUser")
+          .setHttpMethod("GET", "/user")
+          .setCompress()
+          .returnsSync(String.class)
+          .build();
+      fail("GET should not be compressed");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("can not be compressed");
+    }
+  }
+
+  private RequestCreator newRequest(String body, int compressionThreshold) {
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, "http://www", parser);
+    builder.addParam(0, body);
+    return builder.setCompressionThreshold(compressionThreshold).build();
+  }
+
+  private static String decompress(byte[] bytes) throws Exception {
+    InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[256];
+    int count;
+    while ((count = in.read(buffer)) != -1) {
+      out.write(buffer, 0, count);
+    }
+    return out.toString("UTF-8");
+  }
+}
@@ -1,8 +1,17 @@
 package com.orhanobut.wasp;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import com.orhanobut.wasp.parsers.GeneratedTypeAdapter;
+import com.orhanobut.wasp.parsers.GeneratedTypeAdapterFactory;
 import com.orhanobut.wasp.parsers.GsonParser;
 import com.orhanobut.wasp.parsers.Parser;
+import com.orhanobut.wasp.parsers.StreamingParser;
 
 import junit.framework.TestCase;
 
@@ -11,7 +20,9 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -65,6 +76,55 @@ public class GsonParserTest extends TestCase {
     }
   }
 
+  @Test
+  public void testFromBodyStream() throws IOException {
+    StreamingParser parser = new GsonParser();
+    Charset charset = Charset.forName("UTF-8");
+    byte[] data = "{\"name\":\"wasp \u00fc\"}".getBytes(charset);
+
+    Foo expected = parser.fromBody(new ByteArrayInputStream(data), charset, Foo.class);
+    assertThat(expected.name).isEqualTo("wasp \u00fc");
+  }
+
+  @Test
+  public void testFromBodyStreamWithTrailingContent() throws IOException {
+    StreamingParser parser = new GsonParser();
+    Charset charset = Charset.forName("UTF-8");
+
+    Foo expected = parser.fromBody(
+        new ByteArrayInputStream("{\"name\":\"wasp\"} \n".getBytes(charset)), charset, Foo.class
+    );
+    assertThat(expected.name).isEqualTo("wasp");
+
+    try {
+      parser.fromBody(
+          new ByteArrayInputStream("{\"name\":\"wasp\"} garbage".getBytes(charset)), charset,
+          Foo.class
+      );
+      fail("Content after the value should not be ignored");
+    } catch (JsonSyntaxException e) {
+      assertThat(e.getCause()).isInstanceOf(MalformedJsonException.class);
+    }
+
+    try {
+      parser.fromBody(
+          new ByteArrayInputStream("{\"name\":\"wasp\"}]".getBytes(charset)), charset, Foo.class
+      );
+      fail("Content after the value should not be ignored");
+    } catch (JsonSyntaxException e) {
+      assertThat(e.getCause()).isInstanceOf(MalformedJsonException.class);
+    }
+  }
+
+  @Test
+  public void testFromBodyEmptyStream() throws IOException {
+    StreamingParser parser = new GsonParser();
+    Foo expected = parser.fromBody(
+        new ByteArrayInputStream(new byte[0]), Charset.forName("UTF-8"), Foo.class
+    );
+    assertThat(expected).isNull();
+  }
+
   @Test
   public void testToBody() {
     Parser parser = new GsonParser();
@@ -80,7 +140,85 @@ public class GsonParserTest extends TestCase {
     assertThat(actual).isNull();
   }
 
+  @Test
+  public void testOtherTypesAreLeftToGson() {
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(new GeneratedTypeAdapterFactory())
+        .create();
+    assertThat(gson.getAdapter(Foo.class)).isNotInstanceOf(GeneratedTypeAdapter.class);
+    assertThat(gson.toJson(new Foo())).isEqualTo(new Gson().toJson(new Foo()));
+  }
+
+  @Test
+  public void testGeneratedTypeAdapterWritesRuntimeType() {
+    Holder holder = new Holder();
+    holder.foo = new SubFoo();
+
+    Gson gson = new Gson();
+    assertThat(new HolderAdapter(gson).toJson(holder)).isEqualTo(gson.toJson(holder));
+  }
+
+  @Test
+  public void testGeneratedTypeAdapterPrefersCustomAdapterOfDeclaredType() {
+    Holder holder = new Holder();
+    holder.foo = new SubFoo();
+
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapter(Foo.class, new TypeAdapter<Foo>() {
+          @Override
+          public void write(JsonWriter out, Foo value) throws IOException {
+            out.value("custom");
+          }
+
+          @Override
+          public Foo read(JsonReader in) throws IOException {
+            in.skipValue();
+            return new Foo();
+          }
+        })
+        .create();
+    assertThat(new HolderAdapter(gson).toJson(holder)).isEqualTo("{\"foo\":\"custom\"}");
+    assertThat(gson.toJson(holder)).isEqualTo("{\"foo\":\"custom\"}");
+  }
+
   static class Foo {
     String name = "test";
   }
+
+  static class SubFoo extends Foo {
+    int count = 1;
+  }
+
+  static class Holder {
+    Foo foo;
+  }
+
+  /**
+   * Written the way wasp-compiler writes the adapters
+   */
+  static class HolderAdapter extends GeneratedTypeAdapter<Holder> {
+
+    private final TypeAdapter<Foo> fooAdapter;
+
+    HolderAdapter(Gson gson) {
+      super(gson);
+      fooAdapter = getAdapter(Foo.class);
+    }
+
+    @Override
+    protected Holder newInstance() {
+      return new Holder();
+    }
+
+    @Override
+    protected void readField(JsonReader in, String name, Holder value) throws IOException {
+      in.skipValue();
+    }
+
+    @Override
+    protected void writeFields(JsonWriter out, Holder value) throws IOException {
+      out.name("foo");
+      write(out, fooAdapter, Foo.class, value.foo);
+    }
+  }
 }
@@ -0,0 +1,86 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.http.GET;
+import com.orhanobut.wasp.http.POST;
+import com.orhanobut.wasp.http.Part;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class MethodInfoCacheTest extends TestCase {
+
+  private static final long TIMEOUT = 4000;
+
+  interface Api {
+    @GET("/user")
+    void getUser(Callback<String> callback);
+
+    @GET("/repos")
+    void getRepos(Callback<String> callback);
+  }
+
+  interface InvalidApi {
+    @POST("/file")
+    void upload(@Part("file") String file, Callback<String> callback);
+  }
+
+  @Test
+  public void testMethodsAreParsedWhenTheyAreUsed() throws Exception {
+    Wasp wasp = new Wasp.Builder().setEndpoint("http://www").build();
+    wasp.create(Api.class);
+    MethodInfoCache cache = wasp.getMethodInfoCache();
+    Method getUser = Api.class.getDeclaredMethod("getUser", Callback.class);
+    Method getRepos = Api.class.getDeclaredMethod("getRepos", Callback.class);
+
+    assertThat(cache.isParsed(getUser)).isFalse();
+    assertThat(cache.isParsed(getRepos)).isFalse();
+
+    MethodInfo methodInfo = cache.get(getUser);
+
+    assertThat(cache.get(getUser)).isSameAs(methodInfo);
+    assertThat(cache.isParsed(getRepos)).isFalse();
+  }
+
+  @Test
+  public void testInvalidMethodFailsWhenItIsUsed() throws Exception {
+    Wasp wasp = new Wasp.Builder().setEndpoint("http://www").build();
+    wasp.create(InvalidApi.class);
+    Method upload = InvalidApi.class.getDeclaredMethod("upload", String.class, Callback.class);
+
+    try {
+      wasp.getMethodInfoCache().get(upload);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("@Multipart");
+    }
+    assertThat(wasp.getMethodInfoCache().isParsed(upload)).isFalse();
+  }
+
+  @Test
+  public void testWarmUpParsesAllMethods() throws Exception {
+    Wasp wasp = new Wasp.Builder().setEndpoint("http://www").build();
+    MethodInfoCache cache = wasp.getMethodInfoCache();
+    Method getUser = Api.class.getDeclaredMethod("getUser", Callback.class);
+    Method getRepos = Api.class.getDeclaredMethod("getRepos", Callback.class);
+
+    wasp.warmUp(InvalidApi.class, Api.class);
+
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (!(cache.isParsed(getUser) && cache.isParsed(getRepos))
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(cache.isParsed(getUser)).isTrue();
+    assertThat(cache.isParsed(getRepos)).isTrue();
+  }
+}
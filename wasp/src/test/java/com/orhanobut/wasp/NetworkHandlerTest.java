@@ -0,0 +1,42 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.http.GET;
+import com.orhanobut.wasp.parsers.GsonParser;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class NetworkHandlerTest extends TestCase {
+
+  interface Api {
+    @GET("/user")
+    String getUser();
+  }
+
+  @Test
+  public void testObjectMethodsUseTheIdentityOfTheProxy() {
+    Object first = newProxy();
+    Object second = newProxy();
+
+    assertThat(first.equals(first)).isTrue();
+    assertThat(first.equals(second)).isFalse();
+    assertThat(first.equals(null)).isFalse();
+    assertThat(first.hashCode()).isEqualTo(System.identityHashCode(first));
+    assertThat(first.toString()).startsWith(Api.class.getName() + "@");
+  }
+
+  private Object newProxy() {
+    Wasp.Builder builder = new Wasp.Builder().setEndpoint("http://www");
+    return NetworkHandler.newInstance(
+        Api.class, builder, new GsonParser(), false, new MethodInfoCache(null), null, null
+    ).getProxyClass();
+  }
+}
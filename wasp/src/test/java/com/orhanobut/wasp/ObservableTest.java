@@ -0,0 +1,128 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.http.GET;
+import com.orhanobut.wasp.http.Multipart;
+import com.orhanobut.wasp.http.POST;
+import com.orhanobut.wasp.http.Part;
+import com.orhanobut.wasp.http.Query;
+import com.orhanobut.wasp.utils.SimpleRequestInterceptor;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import rx.Observable;
+import rx.Subscriber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ObservableTest extends TestCase {
+
+  private final List<RequestCreator> sentRequests = new ArrayList<>();
+  private int interceptCount;
+
+  interface Api {
+    @GET("/users")
+    Observable<String> getUsers(@Query("page") int page);
+
+    @Multipart
+    @POST("/upload")
+    Observable<String> upload(@Part("file") Object file);
+  }
+
+  private final Api api = new Wasp.Builder()
+      .setEndpoint("http://www")
+      .setRequestInterceptor(new SimpleRequestInterceptor() {
+        @Override
+        public void onHeadersAdded(Map<String, String> headers) {
+          headers.put("Token", String.valueOf(++interceptCount));
+        }
+      })
+      .setNetworkStack(new NetworkStack() {
+        @Override
+        public void invokeRequest(RequestCreator requestCreator,
+                                  InternalCallback<Response> waspCallback) {
+          sentRequests.add(requestCreator);
+        }
+
+        @Override
+        public Object invokeRequest(RequestCreator requestCreator) throws Exception {
+          sentRequests.add(requestCreator);
+          return "users";
+        }
+      })
+      .build()
+      .create(Api.class);
+
+  @Test
+  public void testRequestIsCreatedOnSubscribe() {
+    Observable<String> observable = api.getUsers(2);
+    assertThat(interceptCount).isEqualTo(0);
+
+    observable.subscribe(new NoOpSubscriber());
+    observable.subscribe(new NoOpSubscriber());
+
+    assertThat(sentRequests).hasSize(2);
+    assertThat(sentRequests.get(0).getHeaders().get("Token")).isEqualTo("1");
+    assertThat(sentRequests.get(1).getHeaders().get("Token")).isEqualTo("2");
+    assertThat(sentRequests.get(1).getUrl()).isEqualTo("http://www/users?page=2");
+  }
+
+  @Test
+  public void testFilePartIsSentForEachSubscription() throws Exception {
+    File file = File.createTempFile("upload", ".txt");
+    file.deleteOnExit();
+    Observable<String> observable = api.upload(file);
+
+    observable.subscribe(new NoOpSubscriber());
+    observable.subscribe(new NoOpSubscriber());
+
+    assertThat(sentRequests).hasSize(2);
+  }
+
+  @Test
+  public void testStreamPartIsNotSentAgain() {
+    Observable<String> observable = api.upload(new ByteArrayInputStream(new byte[]{1, 2}));
+    final List<Throwable> errors = new ArrayList<>();
+
+    observable.subscribe(new NoOpSubscriber());
+    observable.subscribe(new NoOpSubscriber() {
+      @Override
+      public void onError(Throwable e) {
+        errors.add(e);
+      }
+    });
+
+    assertThat(sentRequests).hasSize(1);
+    assertThat(errors).hasSize(1);
+    assertThat(errors.get(0)).isInstanceOf(IllegalStateException.class);
+    assertThat(errors.get(0).getMessage()).contains("Api.upload");
+  }
+
+  private static class NoOpSubscriber extends Subscriber<String> {
+
+    @Override
+    public void onCompleted() {
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      throw new AssertionError(e);
+    }
+
+    @Override
+    public void onNext(String s) {
+    }
+  }
+}
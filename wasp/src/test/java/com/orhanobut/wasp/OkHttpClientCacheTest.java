@@ -0,0 +1,76 @@
+package com.orhanobut.wasp;
+
+import com.squareup.okhttp.OkHttpClient;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.net.CookieManager;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class OkHttpClientCacheTest extends TestCase {
+
+  @Test
+  public void testClientIsReusedForTheSameTimeout() {
+    OkHttpClient client = new OkHttpClient();
+    OkHttpClientCache clients = new OkHttpClientCache(client);
+
+    OkHttpClient first = clients.get(2500);
+    OkHttpClient second = clients.get(5000);
+
+    assertThat(first).isNotSameAs(client);
+    assertThat(clients.get(2500)).isSameAs(first);
+    assertThat(second).isNotSameAs(first);
+    assertThat(first.getConnectTimeout()).isEqualTo(2500);
+    assertThat(first.getReadTimeout()).isEqualTo(2500);
+    assertThat(first.getWriteTimeout()).isEqualTo(2500);
+    assertThat(second.getReadTimeout()).isEqualTo(5000);
+  }
+
+  @Test
+  public void testCopiesShareTheConnectionPoolAndTheDispatcher() {
+    OkHttpClient client = new OkHttpClient();
+    OkHttpClientCache clients = new OkHttpClientCache(client);
+
+    OkHttpClient first = clients.get(2500);
+    OkHttpClient second = clients.get(5000);
+
+    assertThat(client.getConnectionPool()).isNotNull();
+    assertThat(first.getConnectionPool()).isSameAs(client.getConnectionPool());
+    assertThat(second.getConnectionPool()).isSameAs(client.getConnectionPool());
+    assertThat(first.getDispatcher()).isSameAs(client.getDispatcher());
+    assertThat(second.getDispatcher()).isSameAs(client.getDispatcher());
+  }
+
+  @Test
+  public void testClientIsUsedWhenItHasTheTimeout() {
+    OkHttpClient client = new OkHttpClient();
+    client.setConnectTimeout(2500, TimeUnit.MILLISECONDS);
+    client.setReadTimeout(2500, TimeUnit.MILLISECONDS);
+    client.setWriteTimeout(2500, TimeUnit.MILLISECONDS);
+    OkHttpClientCache clients = new OkHttpClientCache(client);
+
+    assertThat(clients.get(2500)).isSameAs(client);
+  }
+
+  @Test
+  public void testCopiesAreDroppedWhenTheClientIsConfigured() {
+    WaspOkHttpStack stack = new WaspOkHttpStack();
+    OkHttpClient before = stack.getHttpStack().getClient(2500);
+    CookieManager cookieManager = new CookieManager();
+
+    stack.setCookieHandler(cookieManager);
+    OkHttpClient after = stack.getHttpStack().getClient(2500);
+
+    assertThat(after).isNotSameAs(before);
+    assertThat(after.getCookieHandler()).isSameAs(cookieManager);
+  }
+}
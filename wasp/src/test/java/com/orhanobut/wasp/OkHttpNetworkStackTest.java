@@ -0,0 +1,194 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+import com.squareup.okhttp.mockwebserver.SocketPolicy;
+
+import junit.framework.TestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class OkHttpNetworkStackTest extends TestCase {
+
+  private static final long TIMEOUT = 4;
+
+  private final Parser parser = new GsonParser();
+
+  private final NetworkStack networkStack = OkHttpNetworkStack.newInstance(new OkHttpClient());
+
+  private MockWebServer server;
+  private String endPoint;
+
+  static class User {
+    String name;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    server = new MockWebServer();
+    server.start();
+    endPoint = server.url("/v1").toString();
+
+    new Wasp.Builder()
+        .setEndpoint(endPoint)
+        .build();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test
+  public void testDiscardedBodyIsParsed() throws Exception {
+    server.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody("{\"name\":\"wasp\"}"));
+
+    User user = (User) networkStack.invokeRequest(newRequest());
+    assertThat(user.name).isEqualTo("wasp");
+  }
+
+  @Test
+  public void testEmptyDiscardedBodyIsNull() throws Exception {
+    server.enqueue(new MockResponse().setBody(""));
+
+    assertThat(networkStack.invokeRequest(newRequest())).isNull();
+  }
+
+  @Test
+  public void testErrorBodyIsKept() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(500).setBody("error"));
+
+    try {
+      networkStack.invokeRequest(newRequest());
+      fail("Server errors should fail");
+    } catch (ExecutionException e) {
+      WaspError error = (WaspError) e.getCause();
+      assertThat(error.getResponse().getStatusCode()).isEqualTo(500);
+      assertThat(error.getResponse().getBody()).isEqualTo("error");
+    }
+  }
+
+  @Test
+  public void testHeadersAndBodyAreSent() throws Exception {
+    server.enqueue(new MockResponse().setBody("{\"name\":\"wasp\"}"));
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.createUser")
+        .setHttpMethod("POST", "/users")
+        .addHeaders("Accept:application/json")
+        .addBodyParam()
+        .returnsSync(User.class)
+        .build()
+        .getMethodInfo();
+    User user = new User();
+    user.name = "wasp";
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, endPoint, parser);
+    builder.addParam(0, user);
+
+    User response = (User) networkStack.invokeRequest(builder.build());
+
+    RecordedRequest request = server.takeRequest();
+    assertThat(request.getMethod()).isEqualTo("POST");
+    assertThat(request.getPath()).isEqualTo("/v1/users");
+    assertThat(request.getHeader("Accept")).isEqualTo("application/json");
+    assertThat(request.getHeader("Content-Type")).startsWith("application/json");
+    assertThat(request.getBody().readUtf8()).isEqualTo("{\"name\":\"wasp\"}");
+    assertThat(response.name).isEqualTo("wasp");
+  }
+
+  @Test
+  public void testTimeoutIsRetried() throws Exception {
+    server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+    server.enqueue(new MockResponse().setBody("{\"name\":\"wasp\"}"));
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.getUser")
+        .setHttpMethod("GET", "/users/wasp")
+        .setRetryPolicy(500, 1, 1f)
+        .returnsSync(User.class)
+        .build()
+        .getMethodInfo();
+
+    User user = (User) networkStack.invokeRequest(
+        new RequestCreator.Builder(methodInfo, endPoint, parser).build()
+    );
+
+    assertThat(user.name).isEqualTo("wasp");
+    assertThat(server.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testAsyncResponseIsDelivered() throws Exception {
+    server.enqueue(new MockResponse().setBody("{\"name\":\"wasp\"}"));
+    final CountDownLatch latch = new CountDownLatch(1);
+    final Response[] responses = new Response[1];
+
+    networkStack.invokeRequest(newRequest(), new InternalCallback<Response>() {
+      @Override
+      public void onSuccess(Response response) {
+        responses[0] = response;
+        latch.countDown();
+      }
+
+      @Override
+      public void onError(WaspError error) {
+        fail(error.getErrorMessage());
+      }
+    });
+
+    assertTrue(latch.await(TIMEOUT, TimeUnit.SECONDS));
+    assertThat(responses[0].getStatusCode()).isEqualTo(200);
+    assertThat(((User) responses[0].getResponseObject()).name).isEqualTo("wasp");
+  }
+
+  @Test
+  public void testAsyncErrorIsDelivered() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(404).setBody("not found"));
+    final CountDownLatch latch = new CountDownLatch(1);
+    final WaspError[] errors = new WaspError[1];
+
+    networkStack.invokeRequest(newRequest(), new InternalCallback<Response>() {
+      @Override
+      public void onSuccess(Response response) {
+        fail("Client errors should fail");
+      }
+
+      @Override
+      public void onError(WaspError error) {
+        errors[0] = error;
+        latch.countDown();
+      }
+    });
+
+    assertTrue(latch.await(TIMEOUT, TimeUnit.SECONDS));
+    assertThat(errors[0].getResponse().getStatusCode()).isEqualTo(404);
+    assertThat(errors[0].getResponse().getBody()).isEqualTo("not found");
+  }
+
+  private RequestCreator newRequest() {
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.getUser")
+        .setHttpMethod("GET", "/users/wasp")
+        .returnsSync(User.class)
+        .build()
+        .getMethodInfo();
+    // discarded bodies are parsed from the stream of the response
+    return new RequestCreator.Builder(methodInfo, endPoint, parser)
+        .setResponseBodyDiscarded(true)
+        .build();
+  }
+}
@@ -0,0 +1,103 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures the bytes which are allocated to build a GET request with path and query params.
+ * Static parts of the request are resolved once by the request template, only the url and the
+ * request itself should be allocated per call. See RequestUrlBenchmark of wasp-benchmark for the
+ * comparison with the old per call path.
+ */
+public class RequestCreatorAllocationTest extends BaseTestCase {
+
+  private final Parser parser = new GsonParser();
+
+  private static final int WARM_UP_COUNT = 10000;
+  private static final int COUNT = 100000;
+
+  /**
+   * Leaves room for the url, the request and the retry policy, but not for copying the headers
+   * and building the query with Uri.Builder as it was done for each call before
+   */
+  private static final long MAX_BYTES_PER_REQUEST = 1024;
+
+  private final MethodInfo methodInfo = new ServiceMethod.Builder("Api.getRepos")
+      .setHttpMethod("GET", "/users/{user}/repos")
+      .addHeaders("Accept:application/json", "User-Agent:wasp")
+      .setRetryPolicy(1000, 1, 1f)
+      .addPathParam("user")
+      .addQueryParam("page")
+      .addQueryParam("sort")
+      .returnsSync(Object.class)
+      .build()
+      .getMethodInfo();
+
+  public RequestCreatorAllocationTest() {
+    new Wasp.Builder(context)
+        .setEndpoint("http://www")
+        .build();
+  }
+
+  @Test
+  public void testStaticHeadersAreShared() {
+    Map<String, String> first = newRequest(1).getHeaders();
+    Map<String, String> second = newRequest(2).getHeaders();
+
+    assertThat(first).isSameAs(second);
+    assertThat(first.get("Accept")).isEqualTo("application/json");
+    assertThat(first.get("User-Agent")).isEqualTo("wasp");
+  }
+
+  @Test
+  public void testRetryPolicyIsNotShared() {
+    assertThat(newRequest(1).getRetryPolicy()).isNotSameAs(newRequest(2).getRetryPolicy());
+    assertThat(newRequest(1).getRetryPolicy().getCurrentTimeout()).isEqualTo(1000);
+  }
+
+  @Test
+  public void testUrl() {
+    assertThat(newRequest(3).getUrl()).isEqualTo("http://www/users/wasp/repos?page=3&sort=name");
+  }
+
+  @Test
+  public void testAllocatedBytesPerRequest() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    // skipped rather than passed on the jvms which can't measure it
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+    long threadId = Thread.currentThread().getId();
+
+    for (int i = 0; i < WARM_UP_COUNT; i++) {
+      newRequest(i);
+    }
+
+    long start = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < COUNT; i++) {
+      newRequest(i);
+    }
+    long bytesPerRequest = (threadBean.getThreadAllocatedBytes(threadId) - start) / COUNT;
+
+    assertThat(bytesPerRequest).as("allocated bytes per request")
+        .isLessThan(MAX_BYTES_PER_REQUEST);
+  }
+
+  private RequestCreator newRequest(int page) {
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, "http://www", parser);
+    builder.addParam(0, "wasp");
+    builder.addParam(1, page);
+    builder.addParam(2, "name");
+    return builder.build();
+  }
+}
@@ -0,0 +1,102 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
+import com.orhanobut.wasp.utils.LogLevel;
+import com.orhanobut.wasp.utils.ProgressListener;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class RequestLogTest extends TestCase {
+
+  private final Parser parser = new GsonParser();
+
+  public RequestLogTest() {
+    new Wasp.Builder()
+        .setEndpoint("http://www")
+        .setLogLevel(LogLevel.FULL)
+        .build();
+  }
+
+  @Test
+  public void testBodyMapIsLogged() {
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.track")
+        .setHttpMethod("POST", "/events")
+        .addBodyMapParam()
+        .returnsSync(Object.class)
+        .build()
+        .getMethodInfo();
+    Map<String, Object> events = new LinkedHashMap<>();
+    events.put("name", "wasp");
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, "http://www", parser);
+    builder.addParam(0, events);
+
+    assertThat(builder.build().getLogBody()).isEqualTo("Body - {\"name\":\"wasp\"}");
+  }
+
+  @Test
+  public void testFieldsAreLogged() {
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.login")
+        .setHttpMethod("POST", "/login")
+        .setContentType("application/x-www-form-urlencoded")
+        .addFieldParam("name")
+        .returnsSync(Object.class)
+        .build()
+        .getMethodInfo();
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, "http://www", parser);
+    builder.addParam(0, "wasp");
+
+    assertThat(builder.build().getLogBody()).isEqualTo("Body - name=wasp");
+  }
+
+  @Test
+  public void testCompressedBodyIsLoggedUncompressed() {
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.upload")
+        .setHttpMethod("POST", "/upload")
+        .setCompress()
+        .addBodyParam()
+        .addProgressParam()
+        .returnsSync(Object.class)
+        .build()
+        .getMethodInfo();
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, "http://www", parser);
+    builder.addParam(0, "wasp");
+    builder.addParam(1, new ProgressListener() {
+      @Override
+      public void onProgress(long bytesWritten, long contentLength) {
+        fail("Logging should not report progress");
+      }
+    });
+
+    assertThat(builder.setCompressionThreshold(0).build().getLogBody())
+        .isEqualTo("Body - \"wasp\"");
+  }
+
+  @Test
+  public void testStreamedBodyIsNotRead() {
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.upload")
+        .setHttpMethod("POST", "/upload")
+        .setContentType("multipart/form-data")
+        .addPartParam("raw")
+        .returnsSync(Object.class)
+        .build()
+        .getMethodInfo();
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, "http://www", parser);
+    builder.addParam(0, new ByteArrayInputStream(new byte[]{1, 2}));
+
+    assertThat(builder.build().getLogBody()).startsWith("Body - multipart/form-data");
+  }
+}
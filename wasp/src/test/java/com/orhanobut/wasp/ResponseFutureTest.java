@@ -0,0 +1,55 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResponseFutureTest extends BaseTestCase {
+
+  private final Parser parser = new GsonParser();
+
+  public ResponseFutureTest() {
+    new Wasp.Builder(context)
+        .setEndpoint("http://www")
+        .build();
+  }
+
+  @Test
+  public void testTimeoutCoversRetries() {
+    // 1000 + 2000 + 4000 with the backoff
+    assertThat(ResponseFuture.getTimeout(newRequest(1000, 2))).isEqualTo(7000);
+  }
+
+  @Test
+  public void testResponseAfterFirstTimeoutIsReceived() throws Exception {
+    final ResponseFuture future = new ResponseFuture();
+    final Response response = new Response.Builder().setStatusCode(200).build();
+    new Thread() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(200);
+        } catch (InterruptedException e) {
+          return;
+        }
+        future.onSuccess(response);
+      }
+    }.start();
+
+    // the first attempt times out after 100ms, the retry waits another 200ms
+    assertThat(future.get(newRequest(100, 1))).isSameAs(response);
+  }
+
+  private RequestCreator newRequest(int timeout, int maxNumRetries) {
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.getUser")
+        .setHttpMethod("GET", "/user")
+        .setRetryPolicy(timeout, maxNumRetries, 1f)
+        .returnsSync(Object.class)
+        .build()
+        .getMethodInfo();
+    return new RequestCreator.Builder(methodInfo, "http://www", parser).build();
+  }
+}
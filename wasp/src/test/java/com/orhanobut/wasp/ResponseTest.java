@@ -0,0 +1,92 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.utils.LogLevel;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.nio.charset.Charset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ResponseTest extends TestCase {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final byte[] data = "{\"name\":\"wasp\"}".getBytes(UTF_8);
+
+  private final MethodInfo methodInfo = new ServiceMethod.Builder("Api.getUser")
+      .setHttpMethod("GET", "/user")
+      .returnsSync(User.class)
+      .build()
+      .getMethodInfo();
+
+  public ResponseTest() {
+    new Wasp.Builder().setEndpoint("http://www").build();
+  }
+
+  @Test
+  public void testBodyIsDecodedFromRawBytes() {
+    Response response = newResponse(new Object(), false);
+    assertThat(response.getBody()).isEqualTo("{\"name\":\"wasp\"}");
+  }
+
+  @Test
+  public void testParsedBodyIsDiscarded() {
+    Response response = newResponse(new Object(), true);
+    assertThat(response.getBody()).isNull();
+    assertThat(response.getBodyData()).isNull();
+  }
+
+  @Test
+  public void testErrorBodyIsNotDiscarded() {
+    WaspError error = new WaspError(newResponse(null, true), "error");
+    assertThat(error.getResponse().getBody()).isEqualTo("{\"name\":\"wasp\"}");
+    assertThat(((User) error.getBodyAs(User.class)).name).isEqualTo("wasp");
+  }
+
+  @Test
+  public void testLoggedBodyIsNotDiscarded() {
+    assertThat(newResponse(new Object(), true, LogLevel.FULL).getBody()).isNotNull();
+  }
+
+  @Test
+  public void testLogLevelOfOtherWaspIsNotUsed() {
+    new Wasp.Builder()
+        .setEndpoint("http://www")
+        .setLogLevel(LogLevel.FULL)
+        .build();
+
+    assertThat(newResponse(new Object(), true).getBody()).isNull();
+  }
+
+  private Response newResponse(Object responseObject, boolean isBodyDiscarded) {
+    return newResponse(responseObject, isBodyDiscarded, LogLevel.NONE);
+  }
+
+  private Response newResponse(Object responseObject, boolean isBodyDiscarded,
+                               LogLevel logLevel) {
+    RequestCreator request = new RequestCreator.Builder(methodInfo, "http://www", new GsonParser())
+        .setResponseBodyDiscarded(isBodyDiscarded)
+        .setLogLevel(logLevel)
+        .build();
+    return new Response.Builder()
+        .setRequest(request)
+        .setStatusCode(200)
+        .setBody(data, UTF_8)
+        .setLength(data.length)
+        .setResponseObject(responseObject)
+        .build();
+  }
+
+  static class User {
+    String name;
+  }
+}
@@ -0,0 +1,171 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+import junit.framework.TestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import rx.Subscriber;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class StreamingTest extends TestCase {
+
+  private final Parser parser = new GsonParser();
+
+  private MockWebServer server;
+  private String endPoint;
+
+  private final MethodInfo methodInfo = new ServiceMethod.Builder("Api.getUsers")
+      .setHttpMethod("GET", "/users")
+      .setStreaming()
+      .returnsObservable(User.class)
+      .build()
+      .getMethodInfo();
+
+  static class User {
+    String name;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    server = new MockWebServer();
+    server.start();
+    endPoint = server.url("/v1").toString();
+
+    new Wasp.Builder()
+        .setEndpoint(endPoint)
+        .build();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test
+  public void testElementsAreEmittedAsRequested() {
+    server.enqueue(new MockResponse()
+        .setBody("[{\"name\":\"a\"},{\"name\":\"b\"},{\"name\":\"c\"}]"));
+
+    TestSubscriber subscriber = new TestSubscriber(1);
+    subscribe(UrlConnectionNetworkStack.newInstance(1), subscriber);
+    assertThat(subscriber.names).containsExactly("a");
+    assertThat(subscriber.completed).isFalse();
+
+    subscriber.requestMore(5);
+    assertThat(subscriber.names).containsExactly("a", "b", "c");
+    assertThat(subscriber.completed).isTrue();
+  }
+
+  @Test
+  public void testEmptyBodyCompletes() {
+    server.enqueue(new MockResponse().setBody(""));
+
+    TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+    subscribe(UrlConnectionNetworkStack.newInstance(1), subscriber);
+    assertThat(subscriber.names).isEmpty();
+    assertThat(subscriber.completed).isTrue();
+  }
+
+  @Test
+  public void testErrorResponse() {
+    server.enqueue(new MockResponse().setResponseCode(500).setBody("error"));
+
+    TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+    subscribe(UrlConnectionNetworkStack.newInstance(1), subscriber);
+    assertThat(subscriber.error).isInstanceOf(ExecutionException.class);
+    WaspError error = (WaspError) subscriber.error.getCause();
+    assertThat(error.getResponse().getStatusCode()).isEqualTo(500);
+    assertThat(error.getResponse().getBody()).isEqualTo("error");
+  }
+
+  @Test
+  public void testStackWithoutStreamingParsesTheList() throws Exception {
+    List<User> users = new ArrayList<>();
+    users.add(new User());
+    users.add(new User());
+    NetworkStack networkStack = mock(NetworkStack.class);
+    when(networkStack.invokeRequest(any(RequestCreator.class))).thenReturn(users);
+
+    TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+    subscribe(networkStack, subscriber);
+    assertThat(subscriber.names).hasSize(2);
+    assertThat(subscriber.completed).isTrue();
+  }
+
+  @Test
+  public void testStreamingRequiresObservable() {
+    try {
+      new ServiceMethod.Builder("Api.getUsers")
+          .setHttpMethod("GET", "/users")
+          .setStreaming()
+          .returnsSync(User.class)
+          .build();
+      fail("Streaming should require Observable");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("@Streaming requires Observable");
+    }
+  }
+
+  private void subscribe(NetworkStack networkStack, TestSubscriber subscriber) {
+    RequestCreator requestCreator =
+        new RequestCreator.Builder(methodInfo, endPoint, parser).build();
+    subscriber.onStart();
+    new StreamingOnSubscribe(networkStack, requestCreator).call(subscriber);
+  }
+
+  private static class TestSubscriber extends Subscriber<Object> {
+
+    final List<String> names = new ArrayList<>();
+    final long initialRequest;
+    boolean completed;
+    Throwable error;
+
+    TestSubscriber(long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onStart() {
+      request(initialRequest);
+    }
+
+    void requestMore(long n) {
+      request(n);
+    }
+
+    @Override
+    public void onCompleted() {
+      completed = true;
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      error = e;
+    }
+
+    @Override
+    public void onNext(Object user) {
+      names.add(((User) user).name);
+    }
+  }
+}
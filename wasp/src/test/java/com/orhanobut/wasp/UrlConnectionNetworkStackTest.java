@@ -0,0 +1,280 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.mime.MultipartTypedOutput;
+import com.orhanobut.wasp.mime.TypedByteArray;
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
+import com.orhanobut.wasp.utils.ProgressListener;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class UrlConnectionNetworkStackTest extends TestCase {
+
+  private final Parser parser = new GsonParser();
+
+  private final MockWebServer server = new MockWebServer();
+  private final NetworkStack networkStack = UrlConnectionNetworkStack.newInstance(1);
+  private final String endPoint;
+
+  static class User {
+    String name;
+  }
+
+  public UrlConnectionNetworkStackTest() throws Exception {
+    server.start();
+    endPoint = server.url("/v1").toString();
+
+    new Wasp.Builder()
+        .setEndpoint(endPoint)
+        .build();
+  }
+
+  @Test
+  public void testBuilderWithoutContextUsesUrlConnection() {
+    Wasp.Builder builder = new Wasp.Builder().setEndpoint("http://www");
+    assertThat(builder.getNetworkStack()).isInstanceOf(UrlConnectionNetworkStack.class);
+  }
+
+  @Test
+  public void testGet() throws Exception {
+    server.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody("{\"name\":\"wasp\"}"));
+
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.getUser")
+        .setHttpMethod("GET", "/users/{user}")
+        .addHeaders("Accept: application/json")
+        .addPathParam("user")
+        .returnsSync(User.class)
+        .build()
+        .getMethodInfo();
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, endPoint, parser);
+    builder.addParam(0, "wasp");
+
+    User user = (User) networkStack.invokeRequest(builder.build());
+    assertThat(user.name).isEqualTo("wasp");
+
+    RecordedRequest request = server.takeRequest();
+    assertThat(request.getMethod()).isEqualTo("GET");
+    assertThat(request.getPath()).isEqualTo("/v1/users/wasp");
+    assertThat(request.getHeader("Accept")).isEqualTo("application/json");
+  }
+
+  @Test
+  public void testPostBody() throws Exception {
+    server.enqueue(new MockResponse().setBody("{\"name\":\"wasp\"}"));
+
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.postUser")
+        .setHttpMethod("POST", "/users")
+        .addBodyParam()
+        .returnsSync(User.class)
+        .build()
+        .getMethodInfo();
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, endPoint, parser);
+    builder.addParam(0, "body");
+    networkStack.invokeRequest(builder.build());
+
+    RecordedRequest request = server.takeRequest();
+    assertThat(request.getMethod()).isEqualTo("POST");
+    assertThat(request.getBody().readUtf8()).isEqualTo("\"body\"");
+    assertThat(request.getHeader("Content-Type")).isEqualTo("application/json; charset=UTF-8");
+  }
+
+  @Test
+  public void testPostBodyMapIsEscaped() throws Exception {
+    server.enqueue(new MockResponse().setBody("{\"name\":\"wasp\"}"));
+
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.track")
+        .setHttpMethod("POST", "/events")
+        .addBodyMapParam()
+        .returnsSync(User.class)
+        .build()
+        .getMethodInfo();
+    Map<String, Object> events = new LinkedHashMap<>();
+    events.put("name", "[not json");
+    events.put("quote", "a\"b");
+    events.put("count", 2);
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, endPoint, parser);
+    builder.addParam(0, events);
+    events.put("ignored", true);
+    networkStack.invokeRequest(builder.build());
+
+    RecordedRequest request = server.takeRequest();
+    assertThat(request.getBody().readUtf8())
+        .isEqualTo("{\"name\":\"[not json\",\"quote\":\"a\\\"b\",\"count\":2}");
+    assertThat(request.getHeader("Content-Type")).isEqualTo("application/json; charset=UTF-8");
+  }
+
+  @Test
+  public void testPostFieldsAreFormEncoded() throws Exception {
+    server.enqueue(new MockResponse().setBody("{\"name\":\"wasp\"}"));
+
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.login")
+        .setHttpMethod("POST", "/login")
+        .setContentType("application/x-www-form-urlencoded")
+        .addFieldParam("name")
+        .addFieldParam("tag")
+        .addFieldParam("tag")
+        .returnsSync(User.class)
+        .build()
+        .getMethodInfo();
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, endPoint, parser);
+    builder.addParam(0, "a b&c=ü");
+    builder.addParam(1, "x");
+    builder.addParam(2, Arrays.asList("y*", "~z"));
+    networkStack.invokeRequest(builder.build());
+
+    RecordedRequest request = server.takeRequest();
+    assertThat(request.getBody().readUtf8())
+        .isEqualTo("name=a+b%26c%3D%C3%BC&tag=x&tag=y*&tag=%7Ez");
+    assertThat(request.getHeader("Content-Type"))
+        .isEqualTo("application/x-www-form-urlencoded; charset=UTF-8");
+  }
+
+  @Test
+  public void testMultipartPartsAreStreamed() throws Exception {
+    server.enqueue(new MockResponse().setBody("{\"name\":\"wasp\"}"));
+
+    File file = File.createTempFile("video", ".txt");
+    file.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(file);
+    out.write("file content".getBytes("UTF-8"));
+    out.close();
+
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.upload")
+        .setHttpMethod("POST", "/upload")
+        .setContentType("multipart/form-data")
+        .addPartParam("title")
+        .addPartParam("video")
+        .addPartParam("raw")
+        .addProgressParam()
+        .returnsSync(User.class)
+        .build()
+        .getMethodInfo();
+    final List<Long> progress = new ArrayList<>();
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, endPoint, parser);
+    builder.addParam(0, "wasp");
+    builder.addParam(1, file);
+    builder.addParam(2, new ByteArrayInputStream(new byte[]{1, 2}));
+    builder.addParam(3, new ProgressListener() {
+      @Override
+      public void onProgress(long bytesWritten, long contentLength) {
+        assertThat(contentLength).isEqualTo(-1);
+        progress.add(bytesWritten);
+      }
+    });
+    networkStack.invokeRequest(builder.build());
+
+    RecordedRequest request = server.takeRequest();
+    String contentType = request.getHeader("Content-Type");
+    assertThat(contentType).startsWith("multipart/form-data; boundary=");
+    String boundary = contentType.substring(contentType.indexOf('=') + 1);
+    String body = request.getBody().readUtf8();
+    assertThat(body).isEqualTo("--" + boundary + "\r\n"
+        + "Content-Disposition: form-data; name=\"title\"\r\n"
+        + "Content-Type: text/plain; charset=UTF-8\r\n"
+        + "Content-Length: 4\r\n\r\n"
+        + "wasp\r\n"
+        + "--" + boundary + "\r\n"
+        + "Content-Disposition: form-data; name=\"video\"; filename=\"" + file.getName()
+        + "\"\r\n"
+        + "Content-Type: text/plain\r\n"
+        + "Content-Length: 12\r\n\r\n"
+        + "file content\r\n"
+        + "--" + boundary + "\r\n"
+        + "Content-Disposition: form-data; name=\"raw\"\r\n"
+        + "Content-Type: application/octet-stream\r\n\r\n"
+        + "\u0001\u0002\r\n"
+        + "--" + boundary + "--\r\n");
+    assertThat(progress).isNotEmpty();
+    assertThat(progress.get(progress.size() - 1)).isEqualTo(body.length());
+  }
+
+  @Test
+  public void testMultipartLengthIsKnown() throws Exception {
+    MultipartTypedOutput multipart = new MultipartTypedOutput("b");
+    multipart.addPart("a", new TypedByteArray("text/plain", "123".getBytes("UTF-8")));
+    multipart.addPart("c\"", "f.txt", new TypedByteArray("text/plain", new byte[0]));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    multipart.writeTo(out);
+    assertThat(multipart.length()).isEqualTo(out.size());
+    assertThat(out.toString("UTF-8"))
+        .contains("name=\"c%22\"; filename=\"f.txt\"");
+  }
+
+  @Test
+  public void testPartRequiresMultipart() {
+    try {
+      new ServiceMethod.Builder("Api.upload")
+          .setHttpMethod("POST", "/upload")
+          .addPartParam("title")
+          .returnsSync(User.class)
+          .build();
+      fail("Part should require multipart");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("@Part parameters can only be used with @Multipart");
+    }
+  }
+
+  @Test
+  public void testPostTypedBodyIsNotParsed() throws Exception {
+    server.enqueue(new MockResponse().setBody("{\"name\":\"wasp\"}"));
+
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.upload")
+        .setHttpMethod("POST", "/upload")
+        .addBodyParam()
+        .returnsSync(User.class)
+        .build()
+        .getMethodInfo();
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, endPoint, parser);
+    builder.addParam(0, new TypedByteArray("text/plain", "raw".getBytes("UTF-8")));
+    networkStack.invokeRequest(builder.build());
+
+    RecordedRequest request = server.takeRequest();
+    assertThat(request.getBody().readUtf8()).isEqualTo("raw");
+    assertThat(request.getHeader("Content-Type")).isEqualTo("text/plain");
+  }
+
+  @Test
+  public void testErrorResponse() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(404).setBody("not found"));
+
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.getUser")
+        .setHttpMethod("GET", "/user")
+        .returnsSync(User.class)
+        .build()
+        .getMethodInfo();
+    try {
+      networkStack.invokeRequest(new RequestCreator.Builder(methodInfo, endPoint, parser).build());
+      fail("404 should fail");
+    } catch (ExecutionException e) {
+      WaspError error = (WaspError) e.getCause();
+      assertThat(error.getResponse().getStatusCode()).isEqualTo(404);
+      assertThat(error.getResponse().getBody()).isEqualTo("not found");
+    }
+  }
+}
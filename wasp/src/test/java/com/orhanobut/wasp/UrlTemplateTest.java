@@ -0,0 +1,51 @@
+package com.orhanobut.wasp;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class UrlTemplateTest extends TestCase {
+
+  @Test
+  public void testParse() {
+    UrlTemplate template = UrlTemplate.parse("/repos/{owner}/{id}/commits");
+    assertThat(template.getSlotCount()).isEqualTo(2);
+    assertThat(template.getSlotName(0)).isEqualTo("owner");
+    assertThat(template.getSlotName(1)).isEqualTo("id");
+  }
+
+  @Test
+  public void testExpand() {
+    UrlTemplate template = UrlTemplate.parse("/repos/{owner}/{id}");
+    String url = template.expand("http://www", new String[]{"wasp", "1"}, "?page=2");
+    assertThat(url).isEqualTo("http://www/repos/wasp/1?page=2");
+  }
+
+  @Test
+  public void testExpandWithoutSlots() {
+    UrlTemplate template = UrlTemplate.parse("/user");
+    assertThat(template.getSlotCount()).isEqualTo(0);
+    assertThat(template.expand("http://www", null, "")).isEqualTo("http://www/user");
+  }
+
+  @Test
+  public void testExpandKeepsMissingValues() {
+    UrlTemplate template = UrlTemplate.parse("/repos/{id}");
+    assertThat(template.expand("http://www", null, "")).isEqualTo("http://www/repos/{id}");
+  }
+
+  @Test
+  public void testEncodePathSegment() {
+    assertThat(UrlTemplate.encodePathSegment("wasp-1.0_~")).isEqualTo("wasp-1.0_~");
+    assertThat(UrlTemplate.encodePathSegment("a b")).isEqualTo("a%20b");
+    assertThat(UrlTemplate.encodePathSegment("a+b/c")).isEqualTo("a%2Bb%2Fc");
+    assertThat(UrlTemplate.encodePathSegment("\u00fc")).isEqualTo("%C3%BC");
+  }
+}
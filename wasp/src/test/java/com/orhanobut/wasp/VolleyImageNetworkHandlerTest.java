@@ -0,0 +1,77 @@
+package com.orhanobut.wasp;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.VolleyError;
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.utils.LogLevel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VolleyImageNetworkHandlerTest extends BaseTestCase {
+
+  @Test
+  public void testImageErrorBodyIsParsed() {
+    final List<Request<?>> requests = new ArrayList<>();
+    RequestQueue requestQueue = new RequestQueue(null, null) {
+      @Override
+      public <T> Request<T> add(Request<T> request) {
+        requests.add(request);
+        return request;
+      }
+    };
+    final VolleyImageNetworkHandler handler =
+        new VolleyImageNetworkHandler(requestQueue, new GsonParser(), LogLevel.NONE);
+    final WaspError[] errors = new WaspError[1];
+    final InternalCallback<InternalImageHandler.Container> callback =
+        new InternalCallback<InternalImageHandler.Container>() {
+          @Override
+          public void onSuccess(InternalImageHandler.Container container) {
+          }
+
+          @Override
+          public void onError(WaspError error) {
+            errors[0] = error;
+          }
+        };
+
+    new ImageCreator.Builder()
+        .setImageHandler(new ImageHandler() {
+          @Override
+          public void load(ImageCreator imageCreator) {
+            handler.requestImage(imageCreator, 0, 0, callback);
+          }
+
+          @Override
+          public void clearCache() {
+          }
+        })
+        .from("http://www/image.png")
+        .load();
+    requests.get(0).deliverError(new VolleyError(new NetworkResponse(
+        500, "{\"name\":\"wasp\"}".getBytes(), new HashMap<String, String>(), false
+    )));
+
+    assertThat(errors[0].getResponse().getStatusCode()).isEqualTo(500);
+    assertThat(((User) errors[0].getBodyAs(User.class)).name).isEqualTo("wasp");
+  }
+
+  @Test
+  public void testWaspWithoutContextDoesNotBreakImages() {
+    new Wasp.Builder(context).setEndpoint("http://www").build();
+    new Wasp.Builder().setEndpoint("http://www").build();
+
+    assertThat(Wasp.Image.from("http://www/image.png")).isNotNull();
+  }
+
+  static class User {
+    String name;
+  }
+}
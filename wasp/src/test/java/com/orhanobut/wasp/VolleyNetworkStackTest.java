@@ -0,0 +1,190 @@
+package com.orhanobut.wasp;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.orhanobut.wasp.http.GET;
+import com.orhanobut.wasp.http.Priority;
+import com.orhanobut.wasp.parsers.GsonParser;
+import com.orhanobut.wasp.parsers.Parser;
+import com.orhanobut.wasp.utils.ProgressListener;
+import com.orhanobut.wasp.utils.RequestPriority;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VolleyNetworkStackTest extends BaseTestCase {
+
+  private final Parser parser = new GsonParser();
+
+  interface Api {
+    @GET("/feed")
+    String getFeed();
+
+    @Priority(RequestPriority.LOW)
+    @GET("/log")
+    String getLog();
+
+    @Priority(RequestPriority.HIGH)
+    @GET("/user")
+    String getUser();
+
+    @GET("/repos")
+    String getRepos(@Priority RequestPriority priority);
+  }
+
+  public VolleyNetworkStackTest() {
+    new Wasp.Builder(context)
+        .setEndpoint("http://www")
+        .build();
+  }
+
+  @Test
+  public void testNotModifiedOfVolleyCacheIsParsed() {
+    VolleyNetworkStack.VolleyRequest request = newVolleyRequest(
+        new ServiceMethod.Builder("Api.getName")
+            .setHttpMethod("GET", "/name")
+            .returnsSync(String.class)
+    );
+    NetworkResponse networkResponse = new NetworkResponse(
+        304, "\"wasp\"".getBytes(), new HashMap<String, String>(), true
+    );
+
+    Response response = (Response) request.parseNetworkResponse(networkResponse).result;
+
+    assertThat(response.getStatusCode()).isEqualTo(304);
+    assertThat(response.getResponseObject()).isEqualTo("wasp");
+  }
+
+  @Test
+  public void testNotModifiedOfCachedMethodIsNotParsed() {
+    VolleyNetworkStack.VolleyRequest request = newVolleyRequest(
+        new ServiceMethod.Builder("Api.getName")
+            .setHttpMethod("GET", "/name")
+            .setCache(60, 0)
+            .returnsSync(String.class)
+    );
+    NetworkResponse networkResponse = new NetworkResponse(
+        304, null, Collections.<String, String>emptyMap(), true
+    );
+
+    Response response = (Response) request.parseNetworkResponse(networkResponse).result;
+
+    assertThat(response.getStatusCode()).isEqualTo(304);
+    assertThat(response.getResponseObject()).isNull();
+  }
+
+  @Test
+  public void testBufferedBodyDoesNotReportProgress() throws Exception {
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.upload")
+        .setHttpMethod("POST", "/upload")
+        .setContentType("multipart/form-data")
+        .addPartParam("title")
+        .addProgressParam()
+        .returnsSync(String.class)
+        .build()
+        .getMethodInfo();
+    final List<Long> progress = new ArrayList<>();
+    RequestCreator.Builder builder = new RequestCreator.Builder(methodInfo, "http://www", parser);
+    builder.addParam(0, "wasp");
+    builder.addParam(1, new ProgressListener() {
+      @Override
+      public void onProgress(long bytesWritten, long contentLength) {
+        progress.add(bytesWritten);
+      }
+    });
+    RequestCreator requestCreator = builder.build();
+    VolleyNetworkStack.VolleyRequest request = new VolleyNetworkStack.VolleyRequest(
+        1, requestCreator.getUrl(), requestCreator, null
+    );
+
+    assertThat(new String(request.getBody(), "UTF-8")).contains("wasp");
+    assertThat(progress).isEmpty();
+  }
+
+  @Test
+  public void testSyncRequestUsesRetryPolicy() throws Exception {
+    final List<Request<?>> sentRequests = new ArrayList<>();
+    RequestQueue requestQueue = new RequestQueue(null, null) {
+      @Override
+      public <T> Request<T> add(Request<T> request) {
+        sentRequests.add(request);
+        throw new IllegalStateException("not sent");
+      }
+    };
+    MethodInfo methodInfo = new ServiceMethod.Builder("Api.getName")
+        .setHttpMethod("GET", "/name")
+        .setRetryPolicy(1000, 2, 1f)
+        .returnsSync(String.class)
+        .build()
+        .getMethodInfo();
+    RequestCreator requestCreator =
+        new RequestCreator.Builder(methodInfo, "http://www", parser).build();
+
+    try {
+      VolleyNetworkStack.newInstance(requestQueue).invokeRequest(requestCreator);
+      fail("The request should not be sent");
+    } catch (IllegalStateException e) {
+      // the future would wait for all attempts of the same policy
+      assertThat(sentRequests.get(0).getRetryPolicy())
+          .isSameAs(requestCreator.getRetryPolicy());
+    }
+  }
+
+  @Test
+  public void testPriorityOfTheMethodIsUsed() throws Exception {
+    assertThat(newVolleyRequest("getFeed").getPriority()).isEqualTo(Request.Priority.NORMAL);
+    assertThat(newVolleyRequest("getLog").getPriority()).isEqualTo(Request.Priority.LOW);
+    assertThat(newVolleyRequest("getUser").getPriority()).isEqualTo(Request.Priority.HIGH);
+    assertThat(newVolleyRequest("getRepos", RequestPriority.IMMEDIATE).getPriority())
+        .isEqualTo(Request.Priority.IMMEDIATE);
+  }
+
+  @Test
+  public void testHigherPriorityIsDispatchedFirst() throws Exception {
+    VolleyNetworkStack.VolleyRequest feed = newVolleyRequest("getFeed");
+    VolleyNetworkStack.VolleyRequest log = newVolleyRequest("getLog");
+    VolleyNetworkStack.VolleyRequest user = newVolleyRequest("getUser");
+    VolleyNetworkStack.VolleyRequest repos =
+        newVolleyRequest("getRepos", RequestPriority.IMMEDIATE);
+    // volley dispatches the requests from a priority queue in their compareTo order
+    PriorityQueue<Request<Response>> queue = new PriorityQueue<>();
+    queue.add(log);
+    queue.add(feed);
+    queue.add(repos);
+    queue.add(user);
+
+    assertThat(queue.poll()).isSameAs(repos);
+    assertThat(queue.poll()).isSameAs(user);
+    assertThat(queue.poll()).isSameAs(feed);
+    assertThat(queue.poll()).isSameAs(log);
+  }
+
+  private VolleyNetworkStack.VolleyRequest newVolleyRequest(String name, Object... args) {
+    Method method = null;
+    for (Method declaredMethod : Api.class.getDeclaredMethods()) {
+      if (declaredMethod.getName().equals(name)) {
+        method = declaredMethod;
+      }
+    }
+    MethodInfo methodInfo = MethodInfo.newInstance(context, method);
+    RequestCreator requestCreator =
+        new RequestCreator.Builder(methodInfo, args, "http://www", parser).build();
+    return new VolleyNetworkStack.VolleyRequest(0, requestCreator.getUrl(), requestCreator, null);
+  }
+
+  private VolleyNetworkStack.VolleyRequest newVolleyRequest(ServiceMethod.Builder builder) {
+    MethodInfo methodInfo = builder.build().getMethodInfo();
+    RequestCreator requestCreator =
+        new RequestCreator.Builder(methodInfo, "http://www", parser).build();
+    return new VolleyNetworkStack.VolleyRequest(0, requestCreator.getUrl(), requestCreator, null);
+  }
+}
@@ -13,6 +13,7 @@ import com.android.volley.toolbox.DiskBasedCache;
 import com.android.volley.toolbox.HttpClientStack;
 import com.android.volley.toolbox.HttpStack;
 import com.android.volley.toolbox.HurlStack;
+import com.orhanobut.wasp.http.GET;
 import com.orhanobut.wasp.parsers.GsonParser;
 import com.orhanobut.wasp.parsers.Parser;
 import com.orhanobut.wasp.utils.LogLevel;
@@ -29,6 +30,8 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.CookieHandler;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLSocketFactory;
@@ -187,6 +190,45 @@ public class WaspBuilderTest extends BaseTestCase {
     assertThat(builder.getParser()).isInstanceOf(MyParser.class);
   }
 
+  interface UserService {
+    @GET("/user")
+    Object getUser();
+  }
+
+  @Test
+  public void testSettingsAreKeptByBuiltServices() throws Exception {
+    final List<RequestCreator> sentRequests = new ArrayList<>();
+    Parser parser = new GsonParser();
+    UserService service = new Wasp.Builder(context)
+        .setEndpoint("http://www")
+        .setParser(parser)
+        .discardResponseBody()
+        .setNetworkStack(new NetworkStack() {
+          @Override
+          public void invokeRequest(RequestCreator requestCreator,
+                                    InternalCallback<Response> waspCallback) {
+            sentRequests.add(requestCreator);
+          }
+
+          @Override
+          public Object invokeRequest(RequestCreator requestCreator) throws Exception {
+            sentRequests.add(requestCreator);
+            return null;
+          }
+        })
+        .build()
+        .create(UserService.class);
+
+    new Wasp.Builder(context)
+        .setEndpoint("http://www")
+        .setParser(new GsonParser())
+        .build();
+    service.getUser();
+
+    assertThat(sentRequests.get(0).getParser()).isSameAs(parser);
+    assertThat(sentRequests.get(0).isResponseBodyDiscarded()).isTrue();
+  }
+
   @Test
   public void testWaspHttpStackDefaultWaspOkHttpStack() throws Exception {
     Wasp.Builder builder = new Wasp.Builder(context)
@@ -0,0 +1,182 @@
+package com.orhanobut.wasp;
+
+import com.orhanobut.wasp.utils.WaspCache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WaspCacheTest extends BaseTestCase {
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() {
+    WaspCache<String, String> cache = new WaspCache<>(2);
+    cache.put("a", "A");
+    cache.put("b", "B");
+    cache.get("a");
+    cache.put("c", "C");
+
+    assertThat(cache.get("a")).isEqualTo("A");
+    assertThat(cache.get("b")).isNull();
+    assertThat(cache.get("c")).isEqualTo("C");
+    assertThat(cache.evictionCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testEntriesAreMeasuredWithSizeOf() {
+    WaspCache<String, String> cache = new WaspCache<String, String>(10) {
+      @Override
+      protected int sizeOf(String key, String value) {
+        return value.length();
+      }
+    };
+    cache.put("a", "aaaa");
+    cache.put("b", "bbbb");
+    assertThat(cache.size()).isEqualTo(8);
+
+    cache.put("a", "aa");
+    assertThat(cache.size()).isEqualTo(6);
+
+    cache.put("c", "cccccc");
+    assertThat(cache.get("b")).isNull();
+    assertThat(cache.size()).isEqualTo(8);
+  }
+
+  @Test
+  public void testRemovedEntriesAreReported() {
+    final List<String> removed = new ArrayList<>();
+    WaspCache<String, String> cache = new WaspCache<String, String>(1) {
+      @Override
+      protected void entryRemoved(boolean evicted, String key, String oldValue, String newValue) {
+        removed.add(evicted + " " + key + " " + oldValue + " " + newValue);
+      }
+    };
+    cache.put("a", "A");
+    cache.put("a", "B");
+    cache.put("b", "C");
+    cache.remove("b");
+    cache.put("c", "D");
+    cache.clearAll();
+
+    assertThat(removed).containsExactly(
+        "false a A B", "true a B null", "false b C null", "true c D null"
+    );
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testSegmentsShareMaxSize() {
+    WaspCache<Integer, Integer> cache = new WaspCache<>(10, 3);
+    for (int i = 0; i < 100; i++) {
+      cache.put(i, i);
+    }
+    // 4 segments of 3, 3, 2 and 2 entries
+    assertThat(cache.size()).isEqualTo(10);
+    assertThat(cache.get(99)).isEqualTo(99);
+    assertThat(cache.get(0)).isNull();
+
+    cache.resize(4);
+    assertThat(cache.size()).isEqualTo(4);
+    cache.clearAll();
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testSegmentsAreLimitedByMaxSize() {
+    WaspCache<Integer, Integer> cache = new WaspCache<>(2, 4);
+    cache.put(0, 0);
+    cache.put(1, 1);
+
+    assertThat(cache.segmentCount()).isEqualTo(2);
+    assertThat(cache.get(0)).isEqualTo(0);
+    assertThat(cache.get(1)).isEqualTo(1);
+  }
+
+  @Test
+  public void testEntryLargerThanSegmentIsRejected() {
+    WaspCache<String, String> cache = new WaspCache<String, String>(8, 2) {
+      @Override
+      protected int sizeOf(String key, String value) {
+        return value.length();
+      }
+    };
+    cache.put("a", "aa");
+    cache.put("b", "bb");
+    cache.put("c", "cc");
+    int size = cache.size();
+
+    cache.put("a", "aaaaa");
+
+    assertThat(cache.get("a")).isNull();
+    assertThat(cache.get("b")).isEqualTo("bb");
+    assertThat(cache.get("c")).isEqualTo("cc");
+    assertThat(cache.size()).isEqualTo(size - 2);
+  }
+
+  @Test
+  public void testConcurrentAccessKeepsSize() throws Exception {
+    assertConcurrentAccessKeepsSize(new WaspCache<Integer, Integer>(50));
+  }
+
+  @Test
+  public void testConcurrentAccessKeepsSizeOfSegments() throws Exception {
+    assertConcurrentAccessKeepsSize(new WaspCache<Integer, Integer>(50, 8));
+  }
+
+  @Test
+  public void testMaxSizeMustBePositive() {
+    try {
+      new WaspCache<String, String>(0);
+      fail("maxSize should be positive");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).isEqualTo("maxSize <= 0");
+    }
+  }
+
+  @SuppressWarnings("deprecation")
+  @Test
+  public void testDefaultMaxSize() {
+    WaspCache<Integer, Integer> cache = new WaspCache<>();
+    for (int i = 0; i < 200; i++) {
+      cache.put(i, i);
+    }
+    assertThat(cache.maxSize()).isEqualTo(100);
+    assertThat(cache.size()).isEqualTo(100);
+    assertThat(cache.get(199)).isEqualTo(199);
+  }
+
+  private static void assertConcurrentAccessKeepsSize(final WaspCache<Integer, Integer> cache)
+      throws Exception {
+    final CountDownLatch latch = new CountDownLatch(4);
+    for (int t = 0; t < 4; t++) {
+      final int offset = t * 1000;
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 1000; i++) {
+            cache.put(offset + i, i);
+            cache.get(offset + i / 2);
+            if (i % 3 == 0) {
+              cache.remove(offset + i);
+            }
+          }
+          latch.countDown();
+        }
+      }).start();
+    }
+    latch.await();
+
+    int count = 0;
+    for (int key = 0; key < 4000; key++) {
+      if (cache.get(key) != null) {
+        count++;
+      }
+    }
+    assertThat(cache.size()).isEqualTo(count);
+    assertThat(cache.size()).isLessThanOrEqualTo(50);
+  }
+}